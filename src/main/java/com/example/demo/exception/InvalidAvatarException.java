@@ -0,0 +1,7 @@
+package com.example.demo.exception;
+
+public class InvalidAvatarException extends RuntimeException {
+    public InvalidAvatarException(String message) {
+        super(message);
+    }
+}
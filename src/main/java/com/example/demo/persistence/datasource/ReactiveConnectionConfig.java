@@ -0,0 +1,51 @@
+package com.example.demo.persistence.datasource;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Non-blocking connection pool for the reactive room directory, exposed only through a {@link DatabaseClient}.
+ * <p>
+ * Neither the pool nor Boot's R2DBC auto-configuration may contribute a {@link ConnectionFactory} bean: the JDBC
+ * data source auto-configuration backs off when one exists, and the R2DBC transaction manager would sit next to the JPA
+ * one and leave every {@code @Transactional} without a unique manager. The auto-configuration is therefore excluded in
+ * {@code application.properties} and the pool is owned by this class.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rooms.reactive.enabled", havingValue = "true")
+public class ReactiveConnectionConfig implements DisposableBean {
+
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(@Value("${rooms.reactive.url}") String url,
+                                                 @Value("${rooms.reactive.username:}") String username,
+                                                 @Value("${rooms.reactive.password:}") String password,
+                                                 @Value("${rooms.reactive.pool-size:20}") int poolSize) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .initialSize(Math.min(poolSize, 2))
+                .maxSize(poolSize)
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
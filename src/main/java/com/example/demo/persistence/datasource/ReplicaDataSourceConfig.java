@@ -0,0 +1,44 @@
+package com.example.demo.persistence.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured data source with one that sends read-only transactions to the read replicas listed in
+ * {@code datasource.replicas.urls}. Replicas share the primary's driver and credentials unless overridden.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties,
+                                 @Value("${datasource.replicas.urls}") String[] urls,
+                                 @Value("${datasource.replicas.username:${spring.datasource.username:}}") String username,
+                                 @Value("${datasource.replicas.password:${spring.datasource.password:}}") String password,
+                                 @Value("${datasource.replicas.retry-interval:5000}") long retryInterval) {
+        DataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        List<DataSource> replicas = Arrays.stream(urls)
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> (DataSource) properties.initializeDataSourceBuilder()
+                        .type(HikariDataSource.class)
+                        .url(url)
+                        .username(username)
+                        .password(password)
+                        .build())
+                .toList();
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas, retryInterval));
+    }
+}
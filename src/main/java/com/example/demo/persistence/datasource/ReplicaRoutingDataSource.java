@@ -0,0 +1,99 @@
+package com.example.demo.persistence.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out replica connections inside read-only transactions and primary connections everywhere else.
+ * <p>
+ * Replicas are picked round-robin. A replica that fails to hand out a connection is skipped for
+ * {@code retryInterval} and the next one is tried, falling back to the primary when none is available, so a replica
+ * outage costs one failed connection attempt per interval instead of failing reads.
+ * <p>
+ * The transaction's read-only flag is only known after the transaction manager has asked for a connection, so this
+ * data source must be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long retryInterval;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long retryInterval) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.retryInterval = TimeUnit.MILLISECONDS.toNanos(retryInterval);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(target -> target.getConnection(username, password));
+    }
+
+    private Connection route(ConnectionOpener opener) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return opener.open(primary);
+        }
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(1, replicas.size()));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.isAvailable()) {
+                try {
+                    Connection connection = opener.open(replica.dataSource);
+                    connection.setReadOnly(true);
+                    replica.markUp();
+                    return connection;
+                } catch (SQLException e) {
+                    log.warn("Read replica {} is unavailable, skipping it for {} ms", replica.dataSource,
+                            TimeUnit.NANOSECONDS.toMillis(retryInterval), e);
+                    replica.markDown(retryInterval);
+                }
+            }
+        }
+        return opener.open(primary);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open(DataSource target) throws SQLException;
+    }
+
+    private static final class Replica {
+        private final DataSource dataSource;
+        private final AtomicLong downUntil = new AtomicLong();
+        private volatile boolean down;
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private boolean isAvailable() {
+            return !down || System.nanoTime() - downUntil.get() >= 0;
+        }
+
+        private void markDown(long retryInterval) {
+            downUntil.set(System.nanoTime() + retryInterval);
+            down = true;
+        }
+
+        private void markUp() {
+            down = false;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.demo.persistence.dto;
+
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class ChatMessageDto {
+    private long sequence;
+    private String username;
+    private String text;
+    private long sentAt;
+}
@@ -0,0 +1,12 @@
+package com.example.demo.persistence.dto;
+
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class ChatMessageRequestDto {
+    private String text;
+}
@@ -0,0 +1,17 @@
+package com.example.demo.persistence.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class OccupancySeriesDto {
+    private Long roomId;
+    private int intervalSeconds;
+    private LocalDateTime from;
+    private int[] samples;
+}
@@ -0,0 +1,18 @@
+package com.example.demo.persistence.dto;
+
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class OwnerUsageStatsDto {
+    private Long ownerId;
+    private long rooms;
+    private long noShowRooms;
+    private long sessionCount;
+    private long totalSessionSeconds;
+    private long averageSessionSeconds;
+    private int peakOccupancy;
+}
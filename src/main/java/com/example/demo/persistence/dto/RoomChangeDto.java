@@ -0,0 +1,18 @@
+package com.example.demo.persistence.dto;
+
+import com.example.demo.service.event.RoomEventType;
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class RoomChangeDto {
+    private long sequence;
+    private RoomEventType type;
+    private Long roomId;
+    private String name;
+    private int maxUsers;
+    private long timestamp;
+}
@@ -0,0 +1,17 @@
+package com.example.demo.persistence.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class RoomChangesDto {
+    private long cursor;
+    private boolean resync;
+    private boolean hasMore;
+    private List<RoomChangeDto> changes;
+}
@@ -16,5 +16,6 @@ public class RoomInfoDto {
     private int maxUsers;
     private LocalDateTime dateCreation;
     private boolean isPrivate;
+    private int connectedUserCount;
     private List<ConnectedUserDto> connectedUsers;
 }
@@ -0,0 +1,17 @@
+package com.example.demo.persistence.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class RoomMembersDto {
+    private long cursor;
+    private boolean hasMore;
+    private int total;
+    private List<ConnectedUserDto> members;
+}
@@ -0,0 +1,14 @@
+package com.example.demo.persistence.dto;
+
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class RoomOccupancyDto {
+    private Long id;
+    private int capacity;
+    private int occupancy;
+}
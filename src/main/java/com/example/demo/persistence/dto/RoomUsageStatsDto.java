@@ -0,0 +1,20 @@
+package com.example.demo.persistence.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class RoomUsageStatsDto {
+    private Long roomId;
+    private long sessionCount;
+    private long totalSessionSeconds;
+    private long averageSessionSeconds;
+    private int peakOccupancy;
+    private LocalDateTime lastJoinedAt;
+    private LocalDateTime lastLeftAt;
+}
@@ -20,6 +20,5 @@ public class UserProfileUpdateDto {
     private String status;
     private String password;
     private String confirmPassword;
-    private String imageUrl;
 }
 
@@ -0,0 +1,42 @@
+package com.example.demo.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Per-room rollup of {@link RoomSession} rows, maintained incrementally by the session writer.
+ */
+@Entity
+@Table(name = "room_usage_stats")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@EqualsAndHashCode(of = {"roomId"})
+@Builder
+public class RoomUsageStats {
+
+    @Id
+    @Column(name = "room_id")
+    private Long roomId;
+
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Column(name = "session_count", nullable = false)
+    private long sessionCount;
+
+    @Column(name = "total_session_seconds", nullable = false)
+    private long totalSessionSeconds;
+
+    @Column(name = "peak_occupancy", nullable = false)
+    private int peakOccupancy;
+
+    @Column(name = "last_joined_at")
+    private LocalDateTime lastJoinedAt;
+
+    @Column(name = "last_left_at")
+    private LocalDateTime lastLeftAt;
+}
@@ -5,11 +5,40 @@ import com.example.demo.persistence.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface RoomRepository extends JpaRepository<Room, Long> {
     Optional<Room> findByName(String name);
 
     Page<Room> findAllByUserId(Long id, Pageable pageable);
+
+    long countByUserId(Long userId);
+
+    boolean existsByIdAndUserId(Long id, Long userId);
+
+    @Query("select r.id as id, r.numberOfUsers as capacity from Room r where r.id in :ids")
+    List<RoomCapacity> findCapacitiesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select r.id from Room r where r.user.id = :userId")
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("delete from Room r where r.id = :id")
+    int deleteRoomById(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from Room r where r.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+
+    interface RoomCapacity {
+        Long getId();
+
+        int getCapacity();
+    }
 }
@@ -0,0 +1,7 @@
+package com.example.demo.persistence.repository;
+
+import com.example.demo.persistence.model.RoomSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RoomSessionRepository extends JpaRepository<RoomSession, Long> {
+}
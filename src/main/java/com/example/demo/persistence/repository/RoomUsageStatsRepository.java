@@ -0,0 +1,26 @@
+package com.example.demo.persistence.repository;
+
+import com.example.demo.persistence.model.RoomUsageStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface RoomUsageStatsRepository extends JpaRepository<RoomUsageStats, Long> {
+
+    @Query("select count(s) as usedRooms, coalesce(sum(s.sessionCount), 0) as sessionCount, "
+            + "coalesce(sum(s.totalSessionSeconds), 0) as totalSessionSeconds, "
+            + "coalesce(max(s.peakOccupancy), 0) as peakOccupancy "
+            + "from RoomUsageStats s where s.ownerId = :ownerId and s.sessionCount > 0 "
+            + "and exists (select r.id from Room r where r.id = s.roomId)")
+    OwnerUsage summarizeByOwnerId(@Param("ownerId") Long ownerId);
+
+    interface OwnerUsage {
+        long getUsedRooms();
+
+        long getSessionCount();
+
+        long getTotalSessionSeconds();
+
+        int getPeakOccupancy();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.demo.service;
+
+/**
+ * Result of a join attempt. Rejections are expected results under load, so they are returned instead of thrown and
+ * cost no stack trace.
+ */
+public enum ConnectionOutcome {
+    CONNECTED,
+    ROOM_NOT_FOUND,
+    USERNAME_REQUIRED,
+    WRONG_PASSWORD,
+    ROOM_FULL,
+    WAITLIST_FULL,
+    ALREADY_WAITING
+}
@@ -0,0 +1,11 @@
+package com.example.demo.service;
+
+/**
+ * Result of a leave attempt, returned instead of thrown like {@link ConnectionOutcome}.
+ */
+public enum DisconnectionOutcome {
+    DISCONNECTED,
+    ROOM_NOT_FOUND,
+    ROOM_EMPTY,
+    USER_NOT_IN_ROOM
+}
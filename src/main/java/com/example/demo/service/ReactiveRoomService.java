@@ -0,0 +1,19 @@
+package com.example.demo.service;
+
+import com.example.demo.persistence.dto.RoomInfoDto;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking variant of the read side of {@link RoomService}, backed by R2DBC. Pages are streamed as they are read
+ * and come without a total count.
+ */
+public interface ReactiveRoomService {
+
+    Mono<Long> getRoomIdByName(String name);
+
+    Flux<RoomInfoDto> getAll(Pageable pageable);
+
+    Flux<RoomInfoDto> getAllRoomsByUserId(Long userId, Pageable pageable);
+}
@@ -4,23 +4,72 @@ import com.example.demo.persistence.dto.ConnectionRequestDto;
 import com.example.demo.persistence.dto.DisconnectionRequestDto;
 import com.example.demo.persistence.dto.RoomCreateDto;
 import com.example.demo.persistence.dto.RoomInfoDto;
+import com.example.demo.persistence.dto.RoomMembersDto;
+import com.example.demo.persistence.dto.RoomOccupancyDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface RoomService {
 
     void create(RoomCreateDto roomDto, Long userId);
 
     Long getRoomIdByName(String name);
 
+    /**
+     * Whether the room exists and belongs to the user.
+     */
+    boolean isOwner(Long id, Long userId);
+
     Page<RoomInfoDto> getAll(Pageable pageable);
 
     Page<RoomInfoDto> getAllRoomsByUserId(Long userId, Pageable pageable);
 
-    void connect(Long id, ConnectionRequestDto requestDto);
+    /**
+     * Up to {@code limit} rooms with the most users connected, busiest first, see {@code PopularRooms}.
+     */
+    List<RoomInfoDto> getPopular(int limit);
+
+    /**
+     * Capacity and current occupancy of each existing room among the ids, in the order of the ids. Unknown ids are
+     * left out.
+     */
+    List<RoomOccupancyDto> getOccupancies(Collection<Long> ids);
+
+    /**
+     * Up to {@code limit} members of the room who joined after the member at {@code cursor}, in join order. Start with
+     * cursor {@code 0} and pass the returned cursor to get the next page.
+     */
+    RoomMembersDto getMembers(Long id, long cursor, int limit);
 
-    void disconnect(DisconnectionRequestDto requestDto);
+    /**
+     * Joins the room, or returns why the join was rejected. Expected rejections are never thrown.
+     */
+    ConnectionOutcome connect(Long id, ConnectionRequestDto requestDto);
+
+    /**
+     * Same as {@link #connect} but parks the request in the room's waitlist instead of rejecting it when the room is
+     * full. The returned future completes with {@link ConnectionOutcome#CONNECTED} once a slot is handed over to the
+     * request, or with the reason it was rejected.
+     */
+    CompletableFuture<ConnectionOutcome> connectOrWait(Long id, ConnectionRequestDto requestDto);
+
+    DisconnectionOutcome disconnect(DisconnectionRequestDto requestDto);
+
+    /**
+     * Releases every slot the user holds, e.g. on logout or account deletion. In a cluster the slots in rooms owned
+     * by other nodes are released there in the background.
+     */
+    void disconnectFromAllRooms(String username);
 
     void deleteById(Long id);
 
+    /**
+     * Deletes every room owned by the user with set-based statements and evicts their presence.
+     */
+    void deleteAllByUserId(Long userId);
+
 }
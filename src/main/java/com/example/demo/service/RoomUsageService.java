@@ -0,0 +1,24 @@
+package com.example.demo.service;
+
+import com.example.demo.persistence.dto.OccupancySeriesDto;
+import com.example.demo.persistence.dto.OwnerUsageStatsDto;
+import com.example.demo.persistence.dto.RoomUsageStatsDto;
+import com.example.demo.service.usage.OccupancyResolution;
+
+public interface RoomUsageService {
+
+    /**
+     * Session totals of the room, all zero if nobody has left it yet.
+     */
+    RoomUsageStatsDto getRoomStats(Long roomId);
+
+    /**
+     * Session totals over all rooms of the owner, including how many of them have never been used.
+     */
+    OwnerUsageStatsDto getOwnerStats(Long ownerId);
+
+    /**
+     * Peak occupancy of the room per bucket of the given resolution, ending with the current bucket.
+     */
+    OccupancySeriesDto getOccupancy(Long roomId, OccupancyResolution resolution);
+}
@@ -9,5 +9,10 @@ public interface UserService {
     UserProfileReadDto getById(Long id);
 
     void updateById(Long id, UserProfileUpdateDto userDto);
+
+    /**
+     * Stores the image as the user's avatar and returns the new {@code imageUrl}.
+     */
+    String updateAvatar(Long id, byte[] image);
     boolean deleteById(long id);
 }
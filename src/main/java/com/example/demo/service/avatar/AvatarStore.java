@@ -0,0 +1,146 @@
+package com.example.demo.service.avatar;
+
+import com.example.demo.exception.InvalidAvatarException;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed avatar store. An upload is named by the SHA-256 of its bytes and stored only as square PNG
+ * thumbnails of the configured sizes, written once under {@code <dir>/<first two hex digits>/<hash>-<size>.png}.
+ * Files never change after they are written, so they can be served with strong ETags and cached forever, and
+ * uploading the same picture twice costs nothing.
+ */
+@Component
+public class AvatarStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path directory;
+    @Getter
+    private final List<Integer> sizes;
+    private final int maxDimension;
+
+    public AvatarStore(@Value("${avatars.dir:data/avatars}") Path directory,
+                       @Value("${avatars.sizes:64,256}") Integer[] sizes,
+                       @Value("${avatars.max-dimension:4096}") int maxDimension) {
+        this.directory = directory;
+        this.sizes = Arrays.stream(sizes).sorted().toList();
+        this.maxDimension = maxDimension;
+    }
+
+    /**
+     * Stores the image and returns its hash. Anything ImageIO cannot decode, or larger than
+     * {@code avatars.max-dimension} on either side, is rejected before it is decoded.
+     */
+    public String store(byte[] content) {
+        String hash = HexFormat.of().formatHex(sha256(content));
+        if (sizes.stream().allMatch(size -> Files.exists(path(hash, size)))) {
+            return hash;
+        }
+        BufferedImage image = decode(content);
+        try {
+            for (int size : sizes) {
+                write(thumbnail(image, size), path(hash, size));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not store avatar " + hash, e);
+        }
+        return hash;
+    }
+
+    /**
+     * The stored thumbnail, or {@code null} if the hash or size is malformed or nothing is stored under them.
+     */
+    public Path find(String hash, int size) {
+        if (!HASH.matcher(hash).matches() || !sizes.contains(size)) {
+            return null;
+        }
+        Path path = path(hash, size);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    private Path path(String hash, int size) {
+        return directory.resolve(hash.substring(0, 2)).resolve(hash + "-" + size + ".png");
+    }
+
+    private BufferedImage decode(byte[] content) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(content))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new InvalidAvatarException("Avatar must be a PNG, JPEG, GIF or BMP image!");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if (reader.getWidth(0) > maxDimension || reader.getHeight(0) > maxDimension) {
+                    throw new InvalidAvatarException(String.format(
+                            "Avatar must not be larger than %dx%d pixels!", maxDimension, maxDimension));
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new InvalidAvatarException("Avatar image is corrupt!");
+        }
+    }
+
+    /**
+     * Scales the image to cover a {@code size} square and crops the overflow evenly from both sides.
+     */
+    private static BufferedImage thumbnail(BufferedImage image, int size) {
+        double scale = (double) size / Math.min(image.getWidth(), image.getHeight());
+        int width = (int) Math.ceil(image.getWidth() * scale);
+        int height = (int) Math.ceil(image.getHeight() * scale);
+        BufferedImage thumbnail = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, (size - width) / 2, (size - height) / 2, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return thumbnail;
+    }
+
+    private static void write(BufferedImage image, Path path) throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        Files.createDirectories(path.getParent());
+        Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, png.toByteArray());
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
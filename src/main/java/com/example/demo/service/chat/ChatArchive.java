@@ -0,0 +1,155 @@
+package com.example.demo.service.chat;
+
+import com.example.demo.persistence.dto.ChatMessageDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes chat messages to {@code room_messages} on a dedicated thread, so sending a message never waits for the
+ * database.
+ * <p>
+ * Messages are queued in a bounded buffer and written in JDBC batches of up to {@code rooms.chat.archive.batch-size},
+ * so a slow database makes the batches larger instead of the backlog longer. When the buffer is full, messages are
+ * dropped from the archive and counted; they are still delivered and kept in the room's history.
+ * <p>
+ * Deleting a room's messages is left to the writer as well: it deletes the rows already written, and skips the room's
+ * messages still queued behind the deletion by remembering the last {@value #TOMBSTONES} deleted rooms.
+ */
+@Slf4j
+@Component
+public class ChatArchive {
+
+    private static final String INSERT_MESSAGE = "insert into room_messages "
+            + "(room_id, sequence, username, body, sent_at) values (?, ?, ?, ?, ?)";
+    private static final String DELETE_MESSAGES = "delete from room_messages where room_id = ?";
+    private static final String DELETE_ORPHANS = "delete from room_messages m "
+            + "where not exists (select 1 from rooms r where r.id = m.room_id)";
+    private static final long POLL_MILLIS = 100;
+    private static final int TOMBSTONES = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<Object[]> queue;
+    private final int batchSize;
+    private final LongAdder dropped = new LongAdder();
+    private final Queue<Long> deletedRooms = new ConcurrentLinkedQueue<>();
+    private final Set<Long> tombstones = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > TOMBSTONES;
+        }
+    });
+    private volatile boolean orphansDeleted = true;
+    private final Thread writer = new Thread(this::run, "chat-archive");
+    private volatile boolean running = true;
+
+    public ChatArchive(JdbcTemplate jdbcTemplate,
+                       @Value("${rooms.chat.archive.queue-size:65536}") int queueSize,
+                       @Value("${rooms.chat.archive.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    void start() {
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues the message for writing. Returns {@code false} if it was dropped because the writer is too far behind.
+     */
+    public boolean offer(Long roomId, ChatMessageDto message) {
+        Object[] row = {roomId, message.getSequence(), message.getUsername(), message.getText(),
+                new Timestamp(message.getSentAt())};
+        if (!queue.offer(row)) {
+            dropped.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Deletes the messages of the room, including those still queued.
+     */
+    public void delete(Long roomId) {
+        deletedRooms.add(roomId);
+    }
+
+    /**
+     * Deletes the messages of every room that no longer exists, for when {@link #delete} may have been missed.
+     */
+    public void deleteOrphans() {
+        orphansDeleted = false;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops taking new batches and writes what is still queued.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void run() {
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Object[] first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flush(List<Object[]> batch) {
+        List<Object[]> deletions = new ArrayList<>();
+        for (Long roomId = deletedRooms.poll(); roomId != null; roomId = deletedRooms.poll()) {
+            tombstones.add(roomId);
+            deletions.add(new Object[]{roomId});
+        }
+        if (!tombstones.isEmpty()) {
+            batch.removeIf(row -> tombstones.contains((Long) row[0]));
+        }
+        try {
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_MESSAGE, batch);
+            }
+            if (!deletions.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_MESSAGES, deletions);
+            }
+            if (!orphansDeleted) {
+                orphansDeleted = true;
+                jdbcTemplate.update(DELETE_ORPHANS);
+            }
+        } catch (DataAccessException e) {
+            log.error("Dropping {} chat messages after a failed flush", batch.size(), e);
+        } finally {
+            batch.clear();
+        }
+    }
+}
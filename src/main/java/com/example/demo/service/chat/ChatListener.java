@@ -0,0 +1,22 @@
+package com.example.demo.service.chat;
+
+import com.example.demo.persistence.dto.ChatMessageDto;
+
+import java.util.List;
+
+/**
+ * Receiver of a room's chat for one member, e.g. an open event stream. Called by one sender thread at a time, which
+ * it may block on a slow client without holding up any other listener.
+ */
+public interface ChatListener {
+
+    /**
+     * Delivers the messages sent since the last call, oldest first. Returning {@code false} unsubscribes the listener.
+     */
+    boolean deliver(List<ChatMessageDto> messages);
+
+    /**
+     * Called once the member has left the room or the room was deleted.
+     */
+    void close();
+}
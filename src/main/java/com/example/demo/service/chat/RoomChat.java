@@ -0,0 +1,334 @@
+package com.example.demo.service.chat;
+
+import com.example.demo.persistence.dto.ChatMessageDto;
+import com.example.demo.service.event.RoomEvent;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.event.RoomEventHandler;
+import com.example.demo.service.presence.RoomPresence;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Text chat of the rooms, for the users {@link RoomPresence} has in them.
+ * <p>
+ * The last {@code rooms.chat.history-size} messages of a room live in a ring, so a member who joins gets the recent
+ * history at once. Sending appends to the ring, queues the message for {@link ChatArchive} and schedules delivery,
+ * nothing more. Delivery runs on a small pool, one task per room at a time: it takes everything after each listener's
+ * own cursor and queues it for that listener without blocking, so messages sent while it runs are batched and every
+ * listener sees them in order. A listener more than a ring behind skips the overwritten messages, which it can tell
+ * from the sequence numbers.
+ * <p>
+ * Each listener has a queue of {@code rooms.chat.subscriber-queue-size} batches, drained by a pool of
+ * {@code rooms.chat.sender-threads}, one task per listener at a time, which merges whatever is queued into one call.
+ * A slow client therefore only holds up its own listener; once its queue is full it is closed and has to reconnect,
+ * catching up from the history.
+ * <p>
+ * Listeners are closed when their user leaves the room. The history of a room is dropped once it is empty, and with
+ * its archived messages once the room is deleted. Sequence numbers start from the clock, so they keep growing across
+ * restarts and emptied rooms.
+ */
+@Slf4j
+@Component
+public class RoomChat implements RoomEventHandler {
+
+    private final RoomPresence roomPresence;
+    private final RoomEventBus roomEventBus;
+    private final ChatArchive chatArchive;
+    private final int historySize;
+    private final int subscriberQueueSize;
+    private final ExecutorService delivery;
+    private final ExecutorService senders;
+    private final LongAdder overflows = new LongAdder();
+    private final Map<Long, ChatRoom> rooms = new ConcurrentHashMap<>();
+
+    public RoomChat(RoomPresence roomPresence,
+                    RoomEventBus roomEventBus,
+                    ChatArchive chatArchive,
+                    @Value("${rooms.chat.history-size:100}") int historySize,
+                    @Value("${rooms.chat.delivery-threads:2}") int deliveryThreads,
+                    @Value("${rooms.chat.sender-threads:8}") int senderThreads,
+                    @Value("${rooms.chat.subscriber-queue-size:16}") int subscriberQueueSize) {
+        this.roomPresence = roomPresence;
+        this.roomEventBus = roomEventBus;
+        this.chatArchive = chatArchive;
+        this.historySize = historySize;
+        this.subscriberQueueSize = subscriberQueueSize;
+        this.delivery = Executors.newFixedThreadPool(deliveryThreads, daemonThreads("chat-delivery-"));
+        this.senders = Executors.newFixedThreadPool(senderThreads, daemonThreads("chat-sender-"));
+    }
+
+    @PostConstruct
+    void subscribe() {
+        roomEventBus.subscribe(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        delivery.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Listeners closed so far because they fell a whole queue behind.
+     */
+    public long getOverflowCount() {
+        return overflows.sum();
+    }
+
+    /**
+     * Sends the message to everyone in the room. Returns {@code null} if the sender is not in the room.
+     */
+    public ChatMessageDto send(Long roomId, String username, String text) {
+        if (!roomPresence.isMember(roomId, username)) {
+            return null;
+        }
+        ChatRoom room = rooms.computeIfAbsent(roomId, ChatRoom::new);
+        ChatMessageDto message = room.append(username, text);
+        chatArchive.offer(roomId, message);
+        room.scheduleDelivery();
+        return message;
+    }
+
+    /**
+     * Messages of the room after the {@code after} sequence that are still in its history, oldest first. Returns
+     * {@code null} if the user is not in the room.
+     */
+    public List<ChatMessageDto> history(Long roomId, String username, long after) {
+        if (!roomPresence.isMember(roomId, username)) {
+            return null;
+        }
+        ChatRoom room = rooms.get(roomId);
+        return room == null ? List.of() : room.since(after);
+    }
+
+    /**
+     * Delivers the room's history after the {@code after} sequence and then every new message to the listener, until
+     * the user leaves the room. Returns {@code false} if the user is not in the room.
+     */
+    public boolean subscribe(Long roomId, String username, long after, ChatListener listener) {
+        if (!roomPresence.isMember(roomId, username)) {
+            return false;
+        }
+        ChatRoom room = rooms.computeIfAbsent(roomId, ChatRoom::new);
+        room.subscribers.add(new Subscriber(username, listener, after, room));
+        room.scheduleDelivery();
+        return true;
+    }
+
+    public void unsubscribe(Long roomId, ChatListener listener) {
+        ChatRoom room = rooms.get(roomId);
+        if (room != null) {
+            room.subscribers.removeIf(subscriber -> subscriber.listener == listener);
+        }
+    }
+
+    @Override
+    public void onEvent(RoomEvent event, long sequence, boolean endOfBatch) {
+        switch (event.getType()) {
+            case DISCONNECTED -> leave(event.getRoomId(), event.getUsername());
+            case DELETED -> {
+                ChatRoom room = rooms.remove(event.getRoomId());
+                if (room != null) {
+                    room.subscribers.forEach(Subscriber::close);
+                }
+                chatArchive.delete(event.getRoomId());
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Closes the listeners of users who left and drops the rooms that were emptied or deleted while the events were
+     * lost, and has the messages of deleted rooms removed from the archive.
+     */
+    @Override
+    public void onDropped(long count) {
+        rooms.forEach((roomId, room) -> {
+            room.subscribers.removeIf(subscriber -> {
+                if (roomPresence.isMember(roomId, subscriber.username)) {
+                    return false;
+                }
+                subscriber.close();
+                return true;
+            });
+            if (roomPresence.occupancy(roomId) == 0) {
+                rooms.remove(roomId, room);
+            }
+        });
+        chatArchive.deleteOrphans();
+    }
+
+    private void leave(Long roomId, String username) {
+        ChatRoom room = rooms.get(roomId);
+        if (room == null) {
+            return;
+        }
+        room.subscribers.removeIf(subscriber -> {
+            if (!subscriber.username.equals(username)) {
+                return false;
+            }
+            subscriber.close();
+            return true;
+        });
+        if (roomPresence.occupancy(roomId) == 0) {
+            rooms.remove(roomId, room);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * One listener with its queue of batches. {@code cursor} is only touched by the room's delivery task, and
+     * {@code pending} counts send requests the same way {@link ChatRoom} counts delivery requests.
+     */
+    private final class Subscriber {
+        private final String username;
+        private final ChatListener listener;
+        private final ChatRoom room;
+        private final BlockingQueue<List<ChatMessageDto>> outbox = new ArrayBlockingQueue<>(subscriberQueueSize);
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private long cursor;
+
+        private Subscriber(String username, ChatListener listener, long cursor, ChatRoom room) {
+            this.username = username;
+            this.listener = listener;
+            this.cursor = cursor;
+            this.room = room;
+        }
+
+        /**
+         * Queues the messages without blocking. Returns {@code false} if the queue is full.
+         */
+        private boolean offer(List<ChatMessageDto> messages) {
+            if (!outbox.offer(messages)) {
+                return false;
+            }
+            if (pending.getAndIncrement() == 0) {
+                try {
+                    senders.execute(this::send);
+                } catch (RejectedExecutionException e) {
+                    pending.set(0);
+                }
+            }
+            return true;
+        }
+
+        private void send() {
+            List<List<ChatMessageDto>> batches = new ArrayList<>(subscriberQueueSize);
+            int requests;
+            do {
+                requests = pending.get();
+                outbox.drainTo(batches);
+                if (!batches.isEmpty() && !closed.get()) {
+                    List<ChatMessageDto> messages = batches.size() == 1
+                            ? batches.get(0)
+                            : batches.stream().flatMap(List::stream).toList();
+                    boolean delivered;
+                    try {
+                        delivered = listener.deliver(messages);
+                    } catch (RuntimeException e) {
+                        log.warn("Chat listener of {} in room {} failed", username, room.roomId, e);
+                        delivered = false;
+                    }
+                    if (!delivered) {
+                        closed.set(true);
+                        room.subscribers.remove(this);
+                    }
+                }
+                batches.clear();
+            } while (pending.addAndGet(-requests) != 0);
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                listener.close();
+            }
+        }
+    }
+
+    /**
+     * History and listeners of one room. The ring is guarded by the room's monitor; {@code pending} counts delivery
+     * requests so that only the request that finds it at zero starts a task, and that task keeps going until it has
+     * caught up with all of them.
+     */
+    private final class ChatRoom {
+        private final Long roomId;
+        private final ChatMessageDto[] ring = new ChatMessageDto[historySize];
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private long head = System.currentTimeMillis() * 1000;
+
+        private ChatRoom(Long roomId) {
+            this.roomId = roomId;
+        }
+
+        private synchronized ChatMessageDto append(String username, String text) {
+            ChatMessageDto message = new ChatMessageDto(++head, username, text, System.currentTimeMillis());
+            ring[(int) (head % ring.length)] = message;
+            return message;
+        }
+
+        private synchronized List<ChatMessageDto> since(long after) {
+            long first = Math.max(after, head - ring.length) + 1;
+            List<ChatMessageDto> messages = new ArrayList<>((int) Math.max(0, head - first + 1));
+            for (long sequence = first; sequence <= head; sequence++) {
+                ChatMessageDto message = ring[(int) (sequence % ring.length)];
+                if (message != null && message.getSequence() == sequence) {
+                    messages.add(message);
+                }
+            }
+            return messages;
+        }
+
+        private void scheduleDelivery() {
+            if (pending.getAndIncrement() == 0) {
+                try {
+                    delivery.execute(this::deliver);
+                } catch (RejectedExecutionException e) {
+                    pending.set(0);
+                }
+            }
+        }
+
+        private void deliver() {
+            int requests;
+            do {
+                requests = pending.get();
+                for (Subscriber subscriber : subscribers) {
+                    List<ChatMessageDto> messages = since(subscriber.cursor);
+                    if (messages.isEmpty()) {
+                        continue;
+                    }
+                    subscriber.cursor = messages.get(messages.size() - 1).getSequence();
+                    if (!subscriber.offer(messages)) {
+                        log.info("Closing chat listener of {} in room {}, it fell {} batches behind",
+                                subscriber.username, roomId, subscriberQueueSize);
+                        overflows.increment();
+                        subscribers.remove(subscriber);
+                        subscriber.close();
+                    }
+                }
+            } while (pending.addAndGet(-requests) != 0);
+        }
+    }
+}
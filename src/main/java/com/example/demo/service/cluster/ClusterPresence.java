@@ -0,0 +1,79 @@
+package com.example.demo.service.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+
+/**
+ * Releases a user's slots on the other nodes of the cluster, e.g. on logout, as this node only holds the presence of
+ * the rooms it owns, see {@link RoomOwnership}.
+ * <p>
+ * Every other node is told in the background, so logging out never waits for the cluster; a node that cannot be
+ * reached is logged and keeps the user until they leave or its rooms move. Nodes prove to each other that they
+ * belong to the cluster with the shared {@code rooms.cluster.secret}; without one, these requests are refused.
+ */
+@Slf4j
+@Component
+public class ClusterPresence {
+
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+    public static final String MEMBERS_PATH = "/api/v1/cluster/members";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final RoomOwnership roomOwnership;
+    private final String secret;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(TIMEOUT)
+            .build();
+
+    public ClusterPresence(RoomOwnership roomOwnership,
+                           @Value("${rooms.cluster.secret:}") String secret) {
+        this.roomOwnership = roomOwnership;
+        this.secret = secret;
+    }
+
+    /**
+     * Asks every other node to release the user's slots in the rooms it owns.
+     */
+    public void disconnectElsewhere(String username) {
+        if (!roomOwnership.isEnabled()) {
+            return;
+        }
+        String query = "?username=" + URLEncoder.encode(username, StandardCharsets.UTF_8);
+        for (String node : roomOwnership.getNodes()) {
+            if (node.equals(roomOwnership.getSelf())) {
+                continue;
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(node + MEMBERS_PATH + query))
+                    .timeout(TIMEOUT)
+                    .header(SECRET_HEADER, secret)
+                    .DELETE()
+                    .build();
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+                if (e != null || response.statusCode() >= 300) {
+                    log.warn("Could not release the slots of {} on {}: {}", username, node,
+                            e != null ? e.toString() : "status " + response.statusCode());
+                }
+            });
+        }
+    }
+
+    /**
+     * Whether a request carries the secret of this cluster.
+     */
+    public boolean isTrusted(String presentedSecret) {
+        return !secret.isEmpty() && presentedSecret != null && MessageDigest.isEqual(
+                secret.getBytes(StandardCharsets.UTF_8), presentedSecret.getBytes(StandardCharsets.UTF_8));
+    }
+}
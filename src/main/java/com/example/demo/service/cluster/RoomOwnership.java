@@ -0,0 +1,96 @@
+package com.example.demo.service.cluster;
+
+import com.example.demo.service.presence.RoomPresence;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Decides which node owns a room when several instances serve the API, so that joins and leaves of a room always run
+ * against the {@link RoomPresence} of one node and never need to be shared.
+ * <p>
+ * Nodes are named by their base URL, e.g. {@code http://10.0.0.7:8080}, and rooms are spread over them by a
+ * {@link HashRing} over room ids. Requests for a room owned elsewhere are redirected there, see
+ * {@code RoomOwnershipFilter}. When the nodes change, rooms that moved away are evicted from the local presence and
+ * their members join again at the new owner. With {@code rooms.cluster.enabled=false} this node owns every room.
+ */
+@Slf4j
+@Component
+public class RoomOwnership {
+
+    private final boolean enabled;
+    private final String self;
+    private final int virtualNodes;
+    private final RoomPresence roomPresence;
+    private volatile HashRing ring;
+
+    public RoomOwnership(@Value("${rooms.cluster.enabled:false}") boolean enabled,
+                         @Value("${rooms.cluster.self:}") String self,
+                         @Value("${rooms.cluster.nodes:}") String nodes,
+                         @Value("${rooms.cluster.virtual-nodes:160}") int virtualNodes,
+                         RoomPresence roomPresence) {
+        this.enabled = enabled;
+        this.self = self;
+        this.virtualNodes = virtualNodes;
+        this.roomPresence = roomPresence;
+        this.ring = new HashRing(enabled ? parse(nodes) : List.of(self), virtualNodes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Base URL of this node.
+     */
+    public String getSelf() {
+        return self;
+    }
+
+    /**
+     * Base URLs of the nodes currently in the cluster, this one included.
+     */
+    public List<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    /**
+     * Base URL of the node that owns the room, or empty if it is this one.
+     */
+    public Optional<String> remoteOwner(Long roomId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String owner = ring.ownerOf(roomId);
+        return owner == null || owner.equals(self) ? Optional.empty() : Optional.of(owner);
+    }
+
+    /**
+     * Replaces the nodes of the cluster, e.g. when one joins or leaves, and evicts the rooms this node no longer owns.
+     */
+    public synchronized void setNodes(List<String> nodes) {
+        if (!enabled) {
+            throw new IllegalStateException("Room ownership is disabled");
+        }
+        ring = new HashRing(nodes, virtualNodes);
+        int evicted = 0;
+        for (Long roomId : roomPresence.roomIds()) {
+            if (remoteOwner(roomId).isPresent()) {
+                roomPresence.evict(roomId);
+                evicted++;
+            }
+        }
+        log.info("Cluster nodes changed to {}, evicted {} rooms owned elsewhere now", ring.getNodes(), evicted);
+    }
+
+    private static List<String> parse(String nodes) {
+        return Arrays.stream(nodes.split(","))
+                .map(String::trim)
+                .filter(node -> !node.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.service.directory;
+
+import com.example.demo.service.event.RoomEvent;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.event.RoomEventHandler;
+import com.example.demo.service.presence.RoomPresence;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Rooms ranked by occupancy, busiest first, for listings the database cannot sort as occupancy only lives in
+ * {@code RoomPresence}.
+ * <p>
+ * The ranking is a skip list of (occupancy, room id) entries, kept up to date from the joins and leaves on the event
+ * bus: each one replaces the room's entry in O(log n), and reading the top {@code k} walks only the first entries.
+ * Each update adds the new entry before removing the old one, so a concurrent reader may see a room twice, which
+ * {@link #top} filters out, but never misses it. Updates of a room run inside its {@code compute} on the rank map, so
+ * the event bus thread and a {@link #reconcile} from another thread cannot leave a stale entry. Empty rooms are not
+ * ranked.
+ * <p>
+ * A join or leave the event bus dropped would leave a room at its old place until its next one, or forever once it is
+ * empty, so after drops every ranked and every occupied room is re-ranked from {@link RoomPresence}. The same happens
+ * once connections restored from the journal are back in {@link RoomPresence}, as restoring publishes no events.
+ */
+@Component
+public class PopularRooms implements RoomEventHandler {
+
+    private static final Comparator<Rank> BUSIEST_FIRST =
+            Comparator.comparingInt(Rank::occupancy).reversed().thenComparingLong(Rank::roomId);
+
+    private final RoomEventBus roomEventBus;
+    private final RoomPresence roomPresence;
+    private final NavigableSet<Rank> ranking = new ConcurrentSkipListSet<>(BUSIEST_FIRST);
+    private final Map<Long, Rank> ranks = new ConcurrentHashMap<>();
+
+    public PopularRooms(RoomEventBus roomEventBus, RoomPresence roomPresence) {
+        this.roomEventBus = roomEventBus;
+        this.roomPresence = roomPresence;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        roomEventBus.subscribe(this);
+    }
+
+    @Override
+    public void onEvent(RoomEvent event, long sequence, boolean endOfBatch) {
+        switch (event.getType()) {
+            case CONNECTED, DISCONNECTED -> update(event.getRoomId(), event.getOccupancy());
+            case DELETED -> update(event.getRoomId(), 0);
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void onDropped(long count) {
+        reconcile();
+    }
+
+    /**
+     * Ids of up to {@code limit} rooms with the most users connected, busiest first.
+     */
+    public List<Long> top(int limit) {
+        Set<Long> roomIds = new LinkedHashSet<>();
+        Iterator<Rank> busiest = ranking.iterator();
+        while (roomIds.size() < limit && busiest.hasNext()) {
+            roomIds.add(busiest.next().roomId());
+        }
+        return List.copyOf(roomIds);
+    }
+
+    /**
+     * Number of rooms somebody is connected to.
+     */
+    public int size() {
+        return ranks.size();
+    }
+
+    /**
+     * Moves the room to its new place in the ranking, or out of it when empty.
+     */
+    void update(long roomId, int occupancy) {
+        ranks.compute(roomId, (key, previous) -> {
+            Rank rank = occupancy > 0 ? new Rank(roomId, occupancy) : null;
+            if (rank != null) {
+                ranking.add(rank);
+            }
+            if (previous != null && !previous.equals(rank)) {
+                ranking.remove(previous);
+            }
+            return rank;
+        });
+    }
+
+    /**
+     * Re-ranks the rooms by their occupancy in {@link RoomPresence}.
+     */
+    public void reconcile() {
+        Set<Long> roomIds = new HashSet<>(ranks.keySet());
+        roomIds.addAll(roomPresence.roomIds());
+        roomIds.forEach(roomId -> update(roomId, roomPresence.occupancy(roomId)));
+    }
+
+    private record Rank(long roomId, int occupancy) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.demo.service.directory;
+
+import com.example.demo.persistence.dto.RoomChangeDto;
+import com.example.demo.persistence.dto.RoomChangesDto;
+import com.example.demo.service.event.RoomEvent;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.event.RoomEventHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded log of rooms created and deleted since startup, so clients holding a copy of the room directory can catch
+ * up in O(changes) instead of reloading every page.
+ * <p>
+ * Changes are numbered consecutively and kept in a ring of the last {@code rooms.changes.capacity}. Only the event bus
+ * thread writes: it fills the slot, then publishes the new head, so readers never lock and never see a half-written
+ * change. Numbering starts at the startup time in microseconds, so cursors handed out before a restart are always
+ * far behind the new ones. A cursor that fell out of the ring, including every cursor from before a restart, gets
+ * {@code resync} and has to reload the directory.
+ * <p>
+ * The event bus drops events for a handler that falls a whole ring behind, and a dropped create or delete cannot be
+ * told apart from any other dropped event. Each drop the bus reports therefore takes up one number of its own and
+ * holds no change, and every cursor before it gets {@code resync}, as a client holding one may have missed a change.
+ * <p>
+ * To start syncing, a client reads the current cursor with {@code since} omitted, then loads the directory and
+ * applies changes from that cursor on. Changes made in between are seen twice, which is harmless because creates and
+ * deletes are applied by room id.
+ * <p>
+ * The log only holds the rooms created and deleted through this node. With {@code rooms.cluster.enabled} every node
+ * creates and deletes rooms and a client's requests may land on any of them, so instead of numbering changes across
+ * nodes every cursor gets {@code resync} and clients reload the directory, the same as without the log.
+ */
+@Component
+public class RoomChangeLog implements RoomEventHandler {
+
+    private final RoomEventBus roomEventBus;
+    private final boolean clustered;
+    private final AtomicReferenceArray<RoomChangeDto> changes;
+    private final int pageSize;
+    private volatile long head;
+    private volatile long resyncBefore;
+
+    public RoomChangeLog(RoomEventBus roomEventBus,
+                         @Value("${rooms.cluster.enabled:false}") boolean clustered,
+                         @Value("${rooms.changes.capacity:4096}") int capacity,
+                         @Value("${rooms.changes.page-size:500}") int pageSize) {
+        this.roomEventBus = roomEventBus;
+        this.clustered = clustered;
+        this.changes = new AtomicReferenceArray<>(capacity);
+        this.pageSize = pageSize;
+        this.head = System.currentTimeMillis() * 1000;
+        this.resyncBefore = head;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        if (!clustered) {
+            roomEventBus.subscribe(this);
+        }
+    }
+
+    @Override
+    public void onEvent(RoomEvent event, long sequence, boolean endOfBatch) {
+        switch (event.getType()) {
+            case CREATED, DELETED -> append(event);
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void onDropped(long count) {
+        long gap = head + 1;
+        changes.set(slot(gap), null);
+        resyncBefore = gap;
+        head = gap;
+    }
+
+    private void append(RoomEvent event) {
+        long next = head + 1;
+        changes.set(slot(next), new RoomChangeDto(next, event.getType(), event.getRoomId(), event.getRoomName(),
+                event.getCapacity(), event.getTimestamp()));
+        head = next;
+    }
+
+    /**
+     * Up to {@code rooms.changes.page-size} changes after {@code since}, oldest first. Without {@code since} only the
+     * current cursor is returned, flagged for resync, and so it is for every {@code since} when clustered.
+     */
+    public RoomChangesDto changesSince(Long since) {
+        long current = head;
+        if (clustered || since == null || since < resyncBefore || since > current
+                || current - since > changes.length()) {
+            return new RoomChangesDto(current, true, false, List.of());
+        }
+        long until = Math.min(current, since + pageSize);
+        List<RoomChangeDto> page = new ArrayList<>((int) (until - since));
+        for (long sequence = since + 1; sequence <= until; sequence++) {
+            RoomChangeDto change = changes.get(slot(sequence));
+            if (change == null || change.getSequence() != sequence) {
+                // overwritten by the writer while we were reading
+                return new RoomChangesDto(head, true, false, List.of());
+            }
+            page.add(change);
+        }
+        return new RoomChangesDto(until, false, until < current, page);
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % changes.length());
+    }
+}
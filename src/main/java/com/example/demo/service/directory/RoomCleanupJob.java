@@ -0,0 +1,181 @@
+package com.example.demo.service.directory;
+
+import com.example.demo.service.cluster.RoomOwnership;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.event.RoomEventType;
+import com.example.demo.service.presence.RoomPresence;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes rooms nobody has used for {@code rooms.cleanup.max-idle-days}: no member in presence and no join, leave or
+ * creation within that age.
+ * <p>
+ * A pass walks the {@code rooms} primary key in chunks of {@code rooms.cleanup.chunk-size} ids. Each chunk is read
+ * without an idle filter, so a query never scans more than one chunk of rows, and its idle rooms are deleted in a
+ * short transaction that also moves the checkpoint past the chunk. The job sleeps {@code rooms.cleanup.pause}
+ * milliseconds between chunks, so it never holds locks for long or competes with request traffic. After a restart
+ * the next pass resumes from the checkpoint. Once a pass reaches the end of the table, the checkpoint goes back to
+ * the start.
+ * <p>
+ * In a cluster every node only deletes the rooms it owns, as only the owner knows whether a room is empty, and keeps
+ * its own checkpoint. Both emptiness and idleness are checked again right before each delete, in the transaction that
+ * deletes the room, as a user may have joined since the chunk was read.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "rooms.cleanup.enabled", havingValue = "true")
+public class RoomCleanupJob {
+
+    static final String JOB = "idle-rooms";
+
+    private static final String SELECT_CHUNK = "select r.id, r.user_id, "
+            + "case when greatest(r.date_creation, coalesce(s.last_joined_at, r.date_creation), "
+            + "coalesce(s.last_left_at, r.date_creation)) < ? then 1 else 0 end as idle "
+            + "from rooms r left join room_usage_stats s on s.room_id = r.id "
+            + "where r.id > ? order by r.id limit ?";
+    private static final String DELETE_IDLE_ROOM = "delete from rooms where id = ? and date_creation < ? "
+            + "and not exists (select 1 from room_usage_stats s where s.room_id = rooms.id "
+            + "and (s.last_joined_at >= ? or s.last_left_at >= ?))";
+    private static final String SELECT_CHECKPOINT = "select last_room_id from room_cleanup_checkpoint where job = ?";
+    private static final String UPDATE_CHECKPOINT = "update room_cleanup_checkpoint "
+            + "set last_room_id = ?, updated_at = ? where job = ?";
+    private static final String INSERT_CHECKPOINT = "insert into room_cleanup_checkpoint "
+            + "(last_room_id, updated_at, job) values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RoomPresence roomPresence;
+    private final RoomEventBus roomEventBus;
+    private final RoomOwnership roomOwnership;
+    private final String job;
+    private final long maxIdleMillis;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private volatile boolean running = true;
+
+    public RoomCleanupJob(JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          RoomPresence roomPresence,
+                          RoomEventBus roomEventBus,
+                          RoomOwnership roomOwnership,
+                          @Value("${rooms.cleanup.max-idle-days:90}") long maxIdleDays,
+                          @Value("${rooms.cleanup.chunk-size:100}") int chunkSize,
+                          @Value("${rooms.cleanup.pause:200}") long pauseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.roomPresence = roomPresence;
+        this.roomEventBus = roomEventBus;
+        this.roomOwnership = roomOwnership;
+        this.job = roomOwnership.isEnabled() ? JOB + "@" + roomOwnership.getSelf() : JOB;
+        this.maxIdleMillis = TimeUnit.DAYS.toMillis(maxIdleDays);
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    @Scheduled(initialDelayString = "${rooms.cleanup.interval:3600000}",
+            fixedDelayString = "${rooms.cleanup.interval:3600000}")
+    public void run() {
+        long started = System.currentTimeMillis();
+        int deleted = cleanUp();
+        log.info("Deleted {} idle rooms in {} ms", deleted, System.currentTimeMillis() - started);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+    }
+
+    /**
+     * Runs one pass from the checkpoint to the end of the table and returns the number of rooms deleted.
+     */
+    int cleanUp() {
+        Timestamp idleBefore = new Timestamp(System.currentTimeMillis() - maxIdleMillis);
+        long cursor = loadCheckpoint();
+        int deleted = 0;
+        while (running) {
+            List<Room> chunk = jdbcTemplate.query(SELECT_CHUNK,
+                    (rs, rowNum) -> new Room(rs.getLong(1), rs.getLong(2), rs.getInt(3) == 1),
+                    idleBefore, cursor, chunkSize);
+            if (chunk.isEmpty()) {
+                saveCheckpoint(0);
+                break;
+            }
+            cursor = chunk.get(chunk.size() - 1).id();
+            deleted += deleteChunk(chunk, cursor, idleBefore);
+            if (chunk.size() < chunkSize) {
+                saveCheckpoint(0);
+                break;
+            }
+            pause();
+        }
+        return deleted;
+    }
+
+    private int deleteChunk(List<Room> chunk, long checkpoint, Timestamp idleBefore) {
+        List<Room> idle = chunk.stream()
+                .filter(room -> room.idle() && roomOwnership.remoteOwner(room.id()).isEmpty())
+                .toList();
+        List<Room> deleted = transactionTemplate.execute(status -> {
+            List<Room> empty = idle.stream()
+                    .filter(room -> roomPresence.occupancy(room.id()) == 0)
+                    .toList();
+            List<Room> rows = new ArrayList<>();
+            if (!empty.isEmpty()) {
+                int[] counts = jdbcTemplate.batchUpdate(DELETE_IDLE_ROOM, empty.stream()
+                        .map(room -> new Object[]{room.id(), idleBefore, idleBefore, idleBefore})
+                        .toList());
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] != 0) {
+                        rows.add(empty.get(i));
+                    }
+                }
+            }
+            saveCheckpoint(checkpoint);
+            return rows;
+        });
+        deleted.forEach(room -> {
+            roomPresence.evict(room.id());
+            roomEventBus.publish(RoomEventType.DELETED, room.id(), room.ownerId(), null, 0, null, 0);
+        });
+        return deleted.size();
+    }
+
+    long loadCheckpoint() {
+        List<Long> checkpoint = jdbcTemplate.queryForList(SELECT_CHECKPOINT, Long.class, job);
+        return checkpoint.isEmpty() ? 0 : checkpoint.get(0);
+    }
+
+    private void saveCheckpoint(long lastRoomId) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        if (jdbcTemplate.update(UPDATE_CHECKPOINT, lastRoomId, now, job) == 0) {
+            jdbcTemplate.update(INSERT_CHECKPOINT, lastRoomId, now, job);
+        }
+    }
+
+    private void pause() {
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private record Room(long id, long ownerId, boolean idle) {
+    }
+}
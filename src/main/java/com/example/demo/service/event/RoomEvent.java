@@ -0,0 +1,30 @@
+package com.example.demo.service.event;
+
+import lombok.Getter;
+
+/**
+ * Preallocated ring-buffer slot, overwritten in place by every publication that claims it.
+ */
+@Getter
+public class RoomEvent {
+    private RoomEventType type;
+    private Long roomId;
+    private Long ownerId;
+    private String roomName;
+    private int capacity;
+    private String username;
+    private int occupancy;
+    private long timestamp;
+
+    void set(RoomEventType type, Long roomId, Long ownerId, String roomName, int capacity, String username,
+             int occupancy, long timestamp) {
+        this.type = type;
+        this.roomId = roomId;
+        this.ownerId = ownerId;
+        this.roomName = roomName;
+        this.capacity = capacity;
+        this.username = username;
+        this.occupancy = occupancy;
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.demo.service.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ring buffers of {@link RoomEvent} slots in the style of the LMAX Disruptor, one per subscribed handler.
+ * <p>
+ * Producers claim a sequence in each handler's ring with a CAS on its {@code cursor}, fill the slot in place and mark
+ * it published, so publishing neither allocates nor takes a lock. A slot is reused once its handler has moved past it;
+ * if a handler is a full ring behind, the event is dropped for that handler only and counted, instead of blocking the
+ * request thread or holding back the other handlers. The handler learns about it through
+ * {@link RoomEventHandler#onDropped}.
+ * <p>
+ * Each handler consumes on its own thread and gets all available events as one batch. An idle thread spins briefly
+ * and then parks until a producer wakes it, so idle handlers cost nothing.
+ */
+@Slf4j
+@Component
+public class RoomEventBus {
+
+    private static final int SPIN_TRIES = 100;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final int bufferSize;
+    private volatile Subscriber[] subscribers = new Subscriber[0];
+    private volatile boolean running = true;
+
+    public RoomEventBus(@Value("${rooms.events.buffer-size:8192}") int bufferSize) {
+        if (Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Event buffer size must be a power of two: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Returns {@code false} if the event was dropped for at least one subscriber that is a whole ring behind.
+     */
+    public boolean publish(RoomEventType type, Long roomId, Long ownerId, String roomName, int capacity,
+                           String username, int occupancy) {
+        long timestamp = System.currentTimeMillis();
+        Subscriber[] current = subscribers;
+        boolean delivered = true;
+        for (int i = 0; i < current.length; i++) {
+            delivered &= current[i].offer(type, roomId, ownerId, roomName, capacity, username, occupancy, timestamp);
+        }
+        return delivered;
+    }
+
+    /**
+     * Starts delivering events published from now on to the handler, on a dedicated daemon thread. Publishers read the
+     * subscribers from an array that is replaced on every subscribe, so publishing allocates no iterator.
+     */
+    public synchronized void subscribe(RoomEventHandler handler) {
+        Subscriber subscriber = new Subscriber(handler);
+        Thread thread = new Thread(subscriber, "room-events-" + handler.getClass().getSimpleName());
+        thread.setDaemon(true);
+        subscriber.thread = thread;
+        Subscriber[] current = subscribers;
+        Subscriber[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = subscriber;
+        subscribers = next;
+        thread.start();
+    }
+
+    /**
+     * Events dropped so far, summed over the subscribers.
+     */
+    public long getDroppedCount() {
+        return Arrays.stream(subscribers).mapToLong(subscriber -> subscriber.dropped.get()).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Subscriber subscriber : subscribers) {
+            LockSupport.unpark(subscriber.thread);
+            subscriber.thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private final class Subscriber implements Runnable {
+        private final RoomEventHandler handler;
+        private final RoomEvent[] entries = new RoomEvent[bufferSize];
+        private final AtomicLongArray published = new AtomicLongArray(bufferSize);
+        private final int mask = bufferSize - 1;
+        private final AtomicLong cursor = new AtomicLong(-1);
+        private final AtomicLong sequence = new AtomicLong(-1);
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean waiting;
+        private long reportedDrops;
+        private Thread thread;
+
+        private Subscriber(RoomEventHandler handler) {
+            this.handler = handler;
+            for (int i = 0; i < bufferSize; i++) {
+                entries[i] = new RoomEvent();
+                published.set(i, -1);
+            }
+        }
+
+        private boolean offer(RoomEventType type, Long roomId, Long ownerId, String roomName, int capacity,
+                              String username, int occupancy, long timestamp) {
+            long claimed = claim();
+            if (claimed < 0) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            int index = (int) (claimed & mask);
+            entries[index].set(type, roomId, ownerId, roomName, capacity, username, occupancy, timestamp);
+            published.set(index, claimed);
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+            return true;
+        }
+
+        private long claim() {
+            long current;
+            long next;
+            do {
+                current = cursor.get();
+                next = current + 1;
+                if (next - entries.length > sequence.get()) {
+                    return -1;
+                }
+            } while (!cursor.compareAndSet(current, next));
+            return next;
+        }
+
+        /**
+         * Highest sequence from {@code from} on that is published without gaps, or {@code from - 1} if there is none.
+         */
+        private long highestPublished(long from) {
+            long upTo = cursor.get();
+            for (long current = from; current <= upTo; current++) {
+                if (published.get((int) (current & mask)) != current) {
+                    return current - 1;
+                }
+            }
+            return upTo;
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (true) {
+                reportDrops();
+                long next = sequence.get() + 1;
+                long available = highestPublished(next);
+                if (available < next) {
+                    if (!running) {
+                        return;
+                    }
+                    idle = idle(idle, next);
+                    continue;
+                }
+                idle = 0;
+                for (long current = next; current <= available; current++) {
+                    try {
+                        handler.onEvent(entries[(int) (current & mask)], current, current == available);
+                    } catch (RuntimeException e) {
+                        log.error("Room event handler {} failed on sequence {}", handler, current, e);
+                    }
+                }
+                sequence.lazySet(available);
+            }
+        }
+
+        /**
+         * Spins for the first idle rounds, then parks until a producer sees {@code waiting} and unparks the thread.
+         * Setting {@code waiting} before checking once more means a publish in between is never missed.
+         */
+        private int idle(int idle, long next) {
+            if (idle < SPIN_TRIES) {
+                Thread.onSpinWait();
+                return idle + 1;
+            }
+            waiting = true;
+            if (running && highestPublished(next) < next) {
+                LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            }
+            waiting = false;
+            return idle;
+        }
+
+        private void reportDrops() {
+            long drops = dropped.get();
+            if (drops != reportedDrops) {
+                try {
+                    handler.onDropped(drops - reportedDrops);
+                } catch (RuntimeException e) {
+                    log.error("Room event handler {} failed to handle {} dropped events", handler,
+                            drops - reportedDrops, e);
+                }
+                reportedDrops = drops;
+            }
+        }
+    }
+}
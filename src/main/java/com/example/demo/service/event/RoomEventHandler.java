@@ -0,0 +1,18 @@
+package com.example.demo.service.event;
+
+/**
+ * Consumer of {@link RoomEventBus}. Each handler runs on its own thread and sees every event in publication order.
+ * The event instance is a reused ring-buffer slot, so copy whatever has to outlive the call.
+ */
+public interface RoomEventHandler {
+
+    void onEvent(RoomEvent event, long sequence, boolean endOfBatch);
+
+    /**
+     * Called on the handler's thread when events were dropped because the handler fell a whole ring behind. The
+     * missing events were published around the events delivered just before and after this call, so a handler that
+     * derives state from events should treat that state as stale and rebuild or invalidate it.
+     */
+    default void onDropped(long count) {
+    }
+}
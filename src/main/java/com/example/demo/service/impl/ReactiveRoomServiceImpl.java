@@ -0,0 +1,97 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.exception.RoomNotFoundException;
+import com.example.demo.persistence.dto.RoomInfoDto;
+import com.example.demo.service.ReactiveRoomService;
+import com.example.demo.service.presence.RoomPresence;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@ConditionalOnProperty(name = "rooms.reactive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReactiveRoomServiceImpl implements ReactiveRoomService {
+
+    private static final String SELECT_ROOMS =
+            "select id, name, number_of_users, date_creation, is_private from rooms";
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "id",
+            "name", "name",
+            "dateCreation", "date_creation",
+            "numberOfUsers", "number_of_users");
+
+    private final DatabaseClient reactiveDatabaseClient;
+    private final RoomPresence roomPresence;
+
+    @Override
+    public Mono<Long> getRoomIdByName(String name) {
+        return reactiveDatabaseClient.sql("select id from rooms where name = :name fetch first 1 rows only")
+                .bind("name", name)
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new RoomNotFoundException("Can not find room by name: " + name)));
+    }
+
+    @Override
+    public Flux<RoomInfoDto> getAll(Pageable pageable) {
+        return getRoomInfoDtos(null, pageable);
+    }
+
+    @Override
+    public Flux<RoomInfoDto> getAllRoomsByUserId(Long userId, Pageable pageable) {
+        return getRoomInfoDtos(userId, pageable);
+    }
+
+    private Flux<RoomInfoDto> getRoomInfoDtos(@Nullable Long userId, Pageable pageable) {
+        String sql = SELECT_ROOMS
+                + (userId == null ? "" : " where user_id = :userId")
+                + " order by " + orderBy(pageable.getSort())
+                + " offset :offset rows fetch next :limit rows only";
+        DatabaseClient.GenericExecuteSpec spec = reactiveDatabaseClient.sql(sql)
+                .bind("offset", pageable.getOffset())
+                .bind("limit", pageable.getPageSize());
+        if (userId != null) {
+            spec = spec.bind("userId", userId);
+        }
+        return spec.map(this::mapToRoomInfoDto).all();
+    }
+
+    private RoomInfoDto mapToRoomInfoDto(Row row) {
+        Long id = row.get("id", Long.class);
+        Boolean isPrivate = row.get("is_private", Boolean.class);
+        Integer numberOfUsers = row.get("number_of_users", Integer.class);
+        return RoomInfoDto.builder()
+                .id(id)
+                .name(row.get("name", String.class))
+                .maxUsers(numberOfUsers == null ? 0 : numberOfUsers)
+                .dateCreation(row.get("date_creation", LocalDateTime.class))
+                .isPrivate(Boolean.TRUE.equals(isPrivate))
+                .connectedUserCount(roomPresence.occupancy(id))
+                .connectedUsers(roomPresence.preview(id))
+                .build();
+    }
+
+    /**
+     * Translates the requested sort into columns, ignoring properties that are not sortable, and always ends with the
+     * primary key so that offsets are stable between pages.
+     */
+    private static String orderBy(Sort sort) {
+        String columns = sort.stream()
+                .filter(order -> SORT_COLUMNS.containsKey(order.getProperty()))
+                .map(order -> SORT_COLUMNS.get(order.getProperty()) + (order.isAscending() ? " asc" : " desc"))
+                .collect(Collectors.joining(", "));
+        return columns.isEmpty() ? "id" : columns + ", id";
+    }
+}
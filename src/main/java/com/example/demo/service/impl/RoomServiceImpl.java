@@ -1,14 +1,21 @@
 package com.example.demo.service.impl;
 
-import com.example.demo.exception.RoomConnectionException;
 import com.example.demo.exception.RoomNotFoundException;
-import com.example.demo.exception.UserNotFoundException;
 import com.example.demo.persistence.dto.*;
 import com.example.demo.persistence.model.Room;
 import com.example.demo.persistence.model.User;
 import com.example.demo.persistence.repository.RoomRepository;
+import com.example.demo.persistence.repository.SingleFlight;
 import com.example.demo.persistence.repository.UserRepository;
+import com.example.demo.service.ConnectionOutcome;
+import com.example.demo.service.DisconnectionOutcome;
 import com.example.demo.service.RoomService;
+import com.example.demo.service.cluster.ClusterPresence;
+import com.example.demo.service.directory.PopularRooms;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.event.RoomEventType;
+import com.example.demo.service.presence.PresenceJournal;
+import com.example.demo.service.presence.RoomPresence;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
@@ -18,21 +25,38 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class RoomServiceImpl implements RoomService {
 
-    public final Map<Long, List<ConnectedUserDto>> connections = new ConcurrentHashMap<>();
     private final RoomRepository roomRepository;
     private final UserRepository userRepository;
     private final ModelMapper modelMapper;
+    private final RoomPresence roomPresence;
+    private final PresenceJournal presenceJournal;
+    private final RoomEventBus roomEventBus;
+    private final PopularRooms popularRooms;
+    private final ClusterPresence clusterPresence;
+    private final SingleFlight<Long, Optional<RoomSnapshot>> roomsById = new SingleFlight<>();
+    private final SingleFlight<String, Optional<Long>> roomIdsByName = new SingleFlight<>();
+
+    @PostConstruct
+    void restoreConnections() {
+        Map<Long, List<ConnectedUserDto>> recovered = presenceJournal.recover();
+        if (!recovered.isEmpty()) {
+            roomRepository.findAllById(recovered.keySet())
+                    .forEach(room -> roomPresence.restore(room, recovered.get(room.getId())));
+            popularRooms.reconcile();
+        }
+    }
 
     @Override
     @Transactional
@@ -41,12 +65,19 @@ public class RoomServiceImpl implements RoomService {
         Room room = modelMapper.map(roomDto, Room.class);
         room.setUser(user);
         roomRepository.save(room);
+        afterCommit(() -> roomEventBus.publish(RoomEventType.CREATED, room.getId(), userId, room.getName(),
+                room.getNumberOfUsers(), null, 0));
     }
 
     @Override
     public Long getRoomIdByName(String name) {
-        return roomRepository.findByName(name)
-                .orElseThrow(() -> new RoomNotFoundException("Can not find room by name: " + name)).getId();
+        return findRoomIdByName(name)
+                .orElseThrow(() -> new RoomNotFoundException("Can not find room by name: " + name));
+    }
+
+    @Override
+    public boolean isOwner(Long id, Long userId) {
+        return roomRepository.existsByIdAndUserId(id, userId);
     }
 
     @Override
@@ -75,65 +106,140 @@ public class RoomServiceImpl implements RoomService {
     }
 
     @Override
-    public void connect(Long id, ConnectionRequestDto requestDto) {
-        Room room = roomRepository.findById(id)
-                .orElseThrow(() -> new RoomNotFoundException("Can not find room by id: " + id));
-        validateRoomPassword(room, requestDto.getPassword());
-
-        validateRoomConnection(requestDto, room);
-    }
-
-    private void validateRoomConnection(ConnectionRequestDto connectionRequestDto, Room room) {
-        List<ConnectedUserDto> connectedUsers = connections.computeIfAbsent(
-                room.getId(), key -> new ArrayList<>(room.getNumberOfUsers()));
-        if (connectedUsers.size() < room.getNumberOfUsers()) {
-            ConnectedUserDto connectedUser = createConnectedUser(connectionRequestDto.getUsername());
-            connectedUsers.add(connectedUser);
-        } else {
-            throw new RoomConnectionException("Connection failed! Room is full!");
+    public List<RoomInfoDto> getPopular(int limit) {
+        List<Long> roomIds = popularRooms.top(limit);
+        if (roomIds.isEmpty()) {
+            return List.of();
         }
+        Map<Long, Room> rooms = new HashMap<>();
+        roomRepository.findAllById(roomIds).forEach(room -> rooms.put(room.getId(), room));
+        return roomIds.stream()
+                .map(rooms::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToRoomInfoDto)
+                .toList();
     }
 
     @Override
-    public void disconnect(DisconnectionRequestDto requestDto) {
-        String roomName = requestDto.getRoomName();
-        Room room = roomRepository.findByName(roomName)
-                .orElseThrow(() -> new RoomNotFoundException("Can not find room by name: " + roomName));
-        Long roomId = room.getId();
+    public List<RoomOccupancyDto> getOccupancies(Collection<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        if (distinctIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> capacities = new HashMap<>();
+        roomRepository.findCapacitiesByIdIn(distinctIds)
+                .forEach(room -> capacities.put(room.getId(), room.getCapacity()));
+        return distinctIds.stream()
+                .filter(capacities::containsKey)
+                .map(id -> new RoomOccupancyDto(id, capacities.get(id), roomPresence.occupancy(id)))
+                .toList();
+    }
+
+    @Override
+    public RoomMembersDto getMembers(Long id, long cursor, int limit) {
+        return roomPresence.page(id, cursor, limit);
+    }
 
-        List<ConnectedUserDto> connectedUsers = validateConnectionCapacity(roomId);
-        disconnectUser(requestDto, connectedUsers);
+    @Override
+    public ConnectionOutcome connect(Long id, ConnectionRequestDto requestDto) {
+        RoomSnapshot room = findRoom(id).orElse(null);
+        ConnectionOutcome rejection = checkConnection(room, requestDto);
+        if (rejection != null) {
+            return rejection;
+        }
+        return roomPresence.connect(room.toRoom(), createConnectedUser(requestDto.getUsername()));
+    }
 
-        if (connectedUsers.isEmpty()) {
-            connections.remove(roomId);
+    @Override
+    public CompletableFuture<ConnectionOutcome> connectOrWait(Long id, ConnectionRequestDto requestDto) {
+        RoomSnapshot room = findRoom(id).orElse(null);
+        ConnectionOutcome rejection = checkConnection(room, requestDto);
+        if (rejection != null) {
+            return CompletableFuture.completedFuture(rejection);
         }
+        return roomPresence.connectOrWait(room.toRoom(), createConnectedUser(requestDto.getUsername()));
     }
 
-    private static void disconnectUser(DisconnectionRequestDto requestDto, List<ConnectedUserDto> connectedUsers) {
-        String username = requestDto.getUsername();
+    @Override
+    public DisconnectionOutcome disconnect(DisconnectionRequestDto requestDto) {
         String roomName = requestDto.getRoomName();
-        var connectedUser = connectedUsers.stream()
-                .filter(user -> username.equals(user.getUsername()))
-                .findAny()
-                .orElseThrow(() -> new UserNotFoundException(
-                        String.format("Can not find user in room %s by username: %s", roomName, username)));
-        connectedUsers.remove(connectedUser);
-    }
-
-    private List<ConnectedUserDto> validateConnectionCapacity(Long roomId) {
-        var connectedUsers = connections.get(roomId);
-        if (connectedUsers == null) {
-            throw new RoomConnectionException("Disconnection failed! Room is empty!");
+        if (roomPresence.disconnect(requestDto.getUsername(), roomName)) {
+            return DisconnectionOutcome.DISCONNECTED;
         }
-        return connectedUsers;
+
+        Long roomId = findRoomIdByName(roomName).orElse(null);
+        if (roomId == null) {
+            return DisconnectionOutcome.ROOM_NOT_FOUND;
+        }
+        return roomPresence.occupancy(roomId) == 0
+                ? DisconnectionOutcome.ROOM_EMPTY
+                : DisconnectionOutcome.USER_NOT_IN_ROOM;
+    }
+
+    @Override
+    public void disconnectFromAllRooms(String username) {
+        roomPresence.disconnectAll(username);
+        clusterPresence.disconnectElsewhere(username);
     }
 
     @Override
     @Transactional
     public void deleteById(Long id) {
-        Room room = roomRepository.findById(id)
-                .orElseThrow(() -> new RoomNotFoundException("Can not find room by id: " + id));
-        roomRepository.delete(room);
+        if (roomRepository.deleteRoomById(id) == 0) {
+            throw new RoomNotFoundException("Can not find room by id: " + id);
+        }
+        afterCommit(() -> {
+            roomPresence.evict(id);
+            roomEventBus.publish(RoomEventType.DELETED, id, null, null, 0, null, 0);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void deleteAllByUserId(Long userId) {
+        List<Long> roomIds = roomRepository.findIdsByUserId(userId);
+        roomRepository.deleteAllByUserId(userId);
+        afterCommit(() -> roomIds.forEach(roomId -> {
+            roomPresence.evict(roomId);
+            roomEventBus.publish(RoomEventType.DELETED, roomId, userId, null, 0, null, 0);
+        }));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Lookups of the room everyone is joining, shared by the requests that race for it when it opens.
+     */
+    private Optional<RoomSnapshot> findRoom(Long id) {
+        return roomsById.load(id, () -> roomRepository.findById(id).map(RoomSnapshot::of));
+    }
+
+    private Optional<Long> findRoomIdByName(String name) {
+        return roomIdsByName.load(name, () -> roomRepository.findByName(name).map(Room::getId));
+    }
+
+    private static ConnectionOutcome checkConnection(@Nullable RoomSnapshot room, ConnectionRequestDto requestDto) {
+        if (room == null) {
+            return ConnectionOutcome.ROOM_NOT_FOUND;
+        }
+        if (room.isPrivate() && !room.password().equals(requestDto.getPassword())) {
+            return ConnectionOutcome.WRONG_PASSWORD;
+        }
+        if (requestDto.getUsername() == null) {
+            return ConnectionOutcome.USERNAME_REQUIRED;
+        }
+        return null;
     }
 
     private ConnectedUserDto createConnectedUser(String username) {
@@ -145,16 +251,34 @@ public class RoomServiceImpl implements RoomService {
         return userRepository.findByUsername(username).map(User::getImageUrl).orElse(null);
     }
 
-    private static void validateRoomPassword(Room room, String password) {
-        if (room.isPrivate() && !room.getPassword().equals(password)) {
-            throw new RoomConnectionException("Connection failed! Wrong password!");
-        }
-    }
-
     private RoomInfoDto mapToRoomInfoDto(Room room) {
         var roomInfoDto = modelMapper.map(room, RoomInfoDto.class);
-        var connectedUsers = connections.get(room.getId());
-        roomInfoDto.setConnectedUsers(connectedUsers);
+        roomInfoDto.setConnectedUserCount(roomPresence.occupancy(room.getId()));
+        roomInfoDto.setConnectedUsers(roomPresence.preview(room.getId()));
         return roomInfoDto;
     }
+
+    /**
+     * What a join needs to know about a room, copied out of the entity so that the requests sharing a lookup never
+     * share a managed entity between threads. Each of them gets its own detached {@link Room} from it.
+     */
+    private record RoomSnapshot(Long id, Long ownerId, String name, int capacity, boolean isPrivate,
+                                String password) {
+
+        static RoomSnapshot of(Room room) {
+            return new RoomSnapshot(room.getId(), room.getUser() == null ? null : room.getUser().getId(),
+                    room.getName(), room.getNumberOfUsers(), room.isPrivate(), room.getPassword());
+        }
+
+        Room toRoom() {
+            return Room.builder()
+                    .id(id)
+                    .user(ownerId == null ? null : User.builder().id(ownerId).build())
+                    .name(name)
+                    .numberOfUsers(capacity)
+                    .isPrivate(isPrivate)
+                    .password(password)
+                    .build();
+        }
+    }
 }
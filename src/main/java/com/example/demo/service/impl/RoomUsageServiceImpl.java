@@ -0,0 +1,94 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.exception.RoomNotFoundException;
+import com.example.demo.persistence.dto.OccupancySeriesDto;
+import com.example.demo.persistence.dto.OwnerUsageStatsDto;
+import com.example.demo.persistence.dto.RoomUsageStatsDto;
+import com.example.demo.persistence.model.RoomUsageStats;
+import com.example.demo.persistence.repository.RoomRepository;
+import com.example.demo.persistence.repository.RoomUsageStatsRepository;
+import com.example.demo.service.RoomUsageService;
+import com.example.demo.service.usage.OccupancyHistory;
+import com.example.demo.service.usage.OccupancyResolution;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Usage analytics served from the {@code room_usage_stats} rollups, never from the raw session history.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class RoomUsageServiceImpl implements RoomUsageService {
+
+    private final RoomUsageStatsRepository roomUsageStatsRepository;
+    private final RoomRepository roomRepository;
+    private final OccupancyHistory occupancyHistory;
+
+    @Override
+    public RoomUsageStatsDto getRoomStats(Long roomId) {
+        RoomUsageStats stats = roomUsageStatsRepository.findById(roomId)
+                .orElseGet(() -> emptyStats(roomId));
+        return RoomUsageStatsDto.builder()
+                .roomId(roomId)
+                .sessionCount(stats.getSessionCount())
+                .totalSessionSeconds(stats.getTotalSessionSeconds())
+                .averageSessionSeconds(average(stats.getTotalSessionSeconds(), stats.getSessionCount()))
+                .peakOccupancy(stats.getPeakOccupancy())
+                .lastJoinedAt(stats.getLastJoinedAt())
+                .lastLeftAt(stats.getLastLeftAt())
+                .build();
+    }
+
+    @Override
+    public OwnerUsageStatsDto getOwnerStats(Long ownerId) {
+        long rooms = roomRepository.countByUserId(ownerId);
+        var usage = roomUsageStatsRepository.summarizeByOwnerId(ownerId);
+        return OwnerUsageStatsDto.builder()
+                .ownerId(ownerId)
+                .rooms(rooms)
+                .noShowRooms(Math.max(0, rooms - usage.getUsedRooms()))
+                .sessionCount(usage.getSessionCount())
+                .totalSessionSeconds(usage.getTotalSessionSeconds())
+                .averageSessionSeconds(average(usage.getTotalSessionSeconds(), usage.getSessionCount()))
+                .peakOccupancy(usage.getPeakOccupancy())
+                .build();
+    }
+
+    @Override
+    public OccupancySeriesDto getOccupancy(Long roomId, OccupancyResolution resolution) {
+        long now = System.currentTimeMillis() / 1000;
+        int[] samples = occupancyHistory.samples(roomId, resolution, now);
+        if (samples == null) {
+            requireRoom(roomId);
+            samples = new int[resolution.getBuckets()];
+        }
+        long width = resolution.getBucketSeconds();
+        long from = (now / width - resolution.getBuckets() + 1) * width;
+        return OccupancySeriesDto.builder()
+                .roomId(roomId)
+                .intervalSeconds(resolution.getBucketSeconds())
+                .from(LocalDateTime.ofEpochSecond(from, 0, ZoneOffset.UTC))
+                .samples(samples)
+                .build();
+    }
+
+    private RoomUsageStats emptyStats(Long roomId) {
+        requireRoom(roomId);
+        return RoomUsageStats.builder().roomId(roomId).build();
+    }
+
+    private void requireRoom(Long roomId) {
+        if (!roomRepository.existsById(roomId)) {
+            throw new RoomNotFoundException("Can not find room by id: " + roomId);
+        }
+    }
+
+    private static long average(long total, long count) {
+        return count == 0 ? 0 : total / count;
+    }
+}
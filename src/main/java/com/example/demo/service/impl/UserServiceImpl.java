@@ -7,13 +7,18 @@ import com.example.demo.persistence.dto.UserProfileReadDto;
 import com.example.demo.persistence.dto.UserProfileUpdateDto;
 import com.example.demo.persistence.model.User;
 import com.example.demo.persistence.repository.UserRepository;
+import com.example.demo.service.RoomService;
 import com.example.demo.service.UserService;
+import com.example.demo.service.avatar.AvatarStore;
+import com.example.demo.web.security.jwt.TokenRevocationList;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
@@ -22,6 +27,9 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepo;
     private final ModelMapper modelMapper;
     private final PasswordEncoder encoder;
+    private final RoomService roomService;
+    private final AvatarStore avatarStore;
+    private final TokenRevocationList tokenRevocationList;
 
     @Override
     @Transactional
@@ -29,6 +37,9 @@ public class UserServiceImpl implements UserService {
         if (userRepo.existsByEmail(userCreateDto.getEmail())) {
             throw new UserAlreadyExists("User with this email already exists!");
         }
+        if (userRepo.existsByUsername(userCreateDto.getUsername())) {
+            throw new UserAlreadyExists("User with this username already exists!");
+        }
         userCreateDto.setPassword(encoder.encode(userCreateDto.getPassword()));
 
         User user = modelMapper.map(userCreateDto, User.class);
@@ -54,14 +65,28 @@ public class UserServiceImpl implements UserService {
         validatePassword(userDto);
 
         User user = findById(id);
+        if (!user.getUsername().equals(userDto.getUsername()) && userRepo.existsByUsername(userDto.getUsername())) {
+            throw new UserAlreadyExists("User with this username already exists!");
+        }
+        Instant now = Instant.now();
+        tokenRevocationList.revokeIssuedBefore(user.getEmail(), now.toEpochMilli());
+        user.setTokensValidAfter(now);
         user.setUsername(userDto.getUsername());
         user.setEmail(userDto.getEmail());
-        user.setImageUrl(userDto.getImageUrl());
 
         String encodedPassword = encoder.encode(userDto.getPassword());
         user.setPassword(encodedPassword);
     }
 
+    @Override
+    @Transactional
+    public String updateAvatar(Long id, byte[] image) {
+        User user = findById(id);
+        String hash = avatarStore.store(image);
+        user.setImageUrl(String.format("/api/v1/avatars/%s/%d.png", hash, avatarStore.getSizes().get(0)));
+        return user.getImageUrl();
+    }
+
     private void validatePassword(UserProfileUpdateDto userDto) {
         if (!userDto.getPassword().equals(userDto.getConfirmPassword())) {
             throw new IllegalStateException("Passwords do not match. Please make sure the passwords match in both fields!");
@@ -73,7 +98,10 @@ public class UserServiceImpl implements UserService {
     public boolean deleteById(long id) {
         return userRepo.findById(id)
                 .map(user -> {
-                    userRepo.delete(user);
+                    tokenRevocationList.revokeIssuedBefore(user.getEmail(), System.currentTimeMillis());
+                    roomService.disconnectFromAllRooms(user.getUsername());
+                    roomService.deleteAllByUserId(id);
+                    userRepo.deleteUserById(id);
                     return true;
                 }).orElse(false);
     }
@@ -0,0 +1,327 @@
+package com.example.demo.service.presence;
+
+import com.example.demo.persistence.dto.ConnectedUserDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TransferQueue;
+
+/**
+ * Append-only, memory-mapped journal of room presence changes, so occupancy survives a restart.
+ * <p>
+ * Request threads only hand a record to a lock-free queue; a single writer thread copies records into the mapped
+ * journal and applies them to its own replica of the presence state. The replica is what gets written out as a
+ * compacted snapshot, which makes every snapshot consistent with an exact journal position. Snapshots carry the
+ * generation of the journal that starts right after them, so a journal left over from before a snapshot is never
+ * replayed twice.
+ * <p>
+ * Records are framed as {@code [int length][byte op][long roomId][name][imageUrl]} and the length is written last,
+ * so a record torn by a crash ends the replay instead of corrupting it.
+ */
+@Slf4j
+@Component
+public class PresenceJournal {
+
+    static final String JOURNAL_FILE = "presence.journal";
+    static final String SNAPSHOT_FILE = "presence.snapshot";
+
+    private static final byte CONNECT = 1;
+    private static final byte DISCONNECT = 2;
+    private static final byte EVICT = 3;
+    private static final int HEADER_SIZE = Long.BYTES;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int journalSize;
+    private final long snapshotInterval;
+
+    private final TransferQueue<Entry> pending = new LinkedTransferQueue<>();
+    private final Map<Long, List<ConnectedUserDto>> replica = new HashMap<>();
+    private Map<Long, List<ConnectedUserDto>> recovered = Map.of();
+    private volatile boolean running;
+    private Thread writer;
+    private FileChannel channel;
+    private MappedByteBuffer journal;
+    private long generation;
+    private long lastSnapshot;
+
+    public PresenceJournal(@Value("${rooms.presence.journal.enabled:false}") boolean enabled,
+                           @Value("${rooms.presence.journal.dir:data/presence}") Path directory,
+                           @Value("${rooms.presence.journal.size:67108864}") int journalSize,
+                           @Value("${rooms.presence.journal.snapshot-interval:300000}") long snapshotInterval) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.journalSize = journalSize;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    public void recordConnect(Long roomId, ConnectedUserDto user) {
+        if (enabled) {
+            pending.offer(new Entry(CONNECT, roomId, user.getUsername(), user.getImageUrl()));
+        }
+    }
+
+    public void recordDisconnect(Long roomId, String username) {
+        if (enabled) {
+            pending.offer(new Entry(DISCONNECT, roomId, username, null));
+        }
+    }
+
+    public void recordEvict(Long roomId) {
+        if (enabled) {
+            pending.offer(new Entry(EVICT, roomId, null, null));
+        }
+    }
+
+    /**
+     * Presence state rebuilt from the latest snapshot plus the journal tail, as of the moment the journal was opened.
+     */
+    public Map<Long, List<ConnectedUserDto>> recover() {
+        return recovered;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        long started = System.nanoTime();
+        generation = readSnapshot();
+        channel = FileChannel.open(directory.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        journal = channel.map(FileChannel.MapMode.READ_WRITE, 0, journalSize);
+        if (journal.getLong(0) == generation) {
+            replayJournal();
+        } else {
+            resetJournal(journalSize);
+        }
+        recovered = new HashMap<>();
+        replica.forEach((roomId, users) -> recovered.put(roomId, new ArrayList<>(users)));
+        log.info("Recovered presence of {} rooms in {} ms", replica.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        lastSnapshot = System.currentTimeMillis();
+        running = true;
+        writer = new Thread(this::drain, "presence-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        if (!running) {
+            return;
+        }
+        stopWriter();
+        compact();
+        channel.close();
+    }
+
+    void stopWriter() throws InterruptedException {
+        running = false;
+        writer.join();
+        journal.force();
+    }
+
+    private void drain() {
+        List<Entry> batch = new ArrayList<>();
+        while (running || !pending.isEmpty()) {
+            try {
+                Entry first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    pending.drainTo(batch);
+                    try {
+                        batch.forEach(this::append);
+                    } finally {
+                        batch.clear();
+                    }
+                }
+                if (System.currentTimeMillis() - lastSnapshot >= snapshotInterval) {
+                    compact();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | UncheckedIOException e) {
+                log.error("Presence journal write failed", e);
+            }
+        }
+    }
+
+    private void append(Entry entry) {
+        byte[] name = bytes(entry.username());
+        byte[] imageUrl = bytes(entry.imageUrl());
+        int length = 1 + Long.BYTES + 2 * Short.BYTES + lengthOf(name) + lengthOf(imageUrl);
+        if (journal.position() + Integer.BYTES + length + Integer.BYTES > journalSize) {
+            try {
+                compact();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        int start = journal.position();
+        journal.position(start + Integer.BYTES);
+        journal.put(entry.op()).putLong(entry.roomId());
+        putBytes(name);
+        putBytes(imageUrl);
+        journal.putInt(start, length);
+        apply(entry);
+    }
+
+    private void apply(Entry entry) {
+        if (entry.op() == CONNECT) {
+            replica.computeIfAbsent(entry.roomId(), key -> new ArrayList<>())
+                    .add(new ConnectedUserDto(entry.username(), entry.imageUrl()));
+            return;
+        }
+        if (entry.op() == EVICT) {
+            replica.remove(entry.roomId());
+            return;
+        }
+        List<ConnectedUserDto> users = replica.get(entry.roomId());
+        if (users == null) {
+            return;
+        }
+        for (Iterator<ConnectedUserDto> it = users.iterator(); it.hasNext(); ) {
+            if (Objects.equals(it.next().getUsername(), entry.username())) {
+                it.remove();
+                break;
+            }
+        }
+        if (users.isEmpty()) {
+            replica.remove(entry.roomId());
+        }
+    }
+
+    private void compact() throws IOException {
+        writeSnapshot(generation + 1);
+        generation++;
+        resetJournal(journal.position());
+        lastSnapshot = System.currentTimeMillis();
+    }
+
+    private void resetJournal(int written) {
+        // clear the old records before stamping the new generation, a crash in between leaves a stale journal
+        int end = Math.min(written, journalSize);
+        int i = HEADER_SIZE;
+        for (; i + Long.BYTES <= end; i += Long.BYTES) {
+            journal.putLong(i, 0L);
+        }
+        for (; i < end; i++) {
+            journal.put(i, (byte) 0);
+        }
+        journal.putLong(0, generation);
+        journal.position(HEADER_SIZE);
+    }
+
+    private void replayJournal() {
+        journal.position(HEADER_SIZE);
+        while (journal.position() + Integer.BYTES <= journalSize) {
+            int length = journal.getInt(journal.position());
+            if (length <= 0 || journal.position() + Integer.BYTES + length > journalSize) {
+                break;
+            }
+            journal.position(journal.position() + Integer.BYTES);
+            byte op = journal.get();
+            long roomId = journal.getLong();
+            String username = getString();
+            String imageUrl = getString();
+            apply(new Entry(op, roomId, username, imageUrl));
+        }
+    }
+
+    private long readSnapshot() throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(snapshot)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            long snapshotGeneration = in.readLong();
+            int rooms = in.readInt();
+            for (int i = 0; i < rooms; i++) {
+                long roomId = in.readLong();
+                int count = in.readInt();
+                List<ConnectedUserDto> users = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    users.add(new ConnectedUserDto(readNullableUtf(in), readNullableUtf(in)));
+                }
+                replica.put(roomId, users);
+            }
+            return snapshotGeneration;
+        }
+    }
+
+    private void writeSnapshot(long nextGeneration) throws IOException {
+        Path target = directory.resolve(SNAPSHOT_FILE);
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeLong(nextGeneration);
+            out.writeInt(replica.size());
+            for (Map.Entry<Long, List<ConnectedUserDto>> room : replica.entrySet()) {
+                out.writeLong(room.getKey());
+                out.writeInt(room.getValue().size());
+                for (ConnectedUserDto user : room.getValue()) {
+                    writeNullableUtf(out, user.getUsername());
+                    writeNullableUtf(out, user.getImageUrl());
+                }
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void putBytes(byte[] value) {
+        journal.putShort((short) (value == null ? -1 : value.length));
+        if (value != null) {
+            journal.put(value);
+        }
+    }
+
+    private String getString() {
+        short length = journal.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        journal.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int lengthOf(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static void writeNullableUtf(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUtf(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private record Entry(byte op, long roomId, String username, String imageUrl) {
+    }
+}
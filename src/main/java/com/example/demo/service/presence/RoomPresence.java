@@ -0,0 +1,339 @@
+package com.example.demo.service.presence;
+
+import com.example.demo.persistence.dto.ConnectedUserDto;
+import com.example.demo.persistence.dto.RoomMembersDto;
+import com.example.demo.persistence.model.Room;
+import com.example.demo.service.ConnectionOutcome;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.event.RoomEventType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory occupancy of every room, plus a reverse index from username to the rooms the user is in.
+ * <p>
+ * All changes to a room happen inside {@code rooms.compute(roomId, ...)}, which serializes them per room. The reverse
+ * index, the waitlist and the journal are updated from within that same step, so they never disagree with the room.
+ * Locks are always taken room first, user second.
+ * <p>
+ * Members of a room are kept in join order under a per-room sequence number, so rooms with thousands of members can
+ * be listed as a count and a short preview, and paged through with the sequence number as a stable cursor.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoomPresence {
+
+    /**
+     * Number of members shown with a room in listings, the full list is paged through {@link #page}.
+     */
+    public static final int PREVIEW_SIZE = 5;
+
+    private static final CompletableFuture<ConnectionOutcome> CONNECTED =
+            CompletableFuture.completedFuture(ConnectionOutcome.CONNECTED);
+    private static final CompletableFuture<ConnectionOutcome> WAITLIST_FULL =
+            CompletableFuture.completedFuture(ConnectionOutcome.WAITLIST_FULL);
+
+    private final Map<Long, RoomMembers> rooms = new ConcurrentHashMap<>();
+    private final Map<String, Map<Long, RoomMembers>> roomsByUser = new ConcurrentHashMap<>();
+    private final RoomWaitlist roomWaitlist;
+    private final PresenceJournal presenceJournal;
+    private final RoomEventBus roomEventBus;
+
+    /**
+     * Connected users of the room in join order, or {@code null} if nobody is connected. Copies the whole room inside
+     * its {@code compute}, as iterating while users leave and join could see more users than the room ever held; use
+     * {@link #occupancy}, {@link #preview} or {@link #page} where they suffice.
+     */
+    public List<ConnectedUserDto> members(Long roomId) {
+        AtomicReference<List<ConnectedUserDto>> snapshot = new AtomicReference<>();
+        rooms.computeIfPresent(roomId, (key, members) -> {
+            snapshot.set(List.copyOf(members.ordered.values()));
+            return members;
+        });
+        return snapshot.get();
+    }
+
+    public int occupancy(Long roomId) {
+        RoomMembers members = rooms.get(roomId);
+        return members == null ? 0 : members.size;
+    }
+
+    /**
+     * The first {@link #PREVIEW_SIZE} users of the room in join order.
+     */
+    public List<ConnectedUserDto> preview(Long roomId) {
+        RoomMembers members = rooms.get(roomId);
+        return members == null ? List.of() : members.preview;
+    }
+
+    /**
+     * Up to {@code limit} users who joined the room after the one at {@code cursor}, in join order. Users who join
+     * while a client pages are appended at the end and users who leave drop out, so a client that follows the cursor
+     * sees everyone who stayed exactly once.
+     */
+    public RoomMembersDto page(Long roomId, long cursor, int limit) {
+        RoomMembers members = rooms.get(roomId);
+        if (members == null) {
+            return new RoomMembersDto(cursor, false, 0, List.of());
+        }
+        List<ConnectedUserDto> page = new ArrayList<>(Math.min(limit, members.size));
+        long next = cursor;
+        Iterator<Map.Entry<Long, ConnectedUserDto>> entries =
+                members.ordered.tailMap(cursor, false).entrySet().iterator();
+        while (page.size() < limit && entries.hasNext()) {
+            Map.Entry<Long, ConnectedUserDto> entry = entries.next();
+            page.add(entry.getValue());
+            next = entry.getKey();
+        }
+        return new RoomMembersDto(next, entries.hasNext(), members.size, page);
+    }
+
+    public boolean isMember(Long roomId, String username) {
+        Map<Long, RoomMembers> userRooms = roomsByUser.get(username);
+        return userRooms != null && userRooms.containsKey(roomId);
+    }
+
+    /**
+     * Ids of the rooms somebody is connected to.
+     */
+    public Set<Long> roomIds() {
+        return Set.copyOf(rooms.keySet());
+    }
+
+    public Set<Long> roomsOf(String username) {
+        Map<Long, RoomMembers> userRooms = roomsByUser.get(username);
+        return userRooms == null ? Set.of() : Set.copyOf(userRooms.keySet());
+    }
+
+    public ConnectionOutcome connect(Room room, ConnectedUserDto user) {
+        ConnectionOutcome[] outcome = {ConnectionOutcome.CONNECTED};
+        rooms.compute(room.getId(), (key, members) -> {
+            RoomMembers current = members == null ? new RoomMembers(room) : members;
+            if (!current.contains(user.getUsername())) {
+                if (current.size() >= current.capacity) {
+                    outcome[0] = ConnectionOutcome.ROOM_FULL;
+                } else {
+                    add(current, user);
+                }
+            }
+            return current.size() == 0 ? null : current;
+        });
+        return outcome[0];
+    }
+
+    /**
+     * Same as {@link #connect} but parks the user in the room's waitlist when the room is full. The future completes
+     * with the outcome once the user is admitted or gives up waiting.
+     */
+    public CompletableFuture<ConnectionOutcome> connectOrWait(Room room, ConnectedUserDto user) {
+        AtomicReference<CompletableFuture<ConnectionOutcome>> admission = new AtomicReference<>();
+        rooms.compute(room.getId(), (key, members) -> {
+            RoomMembers current = members == null ? new RoomMembers(room) : members;
+            if (current.contains(user.getUsername())) {
+                admission.set(CONNECTED);
+            } else if (current.size() < current.capacity) {
+                add(current, user);
+                admission.set(CONNECTED);
+            } else {
+                CompletableFuture<ConnectionOutcome> waiting = roomWaitlist.enqueue(key, user);
+                admission.set(waiting == null ? WAITLIST_FULL : waiting);
+            }
+            return current.size() == 0 ? null : current;
+        });
+        return admission.get();
+    }
+
+    /**
+     * Disconnects the user from the room with the given name, found through the reverse index without touching the
+     * database. Returns {@code false} if the user is not in such a room.
+     */
+    public boolean disconnect(String username, String roomName) {
+        Map<Long, RoomMembers> userRooms = roomsByUser.getOrDefault(username, Map.of());
+        for (RoomMembers members : userRooms.values()) {
+            if (members.roomName.equals(roomName)) {
+                return release(members.roomId, username);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Releases every slot held by the user, visiting only the rooms listed for the user in the reverse index.
+     */
+    public Set<Long> disconnectAll(String username) {
+        Set<Long> released = roomsOf(username);
+        released.forEach(roomId -> release(roomId, username));
+        return released;
+    }
+
+    /**
+     * Drops the room together with its reverse index entries and fails everyone still waiting to join it.
+     */
+    public void evict(Long roomId) {
+        rooms.computeIfPresent(roomId, (key, members) -> {
+            members.sequences.keySet().forEach(member -> roomsByUser.computeIfPresent(member, (username, userRooms) -> {
+                userRooms.remove(key);
+                return userRooms.isEmpty() ? null : userRooms;
+            }));
+            presenceJournal.recordEvict(key);
+            return null;
+        });
+        roomWaitlist.clear(roomId, ConnectionOutcome.ROOM_NOT_FOUND);
+    }
+
+    /**
+     * Seeds the room with users recovered from the journal, bypassing the capacity check.
+     */
+    public void restore(Room room, List<ConnectedUserDto> users) {
+        rooms.compute(room.getId(), (key, members) -> {
+            RoomMembers current = members == null ? new RoomMembers(room) : members;
+            users.stream()
+                    .filter(user -> !current.contains(user.getUsername()))
+                    .forEach(user -> index(current, user));
+            return current.size() == 0 ? null : current;
+        });
+    }
+
+    /**
+     * Removes the user and hands every freed slot to the oldest waiting request in the same atomic step, so a direct
+     * {@code connect} can never take a slot ahead of the waitlist. A waiting user who joined meanwhile, e.g. from
+     * another tab, is told so without taking a second slot. Returns {@code false} if the user had already left.
+     */
+    private boolean release(Long roomId, String username) {
+        List<RoomWaitlist.Waiter> admitted = new ArrayList<>();
+        List<RoomWaitlist.Waiter> present = new ArrayList<>();
+        boolean[] released = {false};
+        rooms.compute(roomId, (key, members) -> {
+            if (members == null || !members.contains(username)) {
+                return members;
+            }
+            remove(members, username);
+            released[0] = true;
+
+            RoomWaitlist.Waiter waiter;
+            while (members.size() < members.capacity && (waiter = roomWaitlist.poll(key)) != null) {
+                if (members.contains(waiter.user().getUsername())) {
+                    present.add(waiter);
+                    continue;
+                }
+                add(members, waiter.user());
+                admitted.add(waiter);
+            }
+            return members.size() == 0 ? null : members;
+        });
+
+        present.forEach(waiter -> waiter.admission().complete(ConnectionOutcome.CONNECTED));
+        for (RoomWaitlist.Waiter waiter : admitted) {
+            if (!waiter.admission().complete(ConnectionOutcome.CONNECTED)) {
+                // the request timed out between being polled and admitted, give its slot to the next one
+                release(roomId, waiter.user().getUsername());
+            }
+        }
+        return released[0];
+    }
+
+    private void add(RoomMembers members, ConnectedUserDto user) {
+        index(members, user);
+        presenceJournal.recordConnect(members.roomId, user);
+    }
+
+    private void index(RoomMembers members, ConnectedUserDto user) {
+        members.add(user);
+        publish(RoomEventType.CONNECTED, members, user.getUsername());
+        roomsByUser.compute(user.getUsername(), (key, userRooms) -> {
+            Map<Long, RoomMembers> current = userRooms == null ? new ConcurrentHashMap<>() : userRooms;
+            current.put(members.roomId, members);
+            return current;
+        });
+    }
+
+    private void remove(RoomMembers members, String username) {
+        members.remove(username);
+        publish(RoomEventType.DISCONNECTED, members, username);
+        roomsByUser.computeIfPresent(username, (key, userRooms) -> {
+            userRooms.remove(members.roomId);
+            return userRooms.isEmpty() ? null : userRooms;
+        });
+        presenceJournal.recordDisconnect(members.roomId, username);
+    }
+
+    private void publish(RoomEventType type, RoomMembers members, String username) {
+        roomEventBus.publish(type, members.roomId, members.ownerId, members.roomName, members.capacity, username,
+                members.size());
+    }
+
+    /**
+     * Members of one room. Only mutated under the room's {@code compute}; readers iterate {@code ordered}, which is
+     * keyed by join sequence, and get the immutable {@code preview}, which is only rebuilt when one of the first
+     * members changes.
+     */
+    private static final class RoomMembers {
+        private final Long roomId;
+        private final Long ownerId;
+        private final String roomName;
+        private final int capacity;
+        private final Map<String, Long> sequences = new HashMap<>();
+        private final NavigableMap<Long, ConnectedUserDto> ordered = new ConcurrentSkipListMap<>();
+        private long nextSequence = 1;
+        private long lastPreviewed = Long.MAX_VALUE;
+        private volatile int size;
+        private volatile List<ConnectedUserDto> preview = List.of();
+
+        private RoomMembers(Room room) {
+            this.roomId = room.getId();
+            this.ownerId = room.getUser() == null ? null : room.getUser().getId();
+            this.roomName = room.getName();
+            this.capacity = room.getNumberOfUsers();
+        }
+
+        private boolean contains(String username) {
+            return sequences.containsKey(username);
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private void add(ConnectedUserDto user) {
+            long sequence = nextSequence++;
+            sequences.put(user.getUsername(), sequence);
+            ordered.put(sequence, user);
+            size = sequences.size();
+            if (lastPreviewed == Long.MAX_VALUE) {
+                updatePreview();
+            }
+        }
+
+        private void remove(String username) {
+            Long sequence = sequences.remove(username);
+            if (sequence == null) {
+                return;
+            }
+            ordered.remove(sequence);
+            size = sequences.size();
+            if (sequence <= lastPreviewed) {
+                updatePreview();
+            }
+        }
+
+        private void updatePreview() {
+            List<ConnectedUserDto> first = new ArrayList<>(PREVIEW_SIZE);
+            long last = Long.MAX_VALUE;
+            for (Map.Entry<Long, ConnectedUserDto> entry : ordered.entrySet()) {
+                if (first.size() == PREVIEW_SIZE) {
+                    break;
+                }
+                first.add(entry.getValue());
+                last = entry.getKey();
+            }
+            lastPreviewed = first.size() < PREVIEW_SIZE ? Long.MAX_VALUE : last;
+            preview = List.copyOf(first);
+        }
+    }
+}
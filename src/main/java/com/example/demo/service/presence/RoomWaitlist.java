@@ -0,0 +1,131 @@
+package com.example.demo.service.presence;
+
+import com.example.demo.persistence.dto.ConnectedUserDto;
+import com.example.demo.service.ConnectionOutcome;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-room FIFO queue of join requests that arrived while the room was full.
+ * <p>
+ * A waiting request is only a {@link CompletableFuture}; no thread is parked on it. The future is completed with
+ * {@link ConnectionOutcome#CONNECTED} by whoever frees a slot, or with {@link ConnectionOutcome#ROOM_FULL} once
+ * {@code rooms.waitlist.timeout} elapses. A user waits at most once per room, e.g. when joining from a second tab.
+ */
+@Component
+public class RoomWaitlist {
+
+    private static final CompletableFuture<ConnectionOutcome> ALREADY_WAITING =
+            CompletableFuture.completedFuture(ConnectionOutcome.ALREADY_WAITING);
+
+    private final Map<Long, WaitQueue> queues = new ConcurrentHashMap<>();
+    private final long timeout;
+    private final int maxSize;
+
+    public RoomWaitlist(@Value("${rooms.waitlist.timeout:25000}") long timeout,
+                        @Value("${rooms.waitlist.max-size:50}") int maxSize) {
+        this.timeout = timeout;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns {@code null} if the room's waitlist is full, and {@link ConnectionOutcome#ALREADY_WAITING} if the user
+     * is waiting for the room already.
+     */
+    public CompletableFuture<ConnectionOutcome> enqueue(Long roomId, ConnectedUserDto user) {
+        WaitQueue queue = queues.computeIfAbsent(roomId, key -> new WaitQueue());
+        Waiter waiter = new Waiter(user, new CompletableFuture<>());
+        Offer offer = queue.offer(waiter, maxSize);
+        if (offer == Offer.FULL) {
+            return null;
+        }
+        if (offer == Offer.DUPLICATE) {
+            return ALREADY_WAITING;
+        }
+
+        CompletableFuture<ConnectionOutcome> admission = waiter.admission();
+        admission.whenComplete((outcome, e) -> {
+            if (outcome != ConnectionOutcome.CONNECTED) {
+                queue.remove(waiter);
+            }
+        });
+        CompletableFuture.delayedExecutor(timeout, TimeUnit.MILLISECONDS)
+                .execute(() -> admission.complete(ConnectionOutcome.ROOM_FULL));
+        return admission;
+    }
+
+    /**
+     * Takes the oldest request that is still waiting, skipping the ones that have timed out or were cancelled.
+     */
+    public Waiter poll(Long roomId) {
+        WaitQueue queue = queues.get(roomId);
+        return queue == null ? null : queue.poll();
+    }
+
+    public void clear(Long roomId, ConnectionOutcome outcome) {
+        WaitQueue queue = queues.remove(roomId);
+        if (queue != null) {
+            Waiter waiter;
+            while ((waiter = queue.poll()) != null) {
+                waiter.admission().complete(outcome);
+            }
+        }
+    }
+
+    public int size(Long roomId) {
+        WaitQueue queue = queues.get(roomId);
+        return queue == null ? 0 : queue.size();
+    }
+
+    public record Waiter(ConnectedUserDto user, CompletableFuture<ConnectionOutcome> admission) {
+    }
+
+    private enum Offer {
+        QUEUED,
+        FULL,
+        DUPLICATE
+    }
+
+    private static final class WaitQueue {
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+        synchronized Offer offer(Waiter waiter, int maxSize) {
+            String username = waiter.user().getUsername();
+            for (Waiter waiting : waiters) {
+                if (waiting.user().getUsername().equals(username) && !waiting.admission().isDone()) {
+                    return Offer.DUPLICATE;
+                }
+            }
+            if (waiters.size() >= maxSize) {
+                return Offer.FULL;
+            }
+            waiters.offer(waiter);
+            return Offer.QUEUED;
+        }
+
+        synchronized Waiter poll() {
+            Waiter waiter;
+            while ((waiter = waiters.poll()) != null) {
+                if (!waiter.admission().isDone()) {
+                    return waiter;
+                }
+            }
+            return null;
+        }
+
+        synchronized void remove(Waiter waiter) {
+            waiters.remove(waiter);
+        }
+
+        synchronized int size() {
+            return waiters.size();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.service.usage;
+
+import com.example.demo.service.event.RoomEvent;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.event.RoomEventHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Occupancy time series of every room that has had a member since startup, fed from presence events.
+ * <p>
+ * Each room costs one {@link OccupancySeries}, a single {@code long[]} of {@link OccupancySeries#SLOTS} slots
+ * (about 1.2 KB), created on the room's first connect and dropped when the room is deleted.
+ */
+@Component
+@RequiredArgsConstructor
+public class OccupancyHistory implements RoomEventHandler {
+
+    private final RoomEventBus roomEventBus;
+    private final Map<Long, OccupancySeries> series = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void subscribe() {
+        roomEventBus.subscribe(this);
+    }
+
+    @Override
+    public void onEvent(RoomEvent event, long sequence, boolean endOfBatch) {
+        switch (event.getType()) {
+            case CONNECTED, DISCONNECTED -> series.computeIfAbsent(event.getRoomId(), key -> new OccupancySeries())
+                    .record(event.getTimestamp() / 1000, event.getOccupancy());
+            case DELETED -> series.remove(event.getRoomId());
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Peak occupancy per bucket up to the one containing {@code epochSecond}, oldest first, or {@code null} if nobody
+     * has joined the room since startup.
+     */
+    public int[] samples(Long roomId, OccupancyResolution resolution, long epochSecond) {
+        OccupancySeries roomSeries = series.get(roomId);
+        return roomSeries == null ? null : roomSeries.read(resolution, epochSecond);
+    }
+
+    int size() {
+        return series.size();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.service.usage;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Bucket width and retention of each tier of an {@link OccupancySeries}.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum OccupancyResolution {
+    SECONDS(1, 60),
+    MINUTES(60, 60),
+    HOURS(3600, 24);
+
+    private final int bucketSeconds;
+    private final int buckets;
+}
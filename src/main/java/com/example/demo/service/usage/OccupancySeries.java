@@ -0,0 +1,80 @@
+package com.example.demo.service.usage;
+
+/**
+ * Occupancy of one room as the peak per bucket at every {@link OccupancyResolution}, in one fixed {@code long[]}.
+ * <p>
+ * Each slot packs the bucket number into the upper bits and the peak occupancy into the lower {@link #VALUE_BITS}
+ * bits, so a stale slot is recognized without a second array. A sample updates one slot per tier and never allocates;
+ * buckets skipped since the previous sample are filled forward with the occupancy that held during them. Writes come
+ * from the single event handler thread, reads from request threads, both under the series monitor.
+ */
+final class OccupancySeries {
+
+    static final int VALUE_BITS = 24;
+    private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+    private static final OccupancyResolution[] TIERS = OccupancyResolution.values();
+    private static final int[] OFFSETS = new int[TIERS.length];
+    static final int SLOTS;
+
+    static {
+        int slots = 0;
+        for (int i = 0; i < TIERS.length; i++) {
+            OFFSETS[i] = slots;
+            slots += TIERS[i].getBuckets();
+        }
+        SLOTS = slots;
+    }
+
+    private final long[] slots = new long[SLOTS];
+    private long lastSecond = -1;
+    private int occupancy;
+
+    synchronized void record(long epochSecond, int occupancy) {
+        long second = Math.max(epochSecond, lastSecond);
+        for (int tier = 0; tier < TIERS.length; tier++) {
+            long bucket = second / TIERS[tier].getBucketSeconds();
+            long lastBucket = lastSecond < 0 ? bucket : lastSecond / TIERS[tier].getBucketSeconds();
+            if (bucket > lastBucket) {
+                long from = Math.max(lastBucket + 1, bucket - TIERS[tier].getBuckets() + 1);
+                for (long skipped = from; skipped < bucket; skipped++) {
+                    write(tier, skipped, this.occupancy);
+                }
+                write(tier, bucket, Math.max(this.occupancy, occupancy));
+            } else {
+                write(tier, bucket, Math.max(peak(tier, bucket), occupancy));
+            }
+        }
+        this.lastSecond = second;
+        this.occupancy = occupancy;
+    }
+
+    /**
+     * Peaks of the buckets ending with the one containing {@code epochSecond}, oldest first; buckets before the first
+     * sample are zero.
+     */
+    synchronized int[] read(OccupancyResolution resolution, long epochSecond) {
+        int tier = resolution.ordinal();
+        int[] samples = new int[resolution.getBuckets()];
+        long now = epochSecond / resolution.getBucketSeconds();
+        long lastBucket = lastSecond < 0 ? -1 : lastSecond / resolution.getBucketSeconds();
+        for (int i = 0; i < samples.length; i++) {
+            long bucket = now - samples.length + 1 + i;
+            samples[i] = bucket > lastBucket ? occupancy : peak(tier, bucket);
+        }
+        return samples;
+    }
+
+    private int peak(int tier, long bucket) {
+        long slot = slots[index(tier, bucket)];
+        return slot >>> VALUE_BITS == bucket + 1 ? (int) (slot & VALUE_MASK) : 0;
+    }
+
+    private void write(int tier, long bucket, int value) {
+        // bucket + 1 keeps the never-written slot (0) distinct from bucket 0
+        slots[index(tier, bucket)] = (bucket + 1) << VALUE_BITS | Math.min(value, VALUE_MASK);
+    }
+
+    private static int index(int tier, long bucket) {
+        return OFFSETS[tier] + (int) (bucket % TIERS[tier].getBuckets());
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.demo.service.usage;
+
+import com.example.demo.service.event.RoomEvent;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.event.RoomEventHandler;
+import com.example.demo.service.presence.RoomPresence;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Turns connect/disconnect events into {@code room_sessions} rows and keeps the {@code room_usage_stats} rollups up
+ * to date.
+ * <p>
+ * Sessions and rollups are collected on the event bus consumer thread into a pending batch, which a writer thread takes
+ * over whole at the end of every event batch or every {@code rooms.sessions.batch-size} sessions, so a slow database
+ * never holds up the event ring. While the writer is busy the pending batch keeps growing, and it takes whatever has
+ * piled up once it is done, so nothing waits for another event to be written. Beyond
+ * {@code rooms.sessions.max-pending} waiting sessions new ones are dropped and counted; the rollups still take them
+ * into account. Rollups of a deleted room are removed together with the room's sessions still open.
+ * <p>
+ * When events were dropped, sessions of users {@link RoomPresence} no longer has in the room are closed as of then, so
+ * a lost disconnect neither leaks the open session nor leaves it open until the user joins again. Sessions whose
+ * connect was lost are not recorded.
+ */
+@Slf4j
+@Component
+public class RoomSessionRecorder implements RoomEventHandler {
+
+    private static final String INSERT_SESSION = "insert into room_sessions "
+            + "(room_id, owner_id, username, joined_at, left_at, duration_seconds) values (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_STATS = "update room_usage_stats set "
+            + "session_count = session_count + ?, total_session_seconds = total_session_seconds + ?, "
+            + "peak_occupancy = greatest(peak_occupancy, ?), last_joined_at = coalesce(?, last_joined_at), "
+            + "last_left_at = coalesce(?, last_left_at) where room_id = ?";
+    private static final String INSERT_STATS = "insert into room_usage_stats "
+            + "(room_id, owner_id, session_count, total_session_seconds, peak_occupancy, last_joined_at, last_left_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_STATS = "delete from room_usage_stats where room_id = ?";
+
+    private final RoomEventBus roomEventBus;
+    private final RoomPresence roomPresence;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxPending;
+    private final ExecutorService writer;
+    private final LongAdder dropped = new LongAdder();
+
+    private final Map<Long, Map<String, OpenSession>> openSessions = new HashMap<>();
+    private Batch pending = new Batch();
+    private boolean writing;
+
+    public RoomSessionRecorder(RoomEventBus roomEventBus,
+                               RoomPresence roomPresence,
+                               JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${rooms.sessions.batch-size:500}") int batchSize,
+                               @Value("${rooms.sessions.max-pending:100000}") int maxPending) {
+        this.roomEventBus = roomEventBus;
+        this.roomPresence = roomPresence;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "room-sessions-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    void subscribe() {
+        roomEventBus.subscribe(this);
+    }
+
+    /**
+     * Lets the writer finish the batch it took over.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void onEvent(RoomEvent event, long sequence, boolean endOfBatch) {
+        int waiting;
+        synchronized (this) {
+            switch (event.getType()) {
+                case CONNECTED -> join(event);
+                case DISCONNECTED -> leave(event.getRoomId(), event.getUsername(), event.getTimestamp());
+                case DELETED -> closeRoom(event);
+                default -> {
+                }
+            }
+            waiting = pending.sessions.size();
+        }
+        if (endOfBatch || waiting >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void onDropped(long count) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Map.copyOf(openSessions).forEach((roomId, roomSessions) -> List.copyOf(roomSessions.keySet()).stream()
+                    .filter(username -> !roomPresence.isMember(roomId, username))
+                    .forEach(username -> leave(roomId, username, now)));
+        }
+        flush();
+    }
+
+    private void join(RoomEvent event) {
+        openSessions.computeIfAbsent(event.getRoomId(), key -> new HashMap<>())
+                .put(event.getUsername(), new OpenSession(event.getOwnerId(), event.getTimestamp()));
+        Rollup rollup = pending.rollup(event.getRoomId(), event.getOwnerId());
+        rollup.peakOccupancy = Math.max(rollup.peakOccupancy, event.getOccupancy());
+        rollup.lastJoinedAt = new Timestamp(event.getTimestamp());
+    }
+
+    private void leave(Long roomId, String username, long leftAt) {
+        Map<String, OpenSession> roomSessions = openSessions.get(roomId);
+        OpenSession session = roomSessions == null ? null : roomSessions.remove(username);
+        if (session == null) {
+            return;
+        }
+        if (roomSessions.isEmpty()) {
+            openSessions.remove(roomId);
+        }
+        long durationSeconds = Math.max(0, leftAt - session.joinedAt()) / 1000;
+        if (pending.sessions.size() < maxPending) {
+            pending.sessions.add(new Object[]{roomId, session.ownerId(), username,
+                    new Timestamp(session.joinedAt()), new Timestamp(leftAt), durationSeconds});
+        } else {
+            dropped.increment();
+        }
+
+        Rollup rollup = pending.rollup(roomId, session.ownerId());
+        rollup.sessionCount++;
+        rollup.totalSessionSeconds += durationSeconds;
+        rollup.lastLeftAt = new Timestamp(leftAt);
+    }
+
+    private void closeRoom(RoomEvent event) {
+        Map<String, OpenSession> roomSessions = openSessions.get(event.getRoomId());
+        if (roomSessions != null) {
+            List.copyOf(roomSessions.keySet())
+                    .forEach(username -> leave(event.getRoomId(), username, event.getTimestamp()));
+        }
+        pending.rollups.remove(event.getRoomId());
+        pending.deletedRooms.add(event.getRoomId());
+    }
+
+    /**
+     * Has the writer take over the pending batch unless it is already busy, in which case it does so when done.
+     */
+    private void flush() {
+        synchronized (this) {
+            if (writing || pending.isEmpty()) {
+                return;
+            }
+            writing = true;
+        }
+        writer.execute(this::drain);
+    }
+
+    private void drain() {
+        while (true) {
+            Batch batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    writing = false;
+                    return;
+                }
+                batch = pending;
+                pending = new Batch();
+            }
+            write(batch);
+        }
+    }
+
+    private void write(Batch batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!batch.sessions.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_SESSION, batch.sessions);
+                }
+                List<Rollup> rollups = List.copyOf(batch.rollups.values());
+                int[] updated = jdbcTemplate.batchUpdate(UPDATE_STATS, rollups.stream()
+                        .map(rollup -> new Object[]{rollup.sessionCount, rollup.totalSessionSeconds,
+                                rollup.peakOccupancy, rollup.lastJoinedAt, rollup.lastLeftAt, rollup.roomId})
+                        .toList());
+                List<Object[]> inserts = new ArrayList<>();
+                for (int i = 0; i < updated.length; i++) {
+                    if (updated[i] == 0) {
+                        Rollup rollup = rollups.get(i);
+                        inserts.add(new Object[]{rollup.roomId, rollup.ownerId, rollup.sessionCount,
+                                rollup.totalSessionSeconds, rollup.peakOccupancy, rollup.lastJoinedAt,
+                                rollup.lastLeftAt});
+                    }
+                }
+                if (!inserts.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_STATS, inserts);
+                }
+                if (!batch.deletedRooms.isEmpty()) {
+                    jdbcTemplate.batchUpdate(DELETE_STATS, batch.deletedRooms.stream()
+                            .map(roomId -> new Object[]{roomId})
+                            .toList());
+                }
+            });
+        } catch (DataAccessException e) {
+            dropped.add(batch.sessions.size());
+            log.error("Dropping {} room sessions after a failed flush", batch.sessions.size(), e);
+        }
+    }
+
+    private static final class Batch {
+        private final List<Object[]> sessions = new ArrayList<>();
+        private final Map<Long, Rollup> rollups = new LinkedHashMap<>();
+        private final Set<Long> deletedRooms = new LinkedHashSet<>();
+
+        private Rollup rollup(Long roomId, Long ownerId) {
+            return rollups.computeIfAbsent(roomId, key -> new Rollup(roomId, ownerId));
+        }
+
+        private boolean isEmpty() {
+            return sessions.isEmpty() && rollups.isEmpty() && deletedRooms.isEmpty();
+        }
+    }
+
+    private record OpenSession(Long ownerId, long joinedAt) {
+    }
+
+    private static final class Rollup {
+        private final Long roomId;
+        private final Long ownerId;
+        private long sessionCount;
+        private long totalSessionSeconds;
+        private int peakOccupancy;
+        private Timestamp lastJoinedAt;
+        private Timestamp lastLeftAt;
+
+        private Rollup(Long roomId, Long ownerId) {
+            this.roomId = roomId;
+            this.ownerId = ownerId;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.web.cluster;
+
+import com.example.demo.service.cluster.ClusterPresence;
+import com.example.demo.service.presence.RoomPresence;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Requests nodes of the cluster send each other, see {@link ClusterPresence}. They are authenticated by the cluster
+ * secret instead of a user token.
+ */
+@RestController
+@RequestMapping("api/v1/cluster")
+@RequiredArgsConstructor
+public class ClusterPresenceController {
+    private final ClusterPresence clusterPresence;
+    private final RoomPresence roomPresence;
+
+    /**
+     * Releases the user's slots in the rooms this node owns, without telling the other nodes again.
+     */
+    @DeleteMapping("/members")
+    public ResponseEntity<HttpStatus> disconnect(@RequestParam String username,
+                                                 @RequestHeader(name = ClusterPresence.SECRET_HEADER,
+                                                         required = false) String secret) {
+        if (!clusterPresence.isTrusted(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        roomPresence.disconnectAll(username);
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+}
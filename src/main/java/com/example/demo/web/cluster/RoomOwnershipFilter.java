@@ -0,0 +1,78 @@
+package com.example.demo.web.cluster;
+
+import com.example.demo.service.cluster.RoomOwnership;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Redirects requests for a room's presence to the node that owns the room, see {@link RoomOwnership}. The redirect is
+ * a 307, so clients repeat the same method and body there, and it is sent before the request is authenticated or
+ * counted against the concurrency limit, as it costs this node almost nothing.
+ * <p>
+ * Covers the requests that carry the room id in the path: joins, member lists, chat and deletion. Leaving a room only
+ * names it and is redirected by {@code RoomController} once the id is known.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 2)
+@RequiredArgsConstructor
+public class RoomOwnershipFilter extends OncePerRequestFilter {
+
+    private static final Pattern ROOM_PATH = Pattern.compile(
+            "^/api/v1/rooms/(?:connect/(\\d{1,18})|(\\d{1,18})/(?:members|chat)(?:/.*)?|(\\d{1,18}))$");
+
+    private final RoomOwnership roomOwnership;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !roomOwnership.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Optional<String> owner = roomIdOf(request).flatMap(roomOwnership::remoteOwner);
+        if (owner.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String query = request.getQueryString();
+        response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+        response.setHeader(HttpHeaders.LOCATION,
+                owner.get() + request.getRequestURI() + (query == null ? "" : "?" + query));
+    }
+
+    /**
+     * Id of the room the request is about. {@code /api/v1/rooms/{id}} names a room only when deleting it, reading it
+     * lists the rooms of a user.
+     */
+    private static Optional<Long> roomIdOf(HttpServletRequest request) {
+        Matcher matcher = ROOM_PATH.matcher(request.getRequestURI());
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        if (matcher.group(1) != null) {
+            return Optional.of(Long.valueOf(matcher.group(1)));
+        }
+        if (matcher.group(2) != null) {
+            return Optional.of(Long.valueOf(matcher.group(2)));
+        }
+        return HttpMethod.DELETE.matches(request.getMethod())
+                ? Optional.of(Long.valueOf(matcher.group(3)))
+                : Optional.empty();
+    }
+}
@@ -38,9 +38,14 @@ public class SecurityConfig {
                 .mvcMatchers("/api/v1/users/register").permitAll()
                 .mvcMatchers("/api/v1/auth/login").permitAll()
 //                .mvcMatchers("/api/v1/rooms/connect/{id}").permitAll()
-                .mvcMatchers(HttpMethod.GET, "/api/v1/rooms").permitAll()
+                .mvcMatchers(HttpMethod.GET, "/api/v1/rooms", "/api/v1/rooms/occupancy", "/api/v1/rooms/changes",
+                        "/api/v1/rooms/popular", "/api/v1/rooms/{id}/members")
+                .permitAll()
                 .mvcMatchers(HttpMethod.POST, "/api/v1/rooms/connect").permitAll()
                 .mvcMatchers("/api/v1/rooms/connect/**").permitAll()
+                .mvcMatchers(HttpMethod.GET, "/api/v1/reactive/rooms", "/api/v1/reactive/rooms/connect").permitAll()
+                .mvcMatchers(HttpMethod.GET, "/api/v1/avatars/**").permitAll()
+                .mvcMatchers(HttpMethod.DELETE, "/api/v1/cluster/members").permitAll()
                 .anyRequest()
                 .authenticated()
                 .and()
@@ -3,6 +3,8 @@ package com.example.demo.web.controller;
 import com.example.demo.persistence.dto.AuthenticationRequestDto;
 import com.example.demo.persistence.model.User;
 import com.example.demo.persistence.repository.UserRepository;
+import com.example.demo.service.RoomService;
+import com.example.demo.web.security.UserDetailsImpl;
 import com.example.demo.web.security.jwt.JwtTokenProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -10,6 +12,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.logout.SecurityContextLogoutHandler;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -29,14 +32,17 @@ public class AuthenticationRestController {
     private final AuthenticationManager authenticationManager;
     private final UserRepository userRepository;
     private final JwtTokenProvider jwtTokenProvider;
+    private final RoomService roomService;
 
     @Autowired
     public AuthenticationRestController(AuthenticationManager authenticationManager,
                                         UserRepository userRepository,
-                                        JwtTokenProvider jwtTokenProvider) {
+                                        JwtTokenProvider jwtTokenProvider,
+                                        RoomService roomService) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.roomService = roomService;
     }
 
     @PostMapping("/login")
@@ -61,7 +67,16 @@ public class AuthenticationRestController {
     }
 
     @PostMapping("/logout")
-    public void logout(HttpServletRequest request, HttpServletResponse response) {
+    public void logout(HttpServletRequest request, HttpServletResponse response,
+                       @AuthenticationPrincipal UserDetailsImpl currentUser) {
+        String token = jwtTokenProvider.resolveToken(request);
+        if (token != null) {
+            jwtTokenProvider.revoke(token);
+        }
+        if (currentUser != null) {
+            userRepository.findById(currentUser.getId())
+                    .ifPresent(user -> roomService.disconnectFromAllRooms(user.getUsername()));
+        }
         SecurityContextLogoutHandler securityContextLogoutHandler = new SecurityContextLogoutHandler();
         securityContextLogoutHandler.logout(request, response, null);
     }
@@ -0,0 +1,92 @@
+package com.example.demo.web.controller;
+
+import com.example.demo.service.UserService;
+import com.example.demo.service.avatar.AvatarStore;
+import com.example.demo.web.security.UserDetailsImpl;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+@RestController
+@CrossOrigin
+@RequestMapping("/api/v1/avatars")
+@RequiredArgsConstructor
+public class AvatarController {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final String CACHE_FOREVER = "public, max-age=31536000, immutable";
+
+    private final UserService userService;
+    private final AvatarStore avatarStore;
+
+    @PostMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<Map<String, String>> upload(@RequestParam("file") MultipartFile file,
+                                                      @AuthenticationPrincipal UserDetailsImpl currentUser)
+            throws IOException {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(Map.of("imageUrl", userService.updateAvatar(currentUser.getId(), file.getBytes())));
+    }
+
+    /**
+     * Serves a thumbnail straight from disk. Avatar files are named by their content and never change, so the name
+     * is a strong ETag and the response may be cached forever. The body is handed to Tomcat's sendfile when the
+     * connector supports it, and copied with {@link FileChannel#transferTo} otherwise, so it never passes through a
+     * heap buffer of ours.
+     */
+    @GetMapping("/{hash}/{size}.png")
+    public void get(@PathVariable String hash, @PathVariable int size,
+                    HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path path = avatarStore.find(hash, size);
+        if (path == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        String etag = "\"" + hash + "-" + size + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_FOREVER);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            response.setContentType(MediaType.IMAGE_PNG_VALUE);
+            response.setContentLengthLong(length);
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, length);
+                return;
+            }
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            for (long position = 0; position < length; ) {
+                position += channel.transferTo(position, length - position, out);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.web.controller;
+
+import com.example.demo.persistence.dto.RoomInfoDto;
+import com.example.demo.service.ReactiveRoomService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Room directory served without holding a request thread while the database works. Listings are streamed as
+ * newline-delimited JSON when the client accepts {@code application/x-ndjson}, and collected into a JSON array otherwise.
+ */
+@RestController
+@RequestMapping("api/v1/reactive/rooms")
+@ConditionalOnProperty(name = "rooms.reactive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReactiveRoomController {
+    private final ReactiveRoomService reactiveRoomService;
+
+    @GetMapping("/connect")
+    public Mono<Long> getOne(@RequestParam String name) {
+        return reactiveRoomService.getRoomIdByName(name);
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<RoomInfoDto> getAll(@PageableDefault Pageable pageable) {
+        return reactiveRoomService.getAll(pageable);
+    }
+
+    @GetMapping(value = "/{userId}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<RoomInfoDto> getAllUserRooms(@PathVariable Long userId, @PageableDefault Pageable pageable) {
+        return reactiveRoomService.getAllRoomsByUserId(userId, pageable);
+    }
+}
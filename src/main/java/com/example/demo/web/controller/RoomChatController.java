@@ -0,0 +1,109 @@
+package com.example.demo.web.controller;
+
+import com.example.demo.persistence.dto.ChatMessageDto;
+import com.example.demo.persistence.dto.ChatMessageRequestDto;
+import com.example.demo.service.chat.ChatListener;
+import com.example.demo.service.chat.RoomChat;
+import com.example.demo.web.security.UserDetailsImpl;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Chat of a room for the users connected to it, see {@link RoomChat}. Only logged in users can chat, under the name
+ * they go by in rooms, and only in the rooms they have joined under that name.
+ */
+@RestController
+@RequestMapping("api/v1/rooms/{id}/chat")
+@RequiredArgsConstructor
+public class RoomChatController {
+    private final RoomChat roomChat;
+    @Value("${rooms.chat.max-length:2000}")
+    private int maxLength;
+
+    @PostMapping
+    public ResponseEntity<ChatMessageDto> send(@PathVariable Long id,
+                                               @RequestBody ChatMessageRequestDto messageDto,
+                                               @AuthenticationPrincipal UserDetailsImpl currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        String text = messageDto.getText();
+        if (text == null || text.isBlank() || text.length() > maxLength) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        ChatMessageDto message = roomChat.send(id, currentUser.getName(), text);
+        if (message == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .body(message);
+    }
+
+    /**
+     * Messages still in the room's history after the {@code after} sequence.
+     */
+    @GetMapping("/history")
+    public ResponseEntity<List<ChatMessageDto>> getHistory(@PathVariable Long id,
+                                                           @RequestParam(defaultValue = "0") long after,
+                                                           @AuthenticationPrincipal UserDetailsImpl currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        List<ChatMessageDto> history = roomChat.history(id, currentUser.getName(), after);
+        if (history == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(history);
+    }
+
+    /**
+     * Streams the history after the {@code after} sequence and then the new messages of the room, until the user
+     * leaves it. Each event carries a batch of messages, oldest first.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@PathVariable Long id,
+                                             @RequestParam(defaultValue = "0") long after,
+                                             @AuthenticationPrincipal UserDetailsImpl currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        SseEmitter emitter = new SseEmitter(0L);
+        ChatListener listener = new ChatListener() {
+            @Override
+            public boolean deliver(List<ChatMessageDto> messages) {
+                try {
+                    emitter.send(messages, MediaType.APPLICATION_JSON);
+                    return true;
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                    return false;
+                }
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        };
+        if (!roomChat.subscribe(id, currentUser.getName(), after, listener)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        emitter.onCompletion(() -> roomChat.unsubscribe(id, listener));
+        emitter.onError(e -> roomChat.unsubscribe(id, listener));
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(emitter);
+    }
+}
@@ -2,25 +2,54 @@ package com.example.demo.web.controller;
 
 import com.example.demo.persistence.dto.ConnectionRequestDto;
 import com.example.demo.persistence.dto.DisconnectionRequestDto;
+import com.example.demo.persistence.dto.OccupancySeriesDto;
+import com.example.demo.persistence.dto.OwnerUsageStatsDto;
 import com.example.demo.persistence.dto.RoomCreateDto;
+import com.example.demo.persistence.dto.RoomChangesDto;
 import com.example.demo.persistence.dto.RoomInfoDto;
+import com.example.demo.persistence.dto.RoomMembersDto;
+import com.example.demo.persistence.dto.RoomOccupancyDto;
+import com.example.demo.persistence.dto.RoomUsageStatsDto;
+import com.example.demo.service.ConnectionOutcome;
+import com.example.demo.service.DisconnectionOutcome;
 import com.example.demo.service.RoomService;
+import com.example.demo.service.RoomUsageService;
+import com.example.demo.service.cluster.RoomOwnership;
+import com.example.demo.service.directory.RoomChangeLog;
+import com.example.demo.service.usage.OccupancyResolution;
 import com.example.demo.web.security.UserDetailsImpl;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("api/v1/rooms")
 @RequiredArgsConstructor
 public class RoomController {
     private final RoomService roomService;
+    private final RoomUsageService roomUsageService;
+    private final RoomChangeLog roomChangeLog;
+    private final RoomOwnership roomOwnership;
+    @Value("${rooms.occupancy.max-ids:100}")
+    private int maxOccupancyIds;
+    @Value("${rooms.members.max-page-size:500}")
+    private int maxMembersPageSize;
+    @Value("${rooms.popular.max-size:100}")
+    private int maxPopularSize;
 
     @GetMapping("/connect")
     public ResponseEntity<Long> getOne(@RequestParam String name) {
@@ -34,11 +63,106 @@ public class RoomController {
         return roomService.getAll(pageable);
     }
 
+    /**
+     * Rooms with the most users connected, busiest first, {@code limit} is capped at {@code rooms.popular.max-size}.
+     */
+    @GetMapping("/popular")
+    public ResponseEntity<List<RoomInfoDto>> getPopular(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(roomService.getPopular(Math.max(1, Math.min(limit, maxPopularSize))));
+    }
+
+    /**
+     * Capacity and occupancy of up to {@code rooms.occupancy.max-ids} rooms at once, e.g. for a user's bookmarks.
+     */
+    @GetMapping("/occupancy")
+    public ResponseEntity<List<RoomOccupancyDto>> getOccupancies(@RequestParam List<Long> ids) {
+        if (ids.size() > maxOccupancyIds) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(roomService.getOccupancies(ids));
+    }
+
+    /**
+     * Rooms created or deleted after the {@code since} cursor, see {@link RoomChangeLog}.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<RoomChangesDto> getChanges(@RequestParam(required = false) Long since) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(roomChangeLog.changesSince(since));
+    }
+
+    /**
+     * Pages through the members of a room in join order, {@code limit} is capped at {@code rooms.members.max-page-size}.
+     * Listings only carry the member count and a preview.
+     */
+    @GetMapping("/{id}/members")
+    public ResponseEntity<RoomMembersDto> getMembers(@PathVariable Long id,
+                                                     @RequestParam(defaultValue = "0") long cursor,
+                                                     @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(roomService.getMembers(id, cursor, Math.max(1, Math.min(limit, maxMembersPageSize))));
+    }
+
     @GetMapping("/{userId}")
     public Page<RoomInfoDto> getAllUserRooms(@PathVariable Long userId, @PageableDefault Pageable pageable) {
         return roomService.getAllRoomsByUserId(userId, pageable);
     }
 
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<OwnerUsageStatsDto> getOwnerStats(@AuthenticationPrincipal UserDetailsImpl currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(roomUsageService.getOwnerStats(currentUser.getId()));
+    }
+
+    /**
+     * Usage of one room, readable by its owner only.
+     */
+    @GetMapping("/{id}/stats")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<RoomUsageStatsDto> getRoomStats(@PathVariable Long id,
+                                                          @AuthenticationPrincipal UserDetailsImpl currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!roomService.isOwner(id, currentUser.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(roomUsageService.getRoomStats(id));
+    }
+
+    /**
+     * Occupancy history of one room, readable by its owner only.
+     */
+    @GetMapping("/{id}/occupancy")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<OccupancySeriesDto> getOccupancy(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "MINUTES") OccupancyResolution resolution,
+            @AuthenticationPrincipal UserDetailsImpl currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!roomService.isOwner(id, currentUser.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(roomUsageService.getOccupancy(id, resolution));
+    }
+
     @PostMapping
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<HttpStatus> create(
@@ -53,17 +177,77 @@ public class RoomController {
 
 
     @PostMapping("/connect/{id}")
-    public ResponseEntity<HttpStatus> connect(
+    public ResponseEntity<String> connect(
             @PathVariable Long id,
             @RequestBody ConnectionRequestDto connectionRequestDto) {
-        roomService.connect(id, connectionRequestDto);
-        return ResponseEntity.status(HttpStatus.OK).build();
+        return toResponse(roomService.connect(id, connectionRequestDto), id);
     }
 
+    @PostMapping(value = "/connect/{id}", params = "wait=true")
+    public DeferredResult<ResponseEntity<String>> connectOrWait(
+            @PathVariable Long id,
+            @RequestBody ConnectionRequestDto connectionRequestDto) {
+        DeferredResult<ResponseEntity<String>> result = new DeferredResult<>();
+        CompletableFuture<ConnectionOutcome> admission = roomService.connectOrWait(id, connectionRequestDto);
+        result.onTimeout(() -> admission.complete(ConnectionOutcome.ROOM_FULL));
+        result.onError(e -> admission.cancel(false));
+        admission.whenComplete((outcome, e) -> {
+            if (e == null) {
+                result.setResult(toResponse(outcome, id));
+            } else {
+                result.setErrorResult(e instanceof CompletionException ? e.getCause() : e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Leaves the room. In a cluster the request is redirected to the node that owns the room, which can only be told
+     * once its name is resolved, unlike the requests {@code RoomOwnershipFilter} redirects by id.
+     */
     @DeleteMapping("/disconnect")
-    @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void disconnect(@RequestBody DisconnectionRequestDto disconnectionRequestDto) {
-        roomService.disconnect(disconnectionRequestDto);
+    public ResponseEntity<String> disconnect(@RequestBody DisconnectionRequestDto disconnectionRequestDto) {
+        if (roomOwnership.isEnabled()) {
+            Optional<String> owner = roomOwnership.remoteOwner(
+                    roomService.getRoomIdByName(disconnectionRequestDto.getRoomName()));
+            if (owner.isPresent()) {
+                return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                        .header(HttpHeaders.LOCATION, owner.get() + "/api/v1/rooms/disconnect")
+                        .build();
+            }
+        }
+        DisconnectionOutcome outcome = roomService.disconnect(disconnectionRequestDto);
+        return switch (outcome) {
+            case DISCONNECTED -> ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+            case ROOM_NOT_FOUND -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Can not find room by name: " + disconnectionRequestDto.getRoomName());
+            case ROOM_EMPTY -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Disconnection failed! Room is empty!");
+            case USER_NOT_IN_ROOM -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(String.format("Can not find user in room %s by username: %s",
+                            disconnectionRequestDto.getRoomName(), disconnectionRequestDto.getUsername()));
+        };
+    }
+
+    /**
+     * Maps a join outcome to the status and message {@code RoomExceptionHandler} used to produce for the same case.
+     */
+    private static ResponseEntity<String> toResponse(ConnectionOutcome outcome, Long id) {
+        return switch (outcome) {
+            case CONNECTED -> ResponseEntity.status(HttpStatus.OK).build();
+            case ROOM_NOT_FOUND -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Can not find room by id: " + id);
+            case USERNAME_REQUIRED -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Connection failed! Username is required!");
+            case WRONG_PASSWORD -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Connection failed! Wrong password!");
+            case ROOM_FULL -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Connection failed! Room is full!");
+            case WAITLIST_FULL -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Connection failed! Room is full and its waitlist is full!");
+            case ALREADY_WAITING -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Connection failed! Already waiting to join this room!");
+        };
     }
 
     @DeleteMapping("/{id}")
@@ -1,11 +1,13 @@
 package com.example.demo.web.controller.handler;
 
+import com.example.demo.exception.InvalidAvatarException;
 import com.example.demo.exception.UserAlreadyExists;
 import com.example.demo.exception.UserNotFoundException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 @ControllerAdvice
 public class UserExceptionHandler {
@@ -18,4 +20,14 @@ public class UserExceptionHandler {
     public ResponseEntity<String> handleUserNotFoundException(UserNotFoundException e) {
         return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
     }
+
+    @ExceptionHandler({InvalidAvatarException.class})
+    public ResponseEntity<String> handleInvalidAvatarException(InvalidAvatarException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler({MaxUploadSizeExceededException.class})
+    public ResponseEntity<String> handleMaxUploadSizeExceededException(MaxUploadSizeExceededException e) {
+        return new ResponseEntity<>("Avatar file is too large!", HttpStatus.PAYLOAD_TOO_LARGE);
+    }
 }
@@ -11,13 +11,17 @@ import java.util.List;
 public class UserDetailsImpl implements UserDetails {
     private final Long id;
     private final String email;
+    private final String name;
     private final String password;
+    private final long tokensValidAfter;
     private final List<GrantedAuthority> rolesAndAuthorities;
 
     public UserDetailsImpl(User user) {
         this.id = user.getId();
         this.email = user.getEmail();
+        this.name = user.getUsername();
         this.password = user.getPassword();
+        this.tokensValidAfter = user.getTokensValidAfter() == null ? 0 : user.getTokensValidAfter().toEpochMilli();
         this.rolesAndAuthorities = List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
     }
 
@@ -25,6 +29,20 @@ public class UserDetailsImpl implements UserDetails {
         return id;
     }
 
+    /**
+     * The name the user goes by in rooms. Not {@link #getUsername()}, which is the email users log in with.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Epoch millis before which every token of the user is revoked, or {@code 0}.
+     */
+    public long getTokensValidAfter() {
+        return tokensValidAfter;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return rolesAndAuthorities;
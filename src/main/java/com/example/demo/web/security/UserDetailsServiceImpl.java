@@ -1,6 +1,6 @@
 package com.example.demo.web.security;
 
-import com.example.demo.persistence.model.User;
+import com.example.demo.persistence.repository.SingleFlight;
 import com.example.demo.persistence.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -8,20 +8,25 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final SingleFlight<String, Optional<UserDetailsImpl>> usersByEmail = new SingleFlight<>();
+
     @Autowired
     public UserDetailsServiceImpl(UserRepository userRepository) {
         this.userRepository = userRepository;
     }
 
+    /**
+     * Every authenticated request loads its user, so parallel requests of the same user share one query.
+     */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email).orElseThrow(
-                () -> new UsernameNotFoundException("Not found " + email));
-        System.out.println(user);
-        return new UserDetailsImpl(user);
+        return usersByEmail.load(email, () -> userRepository.findByEmail(email).map(UserDetailsImpl::new))
+                .orElseThrow(() -> new UsernameNotFoundException("Not found " + email));
     }
 }
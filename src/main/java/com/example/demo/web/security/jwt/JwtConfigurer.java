@@ -1,5 +1,6 @@
 package com.example.demo.web.security.jwt;
 
+import com.example.demo.web.security.ratelimit.RateLimitFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.config.annotation.SecurityConfigurerAdapter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -11,14 +12,17 @@ import org.springframework.stereotype.Component;
 public class JwtConfigurer extends SecurityConfigurerAdapter<DefaultSecurityFilterChain, HttpSecurity> {
 
     private final JwtTokenFilter jwtTokenFilter;
+    private final RateLimitFilter rateLimitFilter;
 
     @Autowired
-    public JwtConfigurer(JwtTokenFilter jwtTokenFilter) {
+    public JwtConfigurer(JwtTokenFilter jwtTokenFilter, RateLimitFilter rateLimitFilter) {
         this.jwtTokenFilter = jwtTokenFilter;
+        this.rateLimitFilter = rateLimitFilter;
     }
 
     @Override
     public void configure(HttpSecurity http) throws Exception {
         http.addFilterBefore(jwtTokenFilter, UsernamePasswordAuthenticationFilter.class);
+        http.addFilterAfter(rateLimitFilter, JwtTokenFilter.class);
     }
 }
@@ -1,5 +1,6 @@
 package com.example.demo.web.security.jwt;
 
+import com.example.demo.web.security.UserDetailsImpl;
 import io.jsonwebtoken.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,15 +15,24 @@ import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 import java.util.Base64;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtTokenProvider {
 
+    /**
+     * Issue time in milliseconds, as {@code iat} only has seconds and a token issued right after a password change
+     * would otherwise fall under its cutoff.
+     */
+    static final String ISSUED_AT_MILLIS = "iat_ms";
+
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationList tokenRevocationList;
 
     @Autowired
-    public JwtTokenProvider(UserDetailsService userDetailsService) {
+    public JwtTokenProvider(UserDetailsService userDetailsService, TokenRevocationList tokenRevocationList) {
         this.userDetailsService = userDetailsService;
+        this.tokenRevocationList = tokenRevocationList;
     }
 
     @Value("${jwt.secret}")
@@ -41,10 +51,12 @@ public class JwtTokenProvider {
         Claims claims = Jwts.claims().setSubject(email);
         claims.put("role", role);
         Date now = new Date();
+        claims.put(ISSUED_AT_MILLIS, now.getTime());
         Date validity = new Date(now.getTime() + validityInMilliseconds * 1000);
 
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(now)
                 .setExpiration(validity)
                 .signWith(SignatureAlgorithm.HS256, secretKey)
@@ -53,15 +65,56 @@ public class JwtTokenProvider {
 
     public boolean validateToken(String token) {
         try {
-            Jws<Claims> claimsJws = Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token);
-            return !claimsJws.getBody().getExpiration().before(new Date());
+            Claims claims = Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token).getBody();
+            if (claims.getExpiration().before(new Date())) {
+                return false;
+            }
+            if (tokenRevocationList.isRevoked(tokenId(claims), claims.getSubject(), issuedAt(claims),
+                    claims.getExpiration().getTime())) {
+                throw new JwtAuthenticationException("Jwt token is revoked", HttpStatus.UNAUTHORIZED);
+            }
+            return true;
         } catch (JwtException | IllegalArgumentException e) {
             throw new JwtAuthenticationException("Jwt token is expired or invalid", HttpStatus.UNAUTHORIZED);
         }
     }
 
+    /**
+     * Denies the token for the rest of its lifetime. Tokens issued without an id can only be revoked together with
+     * every other token of the same user.
+     */
+    public void revoke(String token) {
+        Claims claims = Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token).getBody();
+        UUID tokenId = tokenId(claims);
+        if (tokenId == null) {
+            tokenRevocationList.revokeIssuedBefore(claims.getSubject(), System.currentTimeMillis());
+        } else {
+            tokenRevocationList.revoke(tokenId, claims.getSubject(), claims.getExpiration().getTime());
+        }
+    }
+
+    private static UUID tokenId(Claims claims) {
+        return claims.getId() == null ? null : UUID.fromString(claims.getId());
+    }
+
+    private static long issuedAt(Claims claims) {
+        Long issuedAtMillis = claims.get(ISSUED_AT_MILLIS, Long.class);
+        if (issuedAtMillis != null) {
+            return issuedAtMillis;
+        }
+        return claims.getIssuedAt() == null ? 0 : claims.getIssuedAt().getTime();
+    }
+
+    /**
+     * Also rejects tokens issued before the user's last password change, which is stored with the user and so holds
+     * after a restart and on nodes that never saw the change.
+     */
     public Authentication getAuthentication(String token) {
-        UserDetails userDetails = userDetailsService.loadUserByUsername(getEmail(token));
+        Claims claims = Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token).getBody();
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        if (userDetails instanceof UserDetailsImpl user && issuedAt(claims) < user.getTokensValidAfter()) {
+            throw new JwtAuthenticationException("Jwt token is revoked", HttpStatus.UNAUTHORIZED);
+        }
 
         /* возможно использовать userDetails.getPassword() - вместо "" */
         return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
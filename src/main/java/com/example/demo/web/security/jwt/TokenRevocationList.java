@@ -0,0 +1,222 @@
+package com.example.demo.web.security.jwt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Deny list of JWTs that were revoked before they expired, checked on every authenticated request.
+ * <p>
+ * Revoked token ids are kept in buckets by expiry time. A token can only be in the bucket its own {@code exp} falls
+ * into, so a check looks at exactly one bucket: a blocked Bloom filter over the UUID token id answers almost every check, and
+ * only a hit goes on to the exact set. Once every token in a bucket has expired the whole bucket is dropped, so revoked
+ * ids never outlive the tokens they deny.
+ * <p>
+ * Password changes and deletes revoke all tokens of a user at once with a cutoff on the issue time, which also covers
+ * tokens issued without an id. When more than {@code jwt.revocation.max-entries} ids are live, further revocations
+ * degrade to such a cutoff for the token's user, so memory stays bounded at the cost of ending the user's other
+ * sessions too.
+ * <p>
+ * The list lives in memory on each node and is lost on restart. That is enough for deletes, as a deleted user cannot
+ * authenticate anyway, but not for password changes, which are therefore also stored with the user, see
+ * {@link JwtTokenProvider#getAuthentication}. A revoked single token, e.g. on logout, stays valid on other nodes and
+ * after a restart until it expires.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final int HASHES = 4;
+
+    private final long bucketMillis;
+    private final long validityMillis;
+    private final int bloomBits;
+    private final int maxEntries;
+
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final Map<String, Long> cutoffs = new ConcurrentHashMap<>();
+    private final AtomicInteger entries = new AtomicInteger();
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    public TokenRevocationList(@Value("${jwt.expiration}") long validitySeconds,
+                               @Value("${jwt.revocation.buckets:8}") int bucketCount,
+                               @Value("${jwt.revocation.bloom-bits:1048576}") int bloomBits,
+                               @Value("${jwt.revocation.max-entries:1000000}") int maxEntries) {
+        if (Integer.bitCount(bloomBits) != 1 || bloomBits < Long.SIZE) {
+            throw new IllegalArgumentException("Bloom filter size must be a power of two of at least 64: " + bloomBits);
+        }
+        this.validityMillis = TimeUnit.SECONDS.toMillis(validitySeconds);
+        this.bucketMillis = Math.max(1, (validityMillis + bucketCount - 1) / bucketCount);
+        this.bloomBits = bloomBits;
+        this.maxEntries = maxEntries;
+        // live tokens expire within one validity period, so they span at most bucketCount + 1 consecutive buckets
+        this.buckets = new AtomicReferenceArray<>(bucketCount + 2);
+    }
+
+    /**
+     * Denies the token with the given id until it expires. Tokens of the subject may all be revoked instead if the
+     * list is full.
+     */
+    public void revoke(UUID tokenId, String subject, long expiresAtMillis) {
+        long now = System.currentTimeMillis();
+        sweep(now);
+        if (expiresAtMillis <= now) {
+            return;
+        }
+        if (entries.get() >= maxEntries) {
+            revokeIssuedBefore(subject, now);
+            return;
+        }
+        Bucket bucket = bucket(expiresAtMillis / bucketMillis);
+        if (bucket != null && bucket.add(tokenId)) {
+            entries.incrementAndGet();
+        }
+    }
+
+    /**
+     * Denies every token of the subject issued before the given time, to the millisecond. Tokens that only carry
+     * {@code iat} in whole seconds count as issued at the start of their second.
+     */
+    public void revokeIssuedBefore(String subject, long issuedAtMillis) {
+        long now = System.currentTimeMillis();
+        sweep(now);
+        cutoffs.merge(subject, issuedAtMillis, Math::max);
+    }
+
+    public boolean isRevoked(UUID tokenId, String subject, long issuedAtMillis, long expiresAtMillis) {
+        if (!cutoffs.isEmpty()) {
+            Long cutoff = cutoffs.get(subject);
+            if (cutoff != null && issuedAtMillis < cutoff) {
+                return true;
+            }
+        }
+        if (tokenId == null) {
+            return false;
+        }
+        long index = expiresAtMillis / bucketMillis;
+        Bucket bucket = buckets.get(slot(index));
+        return bucket != null && bucket.index == index && bucket.contains(tokenId);
+    }
+
+    int size() {
+        return entries.get();
+    }
+
+    int bucketCount() {
+        int count = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            if (buckets.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The bucket for the index, taking over its slot from a bucket whose tokens have all expired. Returns
+     * {@code null} if the slot already moved on to a later bucket, which means the token has expired too.
+     */
+    private Bucket bucket(long index) {
+        int slot = slot(index);
+        while (true) {
+            Bucket current = buckets.get(slot);
+            if (current != null && current.index >= index) {
+                return current.index == index ? current : null;
+            }
+            Bucket created = new Bucket(index, bloomBits);
+            if (buckets.compareAndSet(slot, current, created)) {
+                if (current != null) {
+                    entries.addAndGet(-current.ids.size());
+                }
+                return created;
+            }
+        }
+    }
+
+    private int slot(long index) {
+        return (int) Math.floorMod(index, (long) buckets.length());
+    }
+
+    /**
+     * Drops buckets whose tokens have all expired and cutoffs older than any token that could still be valid, at
+     * most once per bucket width.
+     */
+    private void sweep(long now) {
+        long due = nextSweep.get();
+        if (now < due || !nextSweep.compareAndSet(due, now + bucketMillis)) {
+            return;
+        }
+        for (int slot = 0; slot < buckets.length(); slot++) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket != null && (bucket.index + 1) * bucketMillis <= now
+                    && buckets.compareAndSet(slot, bucket, null)) {
+                entries.addAndGet(-bucket.ids.size());
+            }
+        }
+        cutoffs.values().removeIf(cutoff -> cutoff + validityMillis <= now);
+    }
+
+    private static final class Bucket {
+        private final long index;
+        private final AtomicLongArray bloom;
+        private final int mask;
+        private final Set<UUID> ids = ConcurrentHashMap.newKeySet();
+
+        private Bucket(long index, int bits) {
+            this.index = index;
+            this.bloom = new AtomicLongArray(bits / Long.SIZE);
+            this.mask = bits / Long.SIZE - 1;
+        }
+
+        /**
+         * Adds the id to the exact set before setting its bits, so a reader that sees all bits also sees the id.
+         */
+        private boolean add(UUID id) {
+            if (!ids.add(id)) {
+                return false;
+            }
+            bloom.getAndAccumulate(word(id), bits(id), (current, update) -> current | update);
+            return true;
+        }
+
+        private boolean contains(UUID id) {
+            long bits = bits(id);
+            return (bloom.get(word(id)) & bits) == bits && ids.contains(id);
+        }
+
+        /**
+         * All bits of an id are in one word, so a check costs a single cache miss however large the filter is.
+         */
+        private int word(UUID id) {
+            return (int) (mix(id.getMostSignificantBits()) & mask);
+        }
+
+        private static long bits(UUID id) {
+            long hash = mix(id.getLeastSignificantBits());
+            long bits = 0;
+            for (int i = 0; i < HASHES; i++, hash >>>= 6) {
+                bits |= 1L << hash;
+            }
+            return bits;
+        }
+
+        /**
+         * MurmurHash3 finalizer, spreads the fixed version and variant bits of the UUID over the whole word.
+         */
+        private static long mix(long value) {
+            value ^= value >>> 33;
+            value *= 0xff51afd7ed558ccdL;
+            value ^= value >>> 33;
+            value *= 0xc4ceb9fe1a85ec53L;
+            return value ^ (value >>> 33);
+        }
+    }
+}
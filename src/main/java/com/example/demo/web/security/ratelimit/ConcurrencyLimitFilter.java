@@ -0,0 +1,105 @@
+package com.example.demo.web.security.ratelimit;
+
+import com.example.demo.web.security.ratelimit.ConcurrencyLimiter.Priority;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sheds API requests with 503 once more of them are in flight than the service can handle without queueing, before
+ * they take a Tomcat thread for long or wait for a database connection. The limit adapts to observed latency, see
+ * {@link ConcurrencyLimiter}.
+ * <p>
+ * Reads get the whole limit, writes most of it and login and registration, which hash passwords with BCrypt, only half,
+ * so the directory stays responsive while they are shed. Those two routes are matched the way MVC matches them,
+ * trailing slash included. Runs ahead of the security filters so a shed request costs
+ * no token parsing either.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String API = "/api/";
+    private static final PathPattern LOGIN = PathPatternParser.defaultInstance.parse("/api/v1/auth/login");
+    private static final PathPattern REGISTER = PathPatternParser.defaultInstance.parse("/api/v1/users/register");
+
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+    private final ConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitFilter(@Value("${concurrency-limit.enabled:true}") boolean enabled,
+                                  @Value("${concurrency-limit.initial:50}") int initialLimit,
+                                  @Value("${concurrency-limit.min:10}") int minLimit,
+                                  @Value("${concurrency-limit.max:200}") int maxLimit,
+                                  @Value("${concurrency-limit.tolerance:2.0}") double tolerance,
+                                  @Value("${concurrency-limit.backoff:0.9}") double backoff,
+                                  @Value("${concurrency-limit.window:100}") long window,
+                                  @Value("${concurrency-limit.min-samples:20}") int minSamples,
+                                  @Value("${concurrency-limit.retry-after:1}") long retryAfterSeconds) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.limiter = new ConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, backoff,
+                window, TimeUnit.MILLISECONDS, minSamples);
+    }
+
+    public ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(API);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Priority priority = priorityOf(request);
+        if (!limiter.tryAcquire(priority)) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            return;
+        }
+        long started = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = !request.isAsyncStarted();
+        } finally {
+            if (completed) {
+                limiter.release(priority, System.nanoTime() - started);
+            } else {
+                limiter.release();
+            }
+        }
+    }
+
+    private static Priority priorityOf(HttpServletRequest request) {
+        PathContainer path = RequestPath.parse(request.getRequestURI(), request.getContextPath())
+                .pathWithinApplication();
+        if (LOGIN.matches(path) || REGISTER.matches(path)) {
+            return Priority.LOW;
+        }
+        String method = request.getMethod();
+        if (HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method)) {
+            return Priority.HIGH;
+        }
+        return Priority.NORMAL;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.demo.web.security.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds the number of requests in flight with a limit that adapts to the latency they see, additive increase and
+ * multiplicative decrease in the style of TCP congestion control.
+ * <p>
+ * Latencies are averaged over short windows, separately for every {@link Priority}, since the classes cost very
+ * different amounts: a BCrypt login takes far longer than any directory read, so comparing it to the fastest read would
+ * look like a queue forever. A window in which every class stays within {@code tolerance} times its own no-load
+ * baseline means the requests did not queue, so the limit grows by its square root if the window actually used half
+ * of it. A slower class means requests queued for threads or connections, so the limit is cut by {@code backoff}.
+ * The baseline of a class is the fastest of its requests seen: even a window that starts out overloaded has a few
+ * requests that did not queue. It follows a faster window at once and a slower one only slowly, so it tracks the
+ * service getting legitimately slower without chasing a queue. Like the rate limiter's sweep, each window is closed
+ * inline by the first request after it ends; samples recorded while it closes may count towards the next one.
+ * <p>
+ * Every {@link Priority} may only use its share of the limit, so cheap requests keep headroom once expensive ones
+ * start to be shed.
+ */
+public class ConcurrencyLimiter {
+
+    private static final double BASELINE_DRIFT = 0.01;
+
+    /**
+     * How much of the limit requests of a priority may use.
+     */
+    public enum Priority {
+        HIGH(1.0),
+        NORMAL(0.9),
+        LOW(0.5);
+
+        private final double share;
+
+        Priority(double share) {
+            this.share = share;
+        }
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoff;
+    private final long windowNanos;
+    private final int minSamples;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final Latencies[] latencies = new Latencies[Priority.values().length];
+    private final AtomicLong nextWindow;
+    private volatile int limit;
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoff,
+                              long window, TimeUnit unit, int minSamples) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(String.format(
+                    "Concurrency limits must satisfy 0 < min <= initial <= max: %d, %d, %d",
+                    minLimit, initialLimit, maxLimit));
+        }
+        if (tolerance <= 1 || backoff <= 0 || backoff >= 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Latency tolerance must be above 1 and backoff between 0 and 1: %s, %s", tolerance, backoff));
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoff = backoff;
+        this.windowNanos = unit.toNanos(window);
+        this.minSamples = Math.max(1, minSamples);
+        this.nextWindow = new AtomicLong(System.nanoTime() + windowNanos);
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new Latencies();
+        }
+    }
+
+    /**
+     * Takes a slot if requests of the priority are below their share of the limit. Every successful call must be
+     * followed by exactly one {@link #release}.
+     */
+    public boolean tryAcquire(Priority priority) {
+        int allowed = Math.max(1, (int) (limit * priority.share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                peakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Frees the slot of a request of the priority that completed in the given time and feeds that time into the limit.
+     */
+    public void release(Priority priority, long latencyNanos) {
+        inFlight.decrementAndGet();
+        samples.increment();
+        latencies[priority.ordinal()].record(latencyNanos);
+        closeWindowIfDue(System.nanoTime());
+    }
+
+    /**
+     * Frees the slot of a request whose latency says nothing about load, because it failed or went async.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void closeWindowIfDue(long now) {
+        long due = nextWindow.get();
+        if (now - due < 0 || samples.sum() < minSamples || !nextWindow.compareAndSet(due, now + windowNanos)) {
+            return;
+        }
+        samples.reset();
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        boolean queued = false;
+        for (Latencies priority : latencies) {
+            queued |= priority.closeWindow(tolerance);
+        }
+
+        int current = limit;
+        if (queued) {
+            limit = Math.max(minLimit, (int) (current * backoff));
+        } else if (peak * 2 >= current) {
+            limit = Math.min(maxLimit, current + Math.max(1, (int) Math.sqrt(current)));
+        }
+    }
+
+    /**
+     * Latencies of one priority in the current window. Only the thread closing a window updates the baseline.
+     */
+    private static class Latencies {
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong fastest = new AtomicLong(Long.MAX_VALUE);
+        private volatile double baseline;
+
+        void record(long latencyNanos) {
+            samples.increment();
+            total.add(latencyNanos);
+            if (latencyNanos < fastest.get()) {
+                fastest.accumulateAndGet(latencyNanos, Math::min);
+            }
+        }
+
+        /**
+         * Resets the window and tells whether its average was above {@code tolerance} times the baseline.
+         */
+        boolean closeWindow(double tolerance) {
+            long count = samples.sumThenReset();
+            long sum = total.sumThenReset();
+            long min = fastest.getAndSet(Long.MAX_VALUE);
+            if (count == 0 || min == Long.MAX_VALUE) {
+                return false;
+            }
+            baseline = baseline == 0 || min < baseline ? min : baseline + (min - baseline) * BASELINE_DRIFT;
+            return (double) sum / count > baseline * tolerance;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.web.security.ratelimit;
+
+import com.example.demo.web.security.UserDetailsImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits the unauthenticated entry points that are expensive to serve: login and registration hash passwords with
+ * BCrypt, and connect is open to anonymous clients. Clients are told apart by user id once the JWT filter has
+ * authenticated them, by remote address otherwise, and each route has its own limit. Routes are matched the way MVC
+ * matches them, so a trailing slash or a path parameter cannot get around the limit.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final PathPattern LOGIN = PathPatternParser.defaultInstance.parse("/api/v1/auth/login");
+    private static final PathPattern REGISTER = PathPatternParser.defaultInstance.parse("/api/v1/users/register");
+    private static final PathPattern CONNECT = PathPatternParser.defaultInstance.parse("/api/v1/rooms/connect/**");
+
+    private final boolean enabled;
+    private final RateLimiter loginLimiter;
+    private final RateLimiter registerLimiter;
+    private final RateLimiter connectLimiter;
+
+    public RateLimitFilter(@Value("${rate-limit.enabled:true}") boolean enabled,
+                           @Value("${rate-limit.period:60000}") long period,
+                           @Value("${rate-limit.login:10}") int loginPermits,
+                           @Value("${rate-limit.register:5}") int registerPermits,
+                           @Value("${rate-limit.connect:60}") int connectPermits,
+                           @Value("${rate-limit.idle-timeout:600000}") long idleTimeout) {
+        this.enabled = enabled;
+        this.loginLimiter = new RateLimiter(loginPermits, period, TimeUnit.MILLISECONDS, idleTimeout);
+        this.registerLimiter = new RateLimiter(registerPermits, period, TimeUnit.MILLISECONDS, idleTimeout);
+        this.connectLimiter = new RateLimiter(connectPermits, period, TimeUnit.MILLISECONDS, idleTimeout);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || limiterFor(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long wait = limiterFor(request).tryAcquire(clientKey(request));
+        if (wait > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(TimeUnit.NANOSECONDS.toSeconds(wait - 1) + 1));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private RateLimiter limiterFor(HttpServletRequest request) {
+        PathContainer path = RequestPath.parse(request.getRequestURI(), request.getContextPath())
+                .pathWithinApplication();
+        if (LOGIN.matches(path)) {
+            return loginLimiter;
+        }
+        if (REGISTER.matches(path)) {
+            return registerLimiter;
+        }
+        if (CONNECT.matches(path)) {
+            return connectLimiter;
+        }
+        return null;
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl user) {
+            return "user:" + user.getId();
+        }
+        return request.getRemoteAddr();
+    }
+}
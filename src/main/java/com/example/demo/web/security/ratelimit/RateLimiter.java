@@ -0,0 +1,71 @@
+package com.example.demo.web.security.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per key, implemented as the generic cell rate algorithm: a bucket is a single {@link AtomicLong}
+ * holding the theoretical arrival time of the next request, so taking a token is one CAS and refilling is implicit.
+ * <p>
+ * A bucket whose arrival time has passed is full and indistinguishable from a new one, so it is evicted by the sweep
+ * that the first request after every {@code idleTimeout} runs inline. A request racing with the sweep may land in an
+ * evicted bucket and go uncounted, which only ever errs on the side of letting one more request through.
+ */
+public class RateLimiter {
+
+    private final long emissionInterval;
+    private final long burstTolerance;
+    private final long idleTimeout;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep;
+
+    /**
+     * Allows {@code permits} requests per {@code period} for each key, all of which may arrive at once.
+     */
+    public RateLimiter(int permits, long period, TimeUnit unit, long idleTimeout) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Rate limit must allow at least one request: " + permits);
+        }
+        this.emissionInterval = unit.toNanos(period) / permits;
+        this.burstTolerance = emissionInterval * (permits - 1);
+        this.idleTimeout = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+        this.nextSweep = new AtomicLong(System.nanoTime() + this.idleTimeout);
+    }
+
+    /**
+     * Takes a token for the key. Returns {@code 0} if the request may proceed, otherwise the nanoseconds until it
+     * would.
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        sweepIfDue(now);
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, ignored -> new AtomicLong(now));
+        }
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + emissionInterval;
+            long wait = next - now - burstTolerance - emissionInterval;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now - due >= 0 && nextSweep.compareAndSet(due, now + idleTimeout)) {
+            buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        }
+    }
+}
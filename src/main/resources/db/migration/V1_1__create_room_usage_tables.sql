@@ -0,0 +1,23 @@
+-- room usage analytics; databases created by ddl-auto=update before Flyway are baselined at V1 and may or may not
+-- already have these tables
+create table if not exists room_sessions
+(
+    id               bigint generated by default as identity primary key,
+    room_id          bigint       not null,
+    owner_id         bigint,
+    username         varchar(255) not null,
+    joined_at        timestamp    not null,
+    left_at          timestamp    not null,
+    duration_seconds bigint       not null
+);
+
+create table if not exists room_usage_stats
+(
+    room_id               bigint primary key,
+    owner_id              bigint,
+    session_count         bigint  not null,
+    total_session_seconds bigint  not null,
+    peak_occupancy        integer not null,
+    last_joined_at        timestamp,
+    last_left_at          timestamp
+);
@@ -0,0 +1,22 @@
+create table if not exists users
+(
+    id            bigint generated by default as identity primary key,
+    email         varchar(255) not null unique,
+    username      varchar(255) not null,
+    password      varchar(255) not null,
+    date_creation timestamp    not null,
+    role          varchar(255),
+    status        varchar(255),
+    image_url     varchar(255)
+);
+
+create table if not exists rooms
+(
+    id              bigint generated by default as identity primary key,
+    name            varchar(255) not null,
+    date_creation   timestamp    not null,
+    is_private      boolean      not null default false,
+    password        varchar(255),
+    number_of_users integer      not null,
+    user_id         bigint       not null references users (id)
+);
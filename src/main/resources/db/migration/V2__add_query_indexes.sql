@@ -0,0 +1,12 @@
+-- findByName, on every connect by name and disconnect fallback
+create index idx_rooms_name on rooms (name);
+-- findAllByUserId, findIdsByUserId and the set-based deletes on user removal
+create index idx_rooms_user_id on rooms (user_id);
+-- room listings sorted by creation date
+create index idx_rooms_date_creation on rooms (date_creation);
+-- findByUsername, on every authenticated connect
+create index idx_users_username on users (username);
+-- session history of a room
+create index idx_room_sessions_room_id on room_sessions (room_id);
+-- owner usage summary
+create index idx_room_usage_stats_owner_id on room_usage_stats (owner_id);
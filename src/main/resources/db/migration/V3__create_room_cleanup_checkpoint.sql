@@ -0,0 +1,7 @@
+-- progress of the idle room cleanup, so a pass resumes after a restart
+create table if not exists room_cleanup_checkpoint
+(
+    job          varchar(64) primary key,
+    last_room_id bigint      not null,
+    updated_at   timestamp   not null
+);
@@ -0,0 +1,12 @@
+-- room chat, written in batches off the send path; sequence is per room and only grows
+create table if not exists room_messages
+(
+    id       bigint generated by default as identity primary key,
+    room_id  bigint        not null,
+    sequence bigint        not null,
+    username varchar(255)  not null,
+    body     varchar(2000) not null,
+    sent_at  timestamp     not null
+);
+
+create index idx_room_messages_room_id_sequence on room_messages (room_id, sequence);
@@ -0,0 +1,9 @@
+-- presence and chat identify users by username, so two accounts must never share one; where they already do, every
+-- account but the oldest gets its id appended
+update users
+set username = username || '#' || id
+where exists (select 1 from users older where older.username = users.username and older.id < users.id);
+
+-- the unique constraint brings its own index
+drop index if exists idx_users_username;
+alter table users add constraint uk_users_username unique (username);
@@ -0,0 +1,3 @@
+-- tokens issued before this time were revoked by a password change, kept here so the revocation survives restarts
+-- and holds on every node
+alter table users add column tokens_valid_after timestamp;
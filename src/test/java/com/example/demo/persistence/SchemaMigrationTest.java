@@ -0,0 +1,125 @@
+package com.example.demo.persistence;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+class SchemaMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migrationsShouldBeAppliedAndValidatedByHibernate() {
+        // Then
+        assertEquals(7, flyway.info().applied().length);
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    void findByNameShouldUseRoomsNameIndex() {
+        assertUsesIndex("select * from rooms where name = 'room'", "IDX_ROOMS_NAME");
+    }
+
+    @Test
+    void findAllByUserIdShouldUseIndexOnRoomsUserId() {
+        // H2 also indexes foreign keys on its own and may pick that index instead, PostgreSQL needs ours
+        String plan = explain("select * from rooms where user_id = 1 offset 0 rows fetch first 20 rows only");
+        assertTrue(plan.contains("USER_ID = "), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    void listingSortedByCreationDateShouldReadRoomsDateCreationIndex() {
+        String plan = explain("select * from rooms order by date_creation fetch first 20 rows only");
+        assertTrue(plan.contains("IDX_ROOMS_DATE_CREATION") && plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    void findByUsernameShouldUseIndexOfUniqueUsername() {
+        String plan = explain("select * from users where username = 'user'");
+        assertTrue(plan.contains("USERNAME = "), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    void usernameShouldBeUnique() {
+        // Given
+        jdbcTemplate.update("insert into users (email, username, password, role, date_creation) "
+                + "values ('first@example.com', 'twin', 'password', 'USER', current_timestamp)");
+
+        // When and Then
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "insert into users (email, username, password, role, date_creation) "
+                        + "values ('second@example.com', 'twin', 'password', 'USER', current_timestamp)"));
+    }
+
+    @Test
+    void repeatedStartupShouldOnlyValidateMigrations() {
+        // Given
+        Flyway fresh = Flyway.configure()
+                .dataSource("jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1", "sa", "")
+                .load();
+        int applied = fresh.migrate().migrationsExecuted;
+
+        // When
+        int reapplied = fresh.migrate().migrationsExecuted;
+
+        // Then
+        assertEquals(7, applied);
+        assertEquals(0, reapplied);
+    }
+
+    @Test
+    void databaseCreatedBeforeMigrationsShouldBeBaselinedAndGetMissingTables() {
+        // Given
+        JdbcTemplate legacy = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:legacy;DB_CLOSE_DELAY=-1",
+                "sa", ""));
+        legacy.execute("create table users (id bigint generated by default as identity primary key, "
+                + "date_creation timestamp not null, email varchar(255) not null unique, image_url varchar(255), "
+                + "password varchar(255) not null, role varchar(255), status varchar(255), "
+                + "username varchar(255) not null)");
+        legacy.execute("create table rooms (id bigint generated by default as identity primary key, "
+                + "date_creation timestamp not null, is_private boolean not null, name varchar(255) not null, "
+                + "number_of_users integer not null, password varchar(255), "
+                + "user_id bigint not null references users (id))");
+        legacy.update("insert into users (email, username, password, role, date_creation) "
+                + "values ('owner@example.com', 'owner', 'password', 'USER', current_timestamp)");
+        Flyway flyway = Flyway.configure()
+                .dataSource("jdbc:h2:mem:legacy;DB_CLOSE_DELAY=-1", "sa", "")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+
+        // When
+        int applied = flyway.migrate().migrationsExecuted;
+
+        // Then
+        assertEquals(6, applied);
+        assertEquals(1, legacy.queryForObject("select count(*) from users", Integer.class));
+        assertEquals(0, legacy.queryForObject("select count(*) from room_sessions", Integer.class));
+        assertEquals(0, legacy.queryForObject("select count(*) from room_usage_stats", Integer.class));
+    }
+
+    private void assertUsesIndex(String query, String index) {
+        String plan = explain(query);
+        assertTrue(plan.contains(index), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    private String explain(String query) {
+        return jdbcTemplate.queryForObject("explain " + query, String.class);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.demo.persistence.datasource;
+
+import com.example.demo.exception.RoomNotFoundException;
+import com.example.demo.persistence.dto.RoomCreateDto;
+import com.example.demo.persistence.dto.UserCreateDto;
+import com.example.demo.persistence.dto.UserProfileReadDto;
+import com.example.demo.persistence.model.Room;
+import com.example.demo.persistence.model.User;
+import com.example.demo.persistence.model.enums.Role;
+import com.example.demo.persistence.repository.UserRepository;
+import com.example.demo.service.avatar.AvatarStore;
+import com.example.demo.service.cluster.ClusterPresence;
+import com.example.demo.service.cluster.RoomOwnership;
+import com.example.demo.service.directory.PopularRooms;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.impl.RoomServiceImpl;
+import com.example.demo.service.impl.UserServiceImpl;
+import com.example.demo.service.presence.PresenceJournal;
+import com.example.demo.service.presence.RoomPresence;
+import com.example.demo.service.presence.RoomWaitlist;
+import com.example.demo.web.security.jwt.TokenRevocationList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "datasource.replicas.enabled=true",
+        "datasource.replicas.urls=" + ReplicaDataSourceConfigTest.REPLICA_URL
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReplicaDataSourceConfig.class, UserServiceImpl.class, RoomServiceImpl.class, RoomPresence.class,
+        RoomWaitlist.class, PresenceJournal.class, RoomEventBus.class, AvatarStore.class,
+        TokenRevocationList.class, PopularRooms.class,
+        RoomOwnership.class, ClusterPresence.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReplicaDataSourceConfigTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private RoomServiceImpl roomService;
+    @Autowired
+    private UserServiceImpl userService;
+    @Autowired
+    private UserRepository userRepository;
+    @MockBean
+    private ModelMapper modelMapper;
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    private final JdbcTemplate replica = new JdbcTemplate(DataSourceBuilder.create()
+            .url(REPLICA_URL)
+            .username("sa")
+            .password("")
+            .build());
+    private JdbcTemplate primary;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(dataSource);
+        // stands in for replication: same schema, but none of the primary's rows
+        List<String> schema = primary.queryForList("script nodata", String.class);
+        replica.execute("drop all objects");
+        schema.stream()
+                .filter(statement -> !statement.startsWith("CREATE USER"))
+                .forEach(replica::execute);
+        primary.execute("delete from rooms");
+        primary.execute("delete from users");
+    }
+
+    @Test
+    void writesShouldGoToPrimaryAndReadOnlyTransactionsToReplica() {
+        // Given
+        User owner = userRepository.save(User.builder()
+                .email("owner@example.com")
+                .username("owner")
+                .password("password")
+                .role(Role.USER)
+                .build());
+        RoomCreateDto roomDto = new RoomCreateDto();
+        roomDto.setName("primary-room");
+        roomDto.setNumberOfUsers(2);
+        when(modelMapper.map(any(RoomCreateDto.class), eq(Room.class)))
+                .thenReturn(Room.builder().name("primary-room").numberOfUsers(2).build());
+        replica.update("insert into users (id, email, username, password, role, date_creation) "
+                + "values (100, 'replica@example.com', 'replica', 'password', 'USER', current_timestamp)");
+        replica.update("insert into rooms (id, name, number_of_users, is_private, user_id, date_creation) "
+                + "values (100, 'replica-room', 2, false, 100, current_timestamp)");
+        when(modelMapper.map(any(User.class), eq(UserProfileReadDto.class))).thenAnswer(invocation ->
+                UserProfileReadDto.builder().username(invocation.<User>getArgument(0).getUsername()).build());
+
+        // When
+        roomService.create(roomDto, owner.getId());
+
+        // Then
+        assertEquals(1, primary.queryForObject("select count(*) from rooms where name = 'primary-room'", Long.class));
+        assertEquals(0, replica.queryForObject("select count(*) from rooms where name = 'primary-room'", Long.class));
+        assertEquals(100L, roomService.getRoomIdByName("replica-room"));
+        assertThrows(RoomNotFoundException.class, () -> roomService.getRoomIdByName("primary-room"));
+        assertEquals("replica", userService.getById(100L).getUsername());
+    }
+
+    @Test
+    void userWritesShouldGoToPrimary() {
+        // Given
+        UserCreateDto userDto = UserCreateDto.builder()
+                .email("new@example.com")
+                .username("new")
+                .password("password")
+                .build();
+        when(passwordEncoder.encode("password")).thenReturn("encoded");
+        when(modelMapper.map(any(UserCreateDto.class), eq(User.class))).thenReturn(User.builder()
+                .email("new@example.com")
+                .username("new")
+                .password("encoded")
+                .role(Role.USER)
+                .build());
+
+        // When
+        userService.addUser(userDto);
+
+        // Then
+        assertEquals(1, primary.queryForObject("select count(*) from users", Long.class));
+        assertEquals(0, replica.queryForObject("select count(*) from users", Long.class));
+    }
+}
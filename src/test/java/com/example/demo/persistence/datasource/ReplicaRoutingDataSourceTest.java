@@ -0,0 +1,128 @@
+package com.example.demo.persistence.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource firstReplica;
+    @Mock
+    private DataSource secondReplica;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection firstConnection;
+    @Mock
+    private Connection secondConnection;
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void getConnectionShouldUsePrimaryOutsideReadOnlyTransactions() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(firstReplica), 1_000);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // When
+        Connection connection = dataSource.getConnection();
+
+        // Then
+        assertSame(primaryConnection, connection);
+        verifyNoInteractions(firstReplica);
+    }
+
+    @Test
+    void getConnectionShouldRotateOverReplicasInReadOnlyTransactions() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource dataSource =
+                new ReplicaRoutingDataSource(primary, List.of(firstReplica, secondReplica), 1_000);
+        when(firstReplica.getConnection()).thenReturn(firstConnection);
+        when(secondReplica.getConnection()).thenReturn(secondConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // When
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        Connection third = dataSource.getConnection();
+
+        // Then
+        assertSame(firstConnection, first);
+        assertSame(secondConnection, second);
+        assertSame(firstConnection, third);
+        verify(firstConnection, times(2)).setReadOnly(true);
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void getConnectionShouldSkipFailedReplicaUntilRetryInterval() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource dataSource =
+                new ReplicaRoutingDataSource(primary, List.of(firstReplica, secondReplica), 60_000);
+        when(firstReplica.getConnection()).thenThrow(new SQLException("replica is down"));
+        when(secondReplica.getConnection()).thenReturn(secondConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // When
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        Connection third = dataSource.getConnection();
+
+        // Then
+        assertSame(secondConnection, first);
+        assertSame(secondConnection, second);
+        assertSame(secondConnection, third);
+        verify(firstReplica, times(1)).getConnection();
+    }
+
+    @Test
+    void getConnectionShouldFallBackToPrimaryWhenNoReplicaIsAvailable() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(firstReplica), 60_000);
+        when(firstReplica.getConnection()).thenThrow(new SQLException("replica is down"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // When
+        Connection connection = dataSource.getConnection();
+
+        // Then
+        assertSame(primaryConnection, connection);
+    }
+
+    @Test
+    void getConnectionWithCredentialsShouldRouteLikeGetConnection() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(firstReplica), 1_000);
+        when(primary.getConnection("app", "secret")).thenReturn(primaryConnection);
+        when(firstReplica.getConnection("app", "secret")).thenReturn(firstConnection);
+
+        // When
+        Connection write = dataSource.getConnection("app", "secret");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Connection read = dataSource.getConnection("app", "secret");
+
+        // Then
+        assertSame(primaryConnection, write);
+        assertSame(firstConnection, read);
+        verify(firstConnection).setReadOnly(true);
+    }
+}
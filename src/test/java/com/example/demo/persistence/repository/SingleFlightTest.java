@@ -0,0 +1,120 @@
+package com.example.demo.persistence.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    private static final int CALLERS = 64;
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void loadShouldShareOneQueryBetweenConcurrentCallersOfSameKey() throws Exception {
+        // Given
+        AtomicInteger queries = new AtomicInteger();
+
+        // When
+        List<String> results = burst(key -> singleFlight.load(key, () -> {
+            queries.incrementAndGet();
+            hold();
+            return "room";
+        }), i -> "popular");
+
+        // Then
+        assertEquals(1, queries.get());
+        assertEquals(CALLERS, results.size());
+        assertTrue(results.stream().allMatch("room"::equals));
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    void loadShouldQueryEachKeySeparately() throws Exception {
+        // Given
+        AtomicInteger queries = new AtomicInteger();
+
+        // When
+        List<String> results = burst(key -> singleFlight.load(key, () -> {
+            queries.incrementAndGet();
+            hold();
+            return key;
+        }), i -> "room" + i % 4);
+
+        // Then
+        assertEquals(4, queries.get());
+        assertEquals(CALLERS / 4, results.stream().filter("room0"::equals).count());
+    }
+
+    @Test
+    void loadShouldShareFailureAndForgetKey() throws Exception {
+        // Given
+        AtomicInteger queries = new AtomicInteger();
+
+        // When
+        List<String> results = burst(key -> {
+            try {
+                return singleFlight.load(key, () -> {
+                    queries.incrementAndGet();
+                    hold();
+                    throw new IllegalStateException("database is down");
+                });
+            } catch (IllegalStateException e) {
+                return e.getMessage();
+            }
+        }, i -> "popular");
+        String next = singleFlight.load("popular", () -> "room");
+
+        // Then
+        assertEquals(1, queries.get());
+        assertTrue(results.stream().allMatch("database is down"::equals));
+        assertEquals("room", next);
+    }
+
+    /**
+     * Releases all callers at once from a barrier and lets the queries finish only once every caller is waiting,
+     * either in a query or for one, so they all arrive while the first query is still running.
+     */
+    private List<String> burst(Function<String, String> call, IntFunction<String> keys) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        CyclicBarrier start = new CyclicBarrier(CALLERS);
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        AtomicInteger arrived = new AtomicInteger();
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            String key = keys.apply(i);
+            futures.add(executor.submit(() -> {
+                threads.add(Thread.currentThread());
+                start.await();
+                arrived.incrementAndGet();
+                return call.apply(key);
+            }));
+        }
+        while (arrived.get() < CALLERS
+                || !threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        List<String> results = new ArrayList<>();
+        for (Future<String> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    private void hold() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
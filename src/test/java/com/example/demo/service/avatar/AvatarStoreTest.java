@@ -0,0 +1,94 @@
+package com.example.demo.service.avatar;
+
+import com.example.demo.exception.InvalidAvatarException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvatarStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void storeShouldWriteSquareThumbnailOfEverySizeUnderContentHash() throws IOException {
+        // Given
+        AvatarStore avatarStore = new AvatarStore(directory, new Integer[]{256, 64}, 4096);
+        byte[] image = png(300, 200, Color.RED);
+
+        // When
+        String hash = avatarStore.store(image);
+
+        // Then
+        assertTrue(hash.matches("[0-9a-f]{64}"));
+        for (int size : new int[]{64, 256}) {
+            Path path = avatarStore.find(hash, size);
+            assertEquals(directory.resolve(hash.substring(0, 2)).resolve(hash + "-" + size + ".png"), path);
+            BufferedImage thumbnail = ImageIO.read(path.toFile());
+            assertEquals(size, thumbnail.getWidth());
+            assertEquals(size, thumbnail.getHeight());
+            assertEquals(Color.RED.getRGB(), thumbnail.getRGB(size / 2, size / 2));
+        }
+    }
+
+    @Test
+    void storeShouldNotRewriteAvatarThatIsAlreadyStored() throws IOException {
+        // Given
+        AvatarStore avatarStore = new AvatarStore(directory, new Integer[]{64}, 4096);
+        byte[] image = png(100, 100, Color.BLUE);
+        String hash = avatarStore.store(image);
+        Path path = avatarStore.find(hash, 64);
+        long modified = Files.getLastModifiedTime(path).toMillis() - 60_000;
+        Files.setLastModifiedTime(path, FileTime.fromMillis(modified));
+
+        // When
+        String again = avatarStore.store(image);
+
+        // Then
+        assertEquals(hash, again);
+        assertEquals(modified, Files.getLastModifiedTime(path).toMillis());
+    }
+
+    @Test
+    void storeShouldRejectImagesThatAreNotImagesOrTooLarge() throws IOException {
+        // Given
+        AvatarStore avatarStore = new AvatarStore(directory, new Integer[]{64}, 512);
+
+        // Then
+        assertThrows(InvalidAvatarException.class, () -> avatarStore.store("not an image".getBytes()));
+        assertThrows(InvalidAvatarException.class, () -> avatarStore.store(png(1024, 16, Color.GREEN)));
+    }
+
+    @Test
+    void findShouldReturnNullForMalformedHashUnknownSizeOrMissingFile() throws IOException {
+        // Given
+        AvatarStore avatarStore = new AvatarStore(directory, new Integer[]{64}, 4096);
+        String hash = avatarStore.store(png(64, 64, Color.BLACK));
+
+        // Then
+        assertNotNull(avatarStore.find(hash, 64));
+        assertNull(avatarStore.find(hash, 128));
+        assertNull(avatarStore.find("../" + hash.substring(3), 64));
+        assertNull(avatarStore.find("0".repeat(64), 64));
+    }
+
+    static byte[] png(int width, int height, Color color) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
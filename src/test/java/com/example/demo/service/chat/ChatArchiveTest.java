@@ -0,0 +1,89 @@
+package com.example.demo.service.chat;
+
+import com.example.demo.persistence.dto.ChatMessageDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "rooms.chat.archive.batch-size=64"
+})
+@Import(ChatArchive.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChatArchiveTest {
+    private static final int MESSAGES = 1_000;
+
+    @Autowired
+    private ChatArchive chatArchive;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from room_messages");
+    }
+
+    @Test
+    void archiveShouldWriteQueuedMessagesInOrder() throws InterruptedException {
+        // When
+        for (int i = 1; i <= MESSAGES; i++) {
+            assertTrue(chatArchive.offer(1L, new ChatMessageDto(i, "user" + i % 10, "message " + i, 1_000L * i)));
+        }
+        awaitUntil(() -> count() == MESSAGES);
+
+        // Then
+        List<Long> sequences = jdbcTemplate.queryForList(
+                "select sequence from room_messages where room_id = 1 order by id", Long.class);
+        assertEquals(MESSAGES, sequences.size());
+        assertEquals(1L, sequences.get(0));
+        assertEquals((long) MESSAGES, sequences.get(MESSAGES - 1));
+        assertEquals("message 42", jdbcTemplate.queryForObject(
+                "select body from room_messages where sequence = 42", String.class));
+        assertEquals(0, chatArchive.getDroppedCount());
+    }
+
+    @Test
+    void deleteShouldRemoveWrittenAndQueuedMessagesOfRoom() throws InterruptedException {
+        // Given
+        for (int i = 1; i <= MESSAGES; i++) {
+            chatArchive.offer(1L, new ChatMessageDto(i, "user", "message " + i, 1_000L * i));
+            chatArchive.offer(2L, new ChatMessageDto(i, "user", "message " + i, 1_000L * i));
+        }
+
+        // When
+        chatArchive.delete(1L);
+        awaitUntil(() -> count(2L) == MESSAGES);
+
+        // Then
+        assertEquals(0, count(1L));
+        assertEquals(MESSAGES, count(2L));
+    }
+
+    private int count(Long roomId) {
+        return jdbcTemplate.queryForObject("select count(*) from room_messages where room_id = ?", Integer.class,
+                roomId);
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("select count(*) from room_messages", Integer.class);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo.service.chat;
+
+import com.example.demo.persistence.dto.ChatMessageDto;
+import com.example.demo.persistence.dto.ConnectedUserDto;
+import com.example.demo.persistence.model.Room;
+import com.example.demo.service.ConnectionOutcome;
+import com.example.demo.service.chat.RoomChatTest.CountingListener;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.presence.PresenceJournal;
+import com.example.demo.service.presence.RoomPresence;
+import com.example.demo.service.presence.RoomWaitlist;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import static com.example.demo.service.chat.RoomChatTest.awaitUntil;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@Tag("benchmark")
+class RoomChatBenchmark {
+    private static final int CAPACITY = 100;
+    private static final int HISTORY_SIZE = 100;
+    private static final int SENDERS = 4;
+    private static final int MESSAGES_PER_SENDER = 5_000;
+
+    private final RoomEventBus roomEventBus = new RoomEventBus(1024);
+    private final RoomPresence roomPresence = new RoomPresence(new RoomWaitlist(60_000, 10),
+            new PresenceJournal(false, null, 0, 0), roomEventBus);
+    private final ChatArchive chatArchive = mock(ChatArchive.class, withSettings().stubOnly());
+    private final Room room = Room.builder().id(1L).name("Standup").numberOfUsers(CAPACITY).build();
+    private final Queue<ChatMessageDto> archived = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void setUp() {
+        when(chatArchive.offer(any(), any())).thenAnswer(invocation -> archived.add(invocation.getArgument(1)));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        roomEventBus.shutdown();
+    }
+
+    @Test
+    void chatShouldKeepUpWithFullRoom() throws InterruptedException {
+        // Given
+        RoomChat roomChat = new RoomChat(roomPresence, roomEventBus, chatArchive, HISTORY_SIZE, 2, 2,
+                SENDERS * MESSAGES_PER_SENDER);
+        List<CountingListener> listeners = new ArrayList<>();
+        for (int i = 0; i < CAPACITY; i++) {
+            join("user" + i);
+            CountingListener listener = new CountingListener();
+            assertTrue(roomChat.subscribe(room.getId(), "user" + i, 0, listener));
+            listeners.add(listener);
+        }
+
+        // When
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> senders = new ArrayList<>();
+        for (int s = 0; s < SENDERS; s++) {
+            String username = "user" + s;
+            Thread sender = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < MESSAGES_PER_SENDER; i++) {
+                    assertNotNull(roomChat.send(room.getId(), username, "message " + i));
+                }
+            });
+            sender.start();
+            senders.add(sender);
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        long sendNanos = System.nanoTime() - started;
+        List<ChatMessageDto> history = roomChat.history(room.getId(), "user0", 0);
+        long last = history.get(history.size() - 1).getSequence();
+        awaitUntil(() -> listeners.stream().allMatch(listener -> listener.lastSequence == last));
+        long deliverNanos = System.nanoTime() - started;
+
+        // Then
+        long delivered = 0;
+        for (CountingListener listener : listeners) {
+            assertEquals(last, listener.lastSequence);
+            assertTrue(listener.ordered);
+            delivered += listener.messages;
+        }
+        int messages = SENDERS * MESSAGES_PER_SENDER;
+        assertEquals(messages, archived.size());
+        roomChat.shutdown();
+        System.out.printf("%d members, %d senders: %.0f messages/s sent, %.0f deliveries/s in %.0f calls per member, "
+                        + "%.1f%% overrun the history%n",
+                CAPACITY, SENDERS, messages / (sendNanos / 1e9), delivered / (deliverNanos / 1e9),
+                listeners.stream().mapToLong(listener -> listener.calls).average().orElse(0),
+                100.0 - 100.0 * delivered / ((long) messages * CAPACITY));
+    }
+
+    private void join(String username) {
+        assertEquals(ConnectionOutcome.CONNECTED,
+                roomPresence.connect(room, ConnectedUserDto.builder().username(username).build()));
+    }
+}
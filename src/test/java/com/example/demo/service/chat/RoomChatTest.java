@@ -0,0 +1,295 @@
+package com.example.demo.service.chat;
+
+import com.example.demo.persistence.dto.ChatMessageDto;
+import com.example.demo.persistence.dto.ConnectedUserDto;
+import com.example.demo.persistence.model.Room;
+import com.example.demo.service.ConnectionOutcome;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.event.RoomEventType;
+import com.example.demo.service.presence.PresenceJournal;
+import com.example.demo.service.presence.RoomPresence;
+import com.example.demo.service.presence.RoomWaitlist;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RoomChatTest {
+    private static final int CAPACITY = 100;
+    private static final int HISTORY_SIZE = 100;
+    private static final int SENDERS = 4;
+    private static final int MESSAGES_PER_SENDER = 500;
+
+    private final RoomEventBus roomEventBus = new RoomEventBus(1024);
+    private final RoomPresence roomPresence = new RoomPresence(new RoomWaitlist(60_000, 10),
+            new PresenceJournal(false, null, 0, 0), roomEventBus);
+    private final ChatArchive chatArchive = mock(ChatArchive.class, withSettings().stubOnly());
+    private final RoomChat roomChat = new RoomChat(roomPresence, roomEventBus, chatArchive, 10, 2, 2, 4);
+    private final Room room = Room.builder().id(1L).name("Standup").numberOfUsers(CAPACITY).build();
+    private final Queue<ChatMessageDto> archived = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> deletedFromArchive = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void setUp() {
+        when(chatArchive.offer(any(), any())).thenAnswer(invocation -> archived.add(invocation.getArgument(1)));
+        doAnswer(invocation -> deletedFromArchive.add(invocation.getArgument(0))).when(chatArchive).delete(any());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        roomChat.shutdown();
+        roomEventBus.shutdown();
+    }
+
+    @Test
+    void historyShouldKeepOnlyMostRecentMessages() {
+        // Given
+        join("alice");
+        List<ChatMessageDto> sent = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            sent.add(roomChat.send(room.getId(), "alice", "message " + i));
+        }
+
+        // When
+        List<ChatMessageDto> history = roomChat.history(room.getId(), "alice", 0);
+        List<ChatMessageDto> recent = roomChat.history(room.getId(), "alice", sent.get(21).getSequence());
+
+        // Then
+        assertEquals(sent.subList(15, 25), history);
+        assertEquals(sent.subList(22, 25), recent);
+        assertNull(roomChat.history(2L, "alice", 0));
+    }
+
+    @Test
+    void chatShouldBeRejectedForUserNotInRoom() {
+        // Given
+        join("alice");
+
+        // When
+        ChatMessageDto message = roomChat.send(room.getId(), "mallory", "hello");
+        boolean subscribed = roomChat.subscribe(room.getId(), "mallory", 0, new RecordingListener());
+
+        // Then
+        assertNull(message);
+        assertFalse(subscribed);
+        assertNull(roomChat.history(room.getId(), "mallory", 0));
+        assertEquals(List.of(), roomChat.history(room.getId(), "alice", 0));
+    }
+
+    @Test
+    void messagesShouldFanOutToMembersAndReachArchive() throws InterruptedException {
+        // Given
+        join("alice");
+        join("bob");
+        RecordingListener alice = new RecordingListener();
+        RecordingListener bob = new RecordingListener();
+        roomChat.send(room.getId(), "alice", "before bob listened");
+        assertTrue(roomChat.subscribe(room.getId(), "alice", 0, alice));
+        assertTrue(roomChat.subscribe(room.getId(), "bob", 0, bob));
+
+        // When
+        ChatMessageDto last = roomChat.send(room.getId(), "bob", "hi");
+        awaitUntil(() -> alice.lastSequence() == last.getSequence() && bob.lastSequence() == last.getSequence());
+
+        // Then
+        assertEquals(List.of("before bob listened", "hi"), alice.texts());
+        assertEquals(List.of("before bob listened", "hi"), bob.texts());
+        assertEquals(List.of(alice.received.get(0), last), List.copyOf(archived));
+    }
+
+    @Test
+    void listenerShouldBeClosedWhenUserLeavesRoom() throws InterruptedException {
+        // Given
+        roomChat.subscribe();
+        join("alice");
+        join("bob");
+        RecordingListener alice = new RecordingListener();
+        RecordingListener bob = new RecordingListener();
+        roomChat.subscribe(room.getId(), "alice", 0, alice);
+        roomChat.subscribe(room.getId(), "bob", 0, bob);
+
+        // When
+        roomPresence.disconnect("alice", room.getName());
+        awaitUntil(() -> alice.closed.getCount() == 0);
+        ChatMessageDto last = roomChat.send(room.getId(), "bob", "alice left");
+        awaitUntil(() -> bob.lastSequence() == last.getSequence());
+
+        // Then
+        assertEquals(List.of(), alice.texts());
+        assertEquals(List.of("alice left"), bob.texts());
+        assertEquals(1, bob.closed.getCount());
+        assertNull(roomChat.send(room.getId(), "alice", "still here?"));
+    }
+
+    @Test
+    void slowListenerShouldBeClosedWithoutHoldingUpOthers() throws InterruptedException {
+        // Given
+        join("alice");
+        join("bob");
+        CountDownLatch stalled = new CountDownLatch(1);
+        RecordingListener slow = new RecordingListener() {
+            @Override
+            public boolean deliver(List<ChatMessageDto> messages) {
+                try {
+                    stalled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.deliver(messages);
+            }
+        };
+        RecordingListener fast = new RecordingListener();
+        roomChat.subscribe(room.getId(), "alice", 0, slow);
+        roomChat.subscribe(room.getId(), "bob", 0, fast);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            ChatMessageDto message = roomChat.send(room.getId(), "bob", "message " + i);
+            awaitUntil(() -> fast.lastSequence() == message.getSequence());
+        }
+        awaitUntil(() -> slow.closed.getCount() == 0);
+        stalled.countDown();
+
+        // Then
+        assertEquals(10, fast.texts().size());
+        assertEquals(1, fast.closed.getCount());
+        assertEquals(0, slow.closed.getCount());
+        assertEquals(1, roomChat.getOverflowCount());
+    }
+
+    @Test
+    void deletingRoomShouldCloseListenersAndDropHistoryAndArchive() throws InterruptedException {
+        // Given
+        roomChat.subscribe();
+        join("alice");
+        RecordingListener alice = new RecordingListener();
+        roomChat.subscribe(room.getId(), "alice", 0, alice);
+        roomChat.send(room.getId(), "alice", "hello");
+
+        // When
+        roomEventBus.publish(RoomEventType.DELETED, room.getId(), null, null, 0, null, 0);
+        awaitUntil(() -> alice.closed.getCount() == 0 && !deletedFromArchive.isEmpty());
+
+        // Then
+        assertEquals(0, alice.closed.getCount());
+        assertEquals(List.of(room.getId()), List.copyOf(deletedFromArchive));
+        assertEquals(List.of(), roomChat.history(room.getId(), "alice", 0));
+    }
+
+    @Test
+    void everyMemberOfFullRoomShouldReceiveAllMessagesInOrder() throws InterruptedException {
+        // Given
+        RoomChat roomChat = new RoomChat(roomPresence, roomEventBus, chatArchive, HISTORY_SIZE, 2, 2,
+                SENDERS * MESSAGES_PER_SENDER);
+        List<CountingListener> listeners = new ArrayList<>();
+        for (int i = 0; i < CAPACITY; i++) {
+            join("user" + i);
+            CountingListener listener = new CountingListener();
+            assertTrue(roomChat.subscribe(room.getId(), "user" + i, 0, listener));
+            listeners.add(listener);
+        }
+
+        // When
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> senders = new ArrayList<>();
+        for (int s = 0; s < SENDERS; s++) {
+            String username = "user" + s;
+            Thread sender = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < MESSAGES_PER_SENDER; i++) {
+                    assertNotNull(roomChat.send(room.getId(), username, "message " + i));
+                }
+            });
+            sender.start();
+            senders.add(sender);
+        }
+        start.countDown();
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        List<ChatMessageDto> history = roomChat.history(room.getId(), "user0", 0);
+        long last = history.get(history.size() - 1).getSequence();
+        awaitUntil(() -> listeners.stream().allMatch(listener -> listener.lastSequence == last));
+
+        // Then
+        for (CountingListener listener : listeners) {
+            assertEquals(last, listener.lastSequence);
+            assertTrue(listener.ordered);
+        }
+        assertEquals(SENDERS * MESSAGES_PER_SENDER, archived.size());
+        roomChat.shutdown();
+    }
+
+    private void join(String username) {
+        assertEquals(ConnectionOutcome.CONNECTED,
+                roomPresence.connect(room, ConnectedUserDto.builder().username(username).build()));
+    }
+
+    static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static class RecordingListener implements ChatListener {
+        private final List<ChatMessageDto> received = new CopyOnWriteArrayList<>();
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public boolean deliver(List<ChatMessageDto> messages) {
+            received.addAll(messages);
+            return true;
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        private long lastSequence() {
+            return received.isEmpty() ? 0 : received.get(received.size() - 1).getSequence();
+        }
+
+        private List<String> texts() {
+            return received.stream().map(ChatMessageDto::getText).toList();
+        }
+    }
+
+    static class CountingListener implements ChatListener {
+        volatile long lastSequence;
+        long messages;
+        long calls;
+        boolean ordered = true;
+
+        @Override
+        public boolean deliver(List<ChatMessageDto> batch) {
+            for (ChatMessageDto message : batch) {
+                ordered &= message.getSequence() > lastSequence;
+                lastSequence = message.getSequence();
+            }
+            messages += batch.size();
+            calls++;
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
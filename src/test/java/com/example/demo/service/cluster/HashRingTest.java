@@ -0,0 +1,79 @@
+package com.example.demo.service.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashRingTest {
+    private static final int ROOMS = 100_000;
+    private static final int VIRTUAL_NODES = 160;
+    private static final List<String> NODES = List.of("http://node-a:8080", "http://node-b:8080", "http://node-c:8080",
+            "http://node-d:8080");
+
+    @Test
+    void ownerOfShouldSpreadRoomsEvenlyOverNodes() {
+        // Given
+        HashRing ring = new HashRing(NODES, VIRTUAL_NODES);
+
+        // When
+        Map<String, Integer> rooms = new HashMap<>();
+        for (long id = 1; id <= ROOMS; id++) {
+            rooms.merge(ring.ownerOf(id), 1, Integer::sum);
+        }
+
+        // Then
+        assertEquals(NODES.size(), rooms.size());
+        rooms.values().forEach(count -> assertEquals(ROOMS / NODES.size(), count, ROOMS / NODES.size() * 0.15));
+        HashRing reordered = new HashRing(List.of(NODES.get(3), NODES.get(1), NODES.get(0), NODES.get(2)),
+                VIRTUAL_NODES);
+        assertEquals(ring.ownerOf(42L), reordered.ownerOf(42L));
+        assertNull(new HashRing(List.of(), VIRTUAL_NODES).ownerOf(42L));
+    }
+
+    @Test
+    void joiningNodeShouldOnlyTakeOverItsShareOfRooms() {
+        // Given
+        HashRing before = new HashRing(NODES, VIRTUAL_NODES);
+        String joining = "http://node-e:8080";
+        HashRing after = new HashRing(Stream.concat(NODES.stream(), Stream.of(joining)).toList(), VIRTUAL_NODES);
+
+        // When
+        int moved = 0;
+        for (long id = 1; id <= ROOMS; id++) {
+            String owner = after.ownerOf(id);
+            if (!owner.equals(before.ownerOf(id))) {
+                assertEquals(joining, owner);
+                moved++;
+            }
+        }
+
+        // Then
+        assertEquals(ROOMS / 5.0, moved, ROOMS / 5.0 * 0.15);
+    }
+
+    @Test
+    void leavingNodeShouldOnlyHandOverItsOwnRooms() {
+        // Given
+        HashRing before = new HashRing(NODES, VIRTUAL_NODES);
+        String leaving = NODES.get(1);
+        HashRing after = new HashRing(NODES.stream().filter(node -> !node.equals(leaving)).toList(), VIRTUAL_NODES);
+
+        // When
+        int moved = 0;
+        for (long id = 1; id <= ROOMS; id++) {
+            String owner = before.ownerOf(id);
+            if (!owner.equals(after.ownerOf(id))) {
+                assertEquals(leaving, owner);
+                moved++;
+            }
+        }
+
+        // Then
+        assertEquals(ROOMS / 4.0, moved, ROOMS / 4.0 * 0.15);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.service.directory;
+
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.presence.PresenceJournal;
+import com.example.demo.service.presence.RoomPresence;
+import com.example.demo.service.presence.RoomWaitlist;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+class PopularRoomsBenchmark {
+    private static final int ROOMS = 100_000;
+    private static final int UPDATES = 1_000_000;
+    private static final int TOP = 20;
+    private static final int READERS = 2;
+    private static final long READ_INTERVAL_NANOS = 100_000;
+
+    private final RoomEventBus roomEventBus = new RoomEventBus(1024);
+    private final RoomPresence roomPresence = new RoomPresence(new RoomWaitlist(60_000, 10),
+            new PresenceJournal(false, null, 0, 0), roomEventBus);
+    private final PopularRooms popularRooms = new PopularRooms(roomEventBus, roomPresence);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        roomEventBus.shutdown();
+    }
+
+    @Test
+    void topShouldStayCheapWithManyLiveRoomsUnderChurn() throws InterruptedException {
+        // Given
+        Random random = new Random(42);
+        int[] occupancies = new int[ROOMS + 1];
+        for (int id = 1; id <= ROOMS; id++) {
+            occupancies[id] = 1 + random.nextInt(50);
+            popularRooms.update(id, occupancies[id]);
+        }
+
+        // When
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        AtomicLong readNanos = new AtomicLong();
+        AtomicLong shortReads = new AtomicLong();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            Thread reader = new Thread(() -> {
+                while (running.get()) {
+                    long started = System.nanoTime();
+                    if (popularRooms.top(TOP).size() != TOP) {
+                        shortReads.incrementAndGet();
+                    }
+                    readNanos.addAndGet(System.nanoTime() - started);
+                    reads.incrementAndGet();
+                    LockSupport.parkNanos(READ_INTERVAL_NANOS);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < UPDATES; i++) {
+            int id = 1 + random.nextInt(ROOMS);
+            occupancies[id] = Math.max(0, occupancies[id] + (random.nextBoolean() ? 1 : -1));
+            popularRooms.update(id, occupancies[id]);
+        }
+        long updateNanos = System.nanoTime() - started;
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        started = System.nanoTime();
+        List<Long> sorted = IntStream.rangeClosed(1, ROOMS)
+                .filter(id -> occupancies[id] > 0)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingInt(id -> occupancies[id]).reversed().thenComparingInt(id -> id))
+                .limit(TOP)
+                .map(Integer::longValue)
+                .toList();
+        long sortNanos = System.nanoTime() - started;
+
+        // Then
+        assertEquals(sorted, popularRooms.top(TOP));
+        assertEquals(IntStream.rangeClosed(1, ROOMS).filter(id -> occupancies[id] > 0).count(), popularRooms.size());
+        assertTrue(reads.get() > 0);
+        assertEquals(0, shortReads.get());
+        System.out.printf("%d live rooms: %.0f joins and leaves/s ranked, top %d read in %.2f us (%d reads during "
+                        + "churn), sorting all rooms takes %.2f ms%n",
+                ROOMS, UPDATES / (updateNanos / 1e9), TOP, readNanos.get() / 1e3 / reads.get(), reads.get(),
+                sortNanos / 1e6);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.demo.service.directory;
+
+import com.example.demo.persistence.dto.ConnectedUserDto;
+import com.example.demo.persistence.model.Room;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.event.RoomEventType;
+import com.example.demo.service.presence.PresenceJournal;
+import com.example.demo.service.presence.RoomPresence;
+import com.example.demo.service.presence.RoomWaitlist;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PopularRoomsTest {
+    private static final int ROOMS = 10_000;
+    private static final int UPDATES = 100_000;
+    private static final int TOP = 20;
+    private static final int READERS = 2;
+    private static final long READ_INTERVAL_NANOS = 100_000;
+
+    private final RoomEventBus roomEventBus = new RoomEventBus(1024);
+    private final RoomPresence roomPresence = new RoomPresence(new RoomWaitlist(60_000, 10),
+            new PresenceJournal(false, null, 0, 0), roomEventBus);
+    private final PopularRooms popularRooms = new PopularRooms(roomEventBus, roomPresence);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        roomEventBus.shutdown();
+    }
+
+    @Test
+    void topShouldFollowJoinsLeavesAndDeletes() throws InterruptedException {
+        // Given
+        popularRooms.subscribe();
+        roomEventBus.publish(RoomEventType.CREATED, 1L, 7L, "first", 10, null, 0);
+        roomEventBus.publish(RoomEventType.CONNECTED, 1L, 7L, "first", 10, "a", 1);
+        roomEventBus.publish(RoomEventType.CONNECTED, 2L, 7L, "second", 10, "a", 1);
+        roomEventBus.publish(RoomEventType.CONNECTED, 2L, 7L, "second", 10, "b", 2);
+        roomEventBus.publish(RoomEventType.CONNECTED, 3L, 7L, "third", 10, "a", 1);
+        roomEventBus.publish(RoomEventType.CONNECTED, 3L, 7L, "third", 10, "b", 2);
+        roomEventBus.publish(RoomEventType.CONNECTED, 3L, 7L, "third", 10, "c", 3);
+        awaitTop(List.of(3L, 2L, 1L));
+
+        // When
+        roomEventBus.publish(RoomEventType.DISCONNECTED, 3L, 7L, "third", 10, "c", 2);
+        roomEventBus.publish(RoomEventType.DISCONNECTED, 3L, 7L, "third", 10, "b", 1);
+        roomEventBus.publish(RoomEventType.DISCONNECTED, 1L, 7L, "first", 10, "a", 0);
+        roomEventBus.publish(RoomEventType.CONNECTED, 4L, 7L, "fourth", 10, "a", 1);
+        roomEventBus.publish(RoomEventType.DELETED, 2L, null, null, 0, null, 0);
+        awaitTop(List.of(3L, 4L));
+
+        // Then
+        assertEquals(List.of(3L, 4L), popularRooms.top(10));
+        assertEquals(List.of(3L), popularRooms.top(1));
+        assertEquals(2, popularRooms.size());
+    }
+
+    @Test
+    void onDroppedShouldReRankRoomsFromPresence() {
+        // Given
+        Room first = Room.builder().id(1L).name("first").numberOfUsers(10).build();
+        Room second = Room.builder().id(2L).name("second").numberOfUsers(10).build();
+        roomPresence.connect(first, ConnectedUserDto.builder().username("a").build());
+        roomPresence.connect(second, ConnectedUserDto.builder().username("a").build());
+        roomPresence.connect(second, ConnectedUserDto.builder().username("b").build());
+        popularRooms.update(1L, 1);
+        popularRooms.update(3L, 5);
+
+        // When
+        popularRooms.onDropped(2);
+
+        // Then
+        assertEquals(List.of(2L, 1L), popularRooms.top(10));
+        assertEquals(2, popularRooms.size());
+    }
+
+    @Test
+    void topShouldNeverMissRoomsWhileRoomsAreReRanked() throws InterruptedException {
+        // Given
+        Random random = new Random(42);
+        int[] occupancies = new int[ROOMS + 1];
+        for (int id = 1; id <= ROOMS; id++) {
+            occupancies[id] = 1 + random.nextInt(50);
+            popularRooms.update(id, occupancies[id]);
+        }
+
+        // When
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        AtomicLong shortReads = new AtomicLong();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            Thread reader = new Thread(() -> {
+                while (running.get()) {
+                    if (popularRooms.top(TOP).size() != TOP) {
+                        shortReads.incrementAndGet();
+                    }
+                    reads.incrementAndGet();
+                    LockSupport.parkNanos(READ_INTERVAL_NANOS);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        while (reads.get() < READERS) {
+            Thread.onSpinWait();
+        }
+        for (int i = 0; i < UPDATES; i++) {
+            int id = 1 + random.nextInt(ROOMS);
+            occupancies[id] = Math.max(0, occupancies[id] + (random.nextBoolean() ? 1 : -1));
+            popularRooms.update(id, occupancies[id]);
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        List<Long> sorted = IntStream.rangeClosed(1, ROOMS)
+                .filter(id -> occupancies[id] > 0)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingInt(id -> occupancies[id]).reversed().thenComparingInt(id -> id))
+                .limit(TOP)
+                .map(Integer::longValue)
+                .toList();
+
+        // Then
+        assertEquals(sorted, popularRooms.top(TOP));
+        assertEquals(IntStream.rangeClosed(1, ROOMS).filter(id -> occupancies[id] > 0).count(), popularRooms.size());
+        assertEquals(0, shortReads.get());
+    }
+
+    private void awaitTop(List<Long> expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!popularRooms.top(10).equals(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
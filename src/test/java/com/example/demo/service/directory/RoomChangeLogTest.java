@@ -0,0 +1,124 @@
+package com.example.demo.service.directory;
+
+import com.example.demo.persistence.dto.RoomChangeDto;
+import com.example.demo.persistence.dto.RoomChangesDto;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.event.RoomEventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomChangeLogTest {
+    private final RoomEventBus roomEventBus = new RoomEventBus(1024);
+    private final RoomChangeLog roomChangeLog = new RoomChangeLog(roomEventBus, false, 8, 3);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        roomEventBus.shutdown();
+    }
+
+    @Test
+    void changesSinceShouldReturnOnlyCreatesAndDeletesAfterCursorInPages() throws InterruptedException {
+        // Given
+        roomChangeLog.subscribe();
+        long start = roomChangeLog.changesSince(null).getCursor();
+        roomEventBus.publish(RoomEventType.CREATED, 1L, 7L, "first", 10, null, 0);
+        roomEventBus.publish(RoomEventType.CONNECTED, 1L, 7L, "first", 10, "guest", 1);
+        roomEventBus.publish(RoomEventType.CREATED, 2L, 7L, "second", 5, null, 0);
+        roomEventBus.publish(RoomEventType.DELETED, 1L, null, null, 0, null, 0);
+        roomEventBus.publish(RoomEventType.CREATED, 3L, 7L, "third", 2, null, 0);
+        awaitCursor(start + 4);
+
+        // When
+        RoomChangesDto first = roomChangeLog.changesSince(start);
+        RoomChangesDto second = roomChangeLog.changesSince(first.getCursor());
+        RoomChangesDto upToDate = roomChangeLog.changesSince(second.getCursor());
+
+        // Then
+        assertFalse(first.isResync());
+        assertTrue(first.isHasMore());
+        assertEquals(List.of(1L, 2L, 1L), first.getChanges().stream().map(RoomChangeDto::getRoomId).toList());
+        assertEquals(List.of(RoomEventType.CREATED, RoomEventType.CREATED, RoomEventType.DELETED),
+                first.getChanges().stream().map(RoomChangeDto::getType).toList());
+        assertEquals("second", first.getChanges().get(1).getName());
+        assertEquals(5, first.getChanges().get(1).getMaxUsers());
+        assertEquals(start + 3, first.getCursor());
+        assertFalse(second.isHasMore());
+        assertEquals(List.of(3L), second.getChanges().stream().map(RoomChangeDto::getRoomId).toList());
+        assertEquals(start + 4, upToDate.getCursor());
+        assertTrue(upToDate.getChanges().isEmpty());
+    }
+
+    @Test
+    void changesSinceShouldAlwaysAskForResyncWhenClustered() throws InterruptedException {
+        // Given
+        RoomChangeLog clustered = new RoomChangeLog(roomEventBus, true, 8, 3);
+        clustered.subscribe();
+        long start = clustered.changesSince(null).getCursor();
+        roomEventBus.publish(RoomEventType.CREATED, 1L, 7L, "first", 10, null, 0);
+
+        // When
+        RoomChangesDto changes = clustered.changesSince(start);
+
+        // Then
+        assertTrue(changes.isResync());
+        assertTrue(changes.getChanges().isEmpty());
+    }
+
+    @Test
+    void changesSinceShouldAskForResyncWhenCursorIsOutOfTheLog() throws InterruptedException {
+        // Given
+        roomChangeLog.subscribe();
+        long start = roomChangeLog.changesSince(null).getCursor();
+        for (long id = 0; id < 10; id++) {
+            roomEventBus.publish(RoomEventType.CREATED, id, 7L, "room" + id, 10, null, 0);
+        }
+        awaitCursor(start + 10);
+
+        // When
+        RoomChangesDto fellBehind = roomChangeLog.changesSince(start + 1);
+        RoomChangesDto oldestKept = roomChangeLog.changesSince(start + 2);
+        RoomChangesDto fromTheFuture = roomChangeLog.changesSince(start + 11);
+        RoomChangesDto fromBeforeRestart = roomChangeLog.changesSince(42L);
+
+        // Then
+        assertTrue(fellBehind.isResync());
+        assertEquals(start + 10, fellBehind.getCursor());
+        assertFalse(oldestKept.isResync());
+        assertEquals(3, oldestKept.getChanges().size());
+        assertTrue(fromTheFuture.isResync());
+        assertTrue(fromBeforeRestart.isResync());
+    }
+
+    @Test
+    void changesSinceShouldAskForResyncWhenCursorIsBeforeDroppedEvents() throws InterruptedException {
+        // Given
+        roomChangeLog.subscribe();
+        long start = roomChangeLog.changesSince(null).getCursor();
+        roomEventBus.publish(RoomEventType.CREATED, 1L, 7L, "first", 10, null, 0);
+        awaitCursor(start + 1);
+
+        // When
+        roomChangeLog.onDropped(2);
+        roomEventBus.publish(RoomEventType.CREATED, 2L, 7L, "second", 10, null, 0);
+        awaitCursor(start + 3);
+
+        // Then
+        assertTrue(roomChangeLog.changesSince(start).isResync());
+        assertTrue(roomChangeLog.changesSince(start + 1).isResync());
+        RoomChangesDto afterGap = roomChangeLog.changesSince(start + 2);
+        assertFalse(afterGap.isResync());
+        assertEquals(List.of(2L), afterGap.getChanges().stream().map(RoomChangeDto::getRoomId).toList());
+    }
+
+    private void awaitCursor(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (roomChangeLog.changesSince(null).getCursor() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, roomChangeLog.changesSince(null).getCursor());
+    }
+}
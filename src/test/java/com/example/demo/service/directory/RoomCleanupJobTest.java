@@ -0,0 +1,146 @@
+package com.example.demo.service.directory;
+
+import com.example.demo.persistence.dto.ConnectedUserDto;
+import com.example.demo.persistence.model.Room;
+import com.example.demo.persistence.model.User;
+import com.example.demo.service.cluster.RoomOwnership;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.presence.PresenceJournal;
+import com.example.demo.service.presence.RoomPresence;
+import com.example.demo.service.presence.RoomWaitlist;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "rooms.cleanup.enabled=true",
+        "rooms.cleanup.max-idle-days=30",
+        "rooms.cleanup.chunk-size=7",
+        "rooms.cleanup.pause=0"
+})
+@Import({RoomCleanupJob.class, RoomPresence.class, RoomWaitlist.class, PresenceJournal.class, RoomEventBus.class,
+        RoomOwnership.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RoomCleanupJobTest {
+    private static final int ROOMS = 50;
+
+    @Autowired
+    private RoomCleanupJob roomCleanupJob;
+    @Autowired
+    private RoomPresence roomPresence;
+    @Autowired
+    private RoomEventBus roomEventBus;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("insert into users (id, email, username, password, role, date_creation) "
+                + "values (1, 'owner@example.com', 'owner', 'password', 'USER', current_timestamp)");
+        Timestamp old = Timestamp.valueOf(LocalDateTime.now().minusDays(60));
+        jdbcTemplate.batchUpdate("insert into rooms (name, number_of_users, is_private, user_id, date_creation) "
+                        + "values (?, 10, false, 1, ?)",
+                IntStream.range(0, ROOMS).mapToObj(i -> new Object[]{"room" + i, old}).toList());
+        ids = jdbcTemplate.queryForList("select id from rooms order by id", Long.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from room_cleanup_checkpoint");
+        jdbcTemplate.update("delete from room_usage_stats");
+        jdbcTemplate.update("delete from rooms");
+        jdbcTemplate.update("delete from users");
+    }
+
+    @Test
+    void cleanUpShouldDeleteOnlyRoomsThatAreEmptyAndIdleAndResetCheckpoint() {
+        // Given
+        Long recentlyCreated = ids.get(3);
+        Long recentlyUsed = ids.get(10);
+        Long occupied = ids.get(20);
+        Long usedLongAgo = ids.get(30);
+        Long recentlyJoined = ids.get(40);
+        jdbcTemplate.update("update rooms set date_creation = current_timestamp where id = ?", recentlyCreated);
+        insertStats(recentlyUsed, LocalDateTime.now().minusDays(1));
+        insertStats(usedLongAgo, LocalDateTime.now().minusDays(45));
+        insertStats(recentlyJoined, LocalDateTime.now().minusDays(1), LocalDateTime.now().minusDays(45));
+        roomPresence.connect(Room.builder().id(occupied).name("room20").numberOfUsers(10)
+                .user(User.builder().id(1L).build()).build(), ConnectedUserDto.builder().username("guest").build());
+
+        // When
+        int deleted = roomCleanupJob.cleanUp();
+
+        // Then
+        assertEquals(ROOMS - 4, deleted);
+        assertEquals(List.of(recentlyCreated, recentlyUsed, occupied, recentlyJoined),
+                jdbcTemplate.queryForList("select id from rooms order by id", Long.class));
+        assertEquals(0, roomCleanupJob.loadCheckpoint());
+    }
+
+    @Test
+    void cleanUpShouldResumeFromCheckpoint() {
+        // Given
+        jdbcTemplate.update("insert into room_cleanup_checkpoint (job, last_room_id, updated_at) "
+                + "values (?, ?, current_timestamp)", RoomCleanupJob.JOB, ids.get(24));
+
+        // When
+        int resumed = roomCleanupJob.cleanUp();
+        int nextPass = roomCleanupJob.cleanUp();
+
+        // Then
+        assertEquals(ROOMS - 25, resumed);
+        assertEquals(25, nextPass);
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from rooms", Long.class));
+    }
+
+    @Test
+    void cleanUpShouldDeleteOnlyRoomsOwnedByThisNode() {
+        // Given
+        RoomOwnership roomOwnership = new RoomOwnership(true, "http://node-a:8080",
+                "http://node-a:8080,http://node-b:8080", 160, roomPresence);
+        RoomCleanupJob nodeA = new RoomCleanupJob(jdbcTemplate, transactionTemplate, roomPresence, roomEventBus,
+                roomOwnership, 30, 7, 0);
+        List<Long> ownedElsewhere = ids.stream()
+                .filter(id -> roomOwnership.remoteOwner(id).isPresent())
+                .toList();
+
+        // When
+        int deleted = nodeA.cleanUp();
+
+        // Then
+        assertEquals(ROOMS - ownedElsewhere.size(), deleted);
+        assertEquals(ownedElsewhere, jdbcTemplate.queryForList("select id from rooms order by id", Long.class));
+        assertEquals(List.of("idle-rooms@http://node-a:8080"),
+                jdbcTemplate.queryForList("select job from room_cleanup_checkpoint", String.class));
+    }
+
+    private void insertStats(Long roomId, LocalDateTime lastLeftAt) {
+        insertStats(roomId, lastLeftAt.minusMinutes(1), lastLeftAt);
+    }
+
+    private void insertStats(Long roomId, LocalDateTime lastJoinedAt, LocalDateTime lastLeftAt) {
+        jdbcTemplate.update("insert into room_usage_stats (room_id, owner_id, session_count, total_session_seconds, "
+                + "peak_occupancy, last_joined_at, last_left_at) values (?, 1, 1, 60, 1, ?, ?)", roomId,
+                Timestamp.valueOf(lastJoinedAt), Timestamp.valueOf(lastLeftAt));
+    }
+}
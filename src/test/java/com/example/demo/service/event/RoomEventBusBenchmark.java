@@ -0,0 +1,67 @@
+package com.example.demo.service.event;
+
+import com.example.demo.service.event.RoomEventBusTest.CountingHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+class RoomEventBusBenchmark {
+    private static final int PRODUCERS = 4;
+    private static final int EVENTS_PER_PRODUCER = 50_000;
+
+    private final RoomEventBus roomEventBus = new RoomEventBus(1024);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        roomEventBus.shutdown();
+    }
+
+    @Test
+    void publishShouldTakeNanosecondsUnderContention() throws Exception {
+        // Given
+        CountingHandler first = new CountingHandler();
+        CountingHandler second = new CountingHandler();
+        roomEventBus.subscribe(first);
+        roomEventBus.subscribe(second);
+        ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+        CyclicBarrier start = new CyclicBarrier(PRODUCERS);
+        List<Future<Long>> publishNanos = new ArrayList<>();
+
+        // When
+        for (int producer = 0; producer < PRODUCERS; producer++) {
+            long roomId = producer;
+            publishNanos.add(producers.submit(() -> {
+                start.await();
+                long started = System.nanoTime();
+                for (int i = 0; i < EVENTS_PER_PRODUCER; i++) {
+                    roomEventBus.publish(RoomEventType.CONNECTED, roomId, null, "room", 10, "user", i);
+                }
+                return System.nanoTime() - started;
+            }));
+        }
+        long totalNanos = 0;
+        for (Future<Long> nanos : publishNanos) {
+            totalNanos += nanos.get();
+        }
+        producers.shutdown();
+        long total = (long) PRODUCERS * EVENTS_PER_PRODUCER;
+        first.awaitAccounted(total);
+        second.awaitAccounted(total);
+
+        // Then
+        assertEquals(total, first.count.get() + first.drops.get());
+        assertEquals(total, second.count.get() + second.drops.get());
+        assertEquals(first.drops.get() + second.drops.get(), roomEventBus.getDroppedCount());
+        assertTrue(first.ordered && second.ordered);
+        assertTrue(first.batches.get() <= first.count.get());
+        System.out.printf("%d producers: %.1f ns per publish, %d of %d dropped by the first subscriber, %d batches%n",
+                PRODUCERS, (double) totalNanos / total, first.drops.get(), total, first.batches.get());
+    }
+}
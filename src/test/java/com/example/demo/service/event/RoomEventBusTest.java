@@ -0,0 +1,171 @@
+package com.example.demo.service.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomEventBusTest {
+    private static final int PRODUCERS = 4;
+    private static final int EVENTS_PER_PRODUCER = 5_000;
+
+    private final RoomEventBus roomEventBus = new RoomEventBus(1024);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        roomEventBus.shutdown();
+    }
+
+    @Test
+    void publishShouldDeliverEveryPublishedEventToEverySubscriberInOrder() throws Exception {
+        // Given
+        CountingHandler first = new CountingHandler();
+        CountingHandler second = new CountingHandler();
+        roomEventBus.subscribe(first);
+        roomEventBus.subscribe(second);
+        ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+        CyclicBarrier start = new CyclicBarrier(PRODUCERS);
+        List<Future<?>> published = new ArrayList<>();
+
+        // When
+        for (int producer = 0; producer < PRODUCERS; producer++) {
+            long roomId = producer;
+            published.add(producers.submit(() -> {
+                start.await();
+                for (int i = 0; i < EVENTS_PER_PRODUCER; i++) {
+                    roomEventBus.publish(RoomEventType.CONNECTED, roomId, null, "room", 10, "user", i);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> producer : published) {
+            producer.get();
+        }
+        producers.shutdown();
+        long total = (long) PRODUCERS * EVENTS_PER_PRODUCER;
+        first.awaitAccounted(total);
+        second.awaitAccounted(total);
+
+        // Then
+        assertEquals(total, first.count.get() + first.drops.get());
+        assertEquals(total, second.count.get() + second.drops.get());
+        assertEquals(first.drops.get() + second.drops.get(), roomEventBus.getDroppedCount());
+        assertTrue(first.ordered && second.ordered);
+        assertTrue(first.batches.get() <= first.count.get());
+    }
+
+    @Test
+    void publishShouldDropOnlyForSubscriberThatIsFullRingBehind() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong slowDrops = new AtomicLong();
+        roomEventBus.subscribe(new RoomEventHandler() {
+            @Override
+            public void onEvent(RoomEvent event, long sequence, boolean endOfBatch) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void onDropped(long count) {
+                slowDrops.addAndGet(count);
+            }
+        });
+        CountingHandler fast = new CountingHandler();
+        roomEventBus.subscribe(fast);
+
+        // When
+        int accepted = 0;
+        for (int i = 0; i < 2048; i++) {
+            if (roomEventBus.publish(RoomEventType.CREATED, 1L, 1L, "room", 10, null, 0)) {
+                accepted++;
+            }
+            if (i % 512 == 511) {
+                fast.awaitCount(i + 1);
+            }
+        }
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (slowDrops.get() < 2048 - accepted && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // Then
+        assertTrue(accepted <= 1024 + 1);
+        assertEquals(2048, fast.count.get());
+        assertEquals(0, fast.drops.get());
+        assertEquals(2048 - accepted, roomEventBus.getDroppedCount());
+        assertEquals(2048 - accepted, slowDrops.get());
+    }
+
+    @Test
+    void idleSubscriberShouldParkAndWakeOnPublish() throws Exception {
+        // Given
+        CountingHandler handler = new CountingHandler();
+        roomEventBus.subscribe(handler);
+        Thread thread = Thread.getAllStackTraces().keySet().stream()
+                .filter(candidate -> candidate.getName().equals("room-events-CountingHandler"))
+                .findFirst()
+                .orElseThrow();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (thread.getState() != Thread.State.TIMED_WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.State idle = thread.getState();
+
+        // When
+        roomEventBus.publish(RoomEventType.CREATED, 1L, 1L, "room", 10, null, 0);
+        handler.awaitCount(1);
+
+        // Then
+        assertEquals(Thread.State.TIMED_WAITING, idle);
+        assertEquals(1, handler.count.get());
+    }
+
+    static final class CountingHandler implements RoomEventHandler {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong batches = new AtomicLong();
+        final AtomicLong drops = new AtomicLong();
+        private long lastSequence = -1;
+        volatile boolean ordered = true;
+
+        @Override
+        public void onEvent(RoomEvent event, long sequence, boolean endOfBatch) {
+            if (sequence <= lastSequence) {
+                ordered = false;
+            }
+            lastSequence = sequence;
+            count.incrementAndGet();
+            if (endOfBatch) {
+                batches.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onDropped(long count) {
+            drops.addAndGet(count);
+        }
+
+        void awaitAccounted(long expected) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (count.get() + drops.get() < expected && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        void awaitCount(long expected) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (count.get() < expected && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+    }
+}
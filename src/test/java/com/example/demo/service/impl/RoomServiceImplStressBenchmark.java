@@ -0,0 +1,48 @@
+package com.example.demo.service.impl;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static com.example.demo.service.impl.RoomServiceImplStressTest.THREADS;
+
+/**
+ * Runs the workload of {@link RoomServiceImplStressTest} long enough to measure it, checking the same invariants.
+ */
+@Tag("benchmark")
+class RoomServiceImplStressBenchmark {
+    private static final int WARMUP_OPERATIONS_PER_THREAD = 20_000;
+    private static final int OPERATIONS_PER_THREAD = 100_000;
+
+    @Test
+    void randomConcurrentOperationsShouldKeepInvariants() throws Exception {
+        // Given
+        run(WARMUP_OPERATIONS_PER_THREAD);
+
+        // When
+        long elapsedNanos = run(OPERATIONS_PER_THREAD);
+
+        // Then
+        System.out.printf("%d threads, %d operations each: %.0f ops/s%n",
+                THREADS, OPERATIONS_PER_THREAD, (double) THREADS * OPERATIONS_PER_THREAD / (elapsedNanos / 1e9));
+    }
+
+    /**
+     * Runs the workload on fresh rooms and checks its invariants, returning how long the operations took.
+     */
+    private static long run(int operationsPerThread) throws Exception {
+        RoomServiceImplStressTest workload = new RoomServiceImplStressTest();
+        workload.setUp();
+        try {
+            long started = System.nanoTime();
+            Map<String, Set<Long>> expected = workload.run(operationsPerThread);
+            long elapsedNanos = System.nanoTime() - started;
+            workload.checkInvariants(expected);
+            return elapsedNanos;
+        } finally {
+            workload.tearDown();
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.exception.RoomNotFoundException;
+import com.example.demo.persistence.dto.ConnectedUserDto;
+import com.example.demo.persistence.dto.ConnectionRequestDto;
+import com.example.demo.persistence.dto.DisconnectionRequestDto;
+import com.example.demo.persistence.dto.RoomInfoDto;
+import com.example.demo.persistence.dto.RoomMembersDto;
+import com.example.demo.persistence.model.Room;
+import com.example.demo.persistence.repository.RoomRepository;
+import com.example.demo.persistence.repository.UserRepository;
+import com.example.demo.service.ConnectionOutcome;
+import com.example.demo.service.DisconnectionOutcome;
+import com.example.demo.service.cluster.ClusterPresence;
+import com.example.demo.service.directory.PopularRooms;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.event.RoomEventType;
+import com.example.demo.service.presence.PresenceJournal;
+import com.example.demo.service.presence.RoomPresence;
+import com.example.demo.service.presence.RoomWaitlist;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Hammers {@link RoomServiceImpl} from many threads with random operations on a few small rooms, checking the
+ * presence invariants after every operation and once more when all threads are done:
+ * <ul>
+ *     <li>no room ever has more members than its capacity, also as seen by every published event;</li>
+ *     <li>no member is lost or duplicated: each thread owns its users, so it knows exactly which of the rooms that
+ *     are never deleted they are in, and every connect and disconnect outcome has to agree with that;</li>
+ *     <li>every snapshot a reader gets, listings, member lists and member pages, is consistent in itself;</li>
+ *     <li>the room to members index and the user to rooms index agree.</li>
+ * </ul>
+ * Half of the rooms are deleted and recreated all the time, so deletes race with everything else. Every thread runs a
+ * fixed number of operations, so the test does the same amount of work on any machine.
+ */
+class RoomServiceImplStressTest {
+    static final int THREADS = 8;
+    private static final int USERS_PER_THREAD = 12;
+    private static final int ROOMS = 8;
+    private static final int CAPACITY = 6;
+    private static final int OPERATIONS_PER_THREAD = 3_000;
+
+    private final Map<Long, Room> liveRooms = new ConcurrentHashMap<>();
+    private final Map<Long, Room> allRooms = new HashMap<>();
+    private final RoomEventBus roomEventBus = new RoomEventBus(8192);
+    private final RoomPresence roomPresence = new RoomPresence(new RoomWaitlist(60_000, 10),
+            new PresenceJournal(false, null, 0, 0), roomEventBus);
+    private final Queue<String> violations = new ConcurrentLinkedQueue<>();
+    private RoomServiceImpl roomService;
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= ROOMS; id++) {
+            Room room = Room.builder().id(id).name("room" + id).numberOfUsers(CAPACITY).build();
+            allRooms.put(id, room);
+            liveRooms.put(id, room);
+        }
+        RoomRepository roomRepository = mock(RoomRepository.class, withSettings().stubOnly());
+        when(roomRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(liveRooms.get(invocation.<Long>getArgument(0))));
+        when(roomRepository.findByName(anyString())).thenAnswer(invocation -> liveRooms.values().stream()
+                .filter(room -> room.getName().equals(invocation.getArgument(0)))
+                .findFirst());
+        when(roomRepository.findAll(any(Pageable.class))).thenAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(0);
+            List<Room> rooms = liveRooms.values().stream().sorted(Comparator.comparing(Room::getId)).toList();
+            int from = (int) Math.min(pageable.getOffset(), rooms.size());
+            int to = Math.min(from + pageable.getPageSize(), rooms.size());
+            return new PageImpl<>(rooms.subList(from, to), pageable, rooms.size());
+        });
+        when(roomRepository.deleteRoomById(anyLong()))
+                .thenAnswer(invocation -> liveRooms.remove(invocation.<Long>getArgument(0)) == null ? 0 : 1);
+        UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.empty());
+        ModelMapper modelMapper = mock(ModelMapper.class, withSettings().stubOnly());
+        when(modelMapper.map(any(Room.class), eq(RoomInfoDto.class))).thenAnswer(invocation -> {
+            Room room = invocation.getArgument(0);
+            return RoomInfoDto.builder().id(room.getId()).name(room.getName()).maxUsers(room.getNumberOfUsers())
+                    .build();
+        });
+        roomService = new RoomServiceImpl(roomRepository, userRepository, modelMapper, roomPresence,
+                new PresenceJournal(false, null, 0, 0), roomEventBus, new PopularRooms(roomEventBus, roomPresence),
+                mock(ClusterPresence.class));
+        roomEventBus.subscribe((event, sequence, endOfBatch) -> {
+            if (event.getType() == RoomEventType.CONNECTED && event.getOccupancy() > event.getCapacity()) {
+                violations.add("event shows " + event.getOccupancy() + " members in " + event.getRoomName());
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        roomEventBus.shutdown();
+    }
+
+    @Test
+    void presenceInvariantsShouldHoldUnderRandomConcurrentOperations() throws Exception {
+        // When
+        Map<String, Set<Long>> expected = run(OPERATIONS_PER_THREAD);
+
+        // Then
+        checkInvariants(expected);
+    }
+
+    /**
+     * Runs the random operations on all threads at once and returns the rooms every user should be in.
+     */
+    Map<String, Set<Long>> run(int operationsPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Future<Map<String, Set<Long>>>> models = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int owner = thread;
+            models.add(executor.submit(() -> {
+                start.await();
+                return new Worker(owner).run(operationsPerThread);
+            }));
+        }
+        Map<String, Set<Long>> expected = new HashMap<>();
+        for (Future<Map<String, Set<Long>>> model : models) {
+            expected.putAll(model.get());
+        }
+        executor.shutdown();
+        return expected;
+    }
+
+    void checkInvariants(Map<String, Set<Long>> expected) {
+        checkQuiescentState(expected);
+        assertTrue(violations.isEmpty(), () -> violations.size() + " violations, first: " + violations.peek());
+    }
+
+    /**
+     * Once all threads are done, the stable rooms hold exactly the users the threads think they are in, and both
+     * indexes agree for every room.
+     */
+    private void checkQuiescentState(Map<String, Set<Long>> expected) {
+        Map<String, Set<Long>> indexed = new HashMap<>();
+        for (Long roomId : allRooms.keySet()) {
+            List<ConnectedUserDto> members = roomPresence.members(roomId);
+            Set<String> usernames = new HashSet<>();
+            for (ConnectedUserDto member : members == null ? List.<ConnectedUserDto>of() : members) {
+                usernames.add(member.getUsername());
+                indexed.computeIfAbsent(member.getUsername(), key -> new HashSet<>()).add(roomId);
+            }
+            if (stable(roomId)) {
+                Set<String> owned = new HashSet<>();
+                expected.forEach((username, rooms) -> {
+                    if (rooms.contains(roomId)) {
+                        owned.add(username);
+                    }
+                });
+                assertEquals(owned, usernames, "members of room " + roomId);
+            }
+            assertTrue(usernames.size() <= CAPACITY);
+        }
+        expected.keySet().forEach(username ->
+                assertEquals(indexed.getOrDefault(username, Set.of()), roomPresence.roomsOf(username), username));
+    }
+
+    private static boolean stable(Long roomId) {
+        return roomId % 2 == 1;
+    }
+
+    private enum Operation {
+        CONNECT, DISCONNECT, GET_ALL, MEMBERS, PAGE, DELETE
+    }
+
+    private final class Worker {
+        private final int owner;
+        private final Map<String, Set<Long>> model = new HashMap<>();
+        private final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        private Worker(int owner) {
+            this.owner = owner;
+            for (int i = 0; i < USERS_PER_THREAD; i++) {
+                model.put("t" + owner + "u" + i, new HashSet<>());
+            }
+        }
+
+        private Map<String, Set<Long>> run(int operations) {
+            for (int i = 0; i < operations; i++) {
+                int roll = random.nextInt(100);
+                Operation operation = roll < 40 ? Operation.CONNECT
+                        : roll < 75 ? Operation.DISCONNECT
+                        : roll < 85 ? Operation.GET_ALL
+                        : roll < 92 ? Operation.MEMBERS
+                        : roll < 99 ? Operation.PAGE
+                        : Operation.DELETE;
+                Long roomId = 1L + random.nextInt(ROOMS);
+                switch (operation) {
+                    case CONNECT -> connect(user(), roomId);
+                    case DISCONNECT -> disconnect(user(), roomId);
+                    case GET_ALL -> getAll();
+                    case MEMBERS -> members(roomId);
+                    case PAGE -> page(roomId);
+                    case DELETE -> deleteAndRecreate(roomId);
+                }
+            }
+            return model;
+        }
+
+        private String user() {
+            return "t" + owner + "u" + random.nextInt(USERS_PER_THREAD);
+        }
+
+        private void connect(String username, Long roomId) {
+            ConnectionOutcome outcome = roomService.connect(roomId, new ConnectionRequestDto(username, null));
+            check(roomPresence.occupancy(roomId) <= CAPACITY, "occupancy above capacity after connect", roomId);
+            if (!stable(roomId)) {
+                return;
+            }
+            Set<Long> rooms = model.get(username);
+            if (outcome == ConnectionOutcome.CONNECTED) {
+                rooms.add(roomId);
+            } else {
+                check(outcome == ConnectionOutcome.ROOM_FULL && !rooms.contains(roomId),
+                        username + " could not rejoin with " + outcome, roomId);
+            }
+        }
+
+        private void disconnect(String username, Long roomId) {
+            DisconnectionOutcome outcome = roomService.disconnect(
+                    new DisconnectionRequestDto(username, allRooms.get(roomId).getName()));
+            if (!stable(roomId)) {
+                return;
+            }
+            boolean member = model.get(username).remove(roomId);
+            check(member == (outcome == DisconnectionOutcome.DISCONNECTED),
+                    username + " was " + (member ? "lost" : "duplicated") + ", disconnect returned " + outcome,
+                    roomId);
+        }
+
+        private void getAll() {
+            roomService.getAll(PageRequest.of(random.nextInt(2), ROOMS / 2)).forEach(room -> {
+                List<ConnectedUserDto> preview = room.getConnectedUsers();
+                check(room.getConnectedUserCount() <= room.getMaxUsers(), "listed above capacity", room.getId());
+                check(preview.size() <= RoomPresence.PREVIEW_SIZE && distinct(preview),
+                        "inconsistent preview " + usernames(preview), room.getId());
+            });
+        }
+
+        private void members(Long roomId) {
+            List<ConnectedUserDto> members = roomPresence.members(roomId);
+            if (members != null) {
+                check(!members.isEmpty() && members.size() <= CAPACITY && distinct(members),
+                        "inconsistent member list " + usernames(members), roomId);
+            }
+        }
+
+        private void page(Long roomId) {
+            long cursor = 0;
+            RoomMembersDto page;
+            do {
+                page = roomService.getMembers(roomId, cursor, 2);
+                check(page.getMembers().size() <= 2 && distinct(page.getMembers()), "inconsistent page", roomId);
+                check(page.getCursor() >= cursor, "cursor moved back", roomId);
+                cursor = page.getCursor();
+            } while (page.isHasMore());
+        }
+
+        private void deleteAndRecreate(Long roomId) {
+            if (stable(roomId)) {
+                return;
+            }
+            try {
+                roomService.deleteById(roomId);
+            } catch (RoomNotFoundException e) {
+                // another thread deleted it first
+            }
+            liveRooms.put(roomId, allRooms.get(roomId));
+        }
+
+        private void check(boolean condition, String violation, Long roomId) {
+            if (!condition) {
+                violations.add(violation + " in room " + roomId);
+            }
+        }
+    }
+
+    private static boolean distinct(List<ConnectedUserDto> users) {
+        return users.stream().map(ConnectedUserDto::getUsername).distinct().count() == users.size();
+    }
+
+    private static List<String> usernames(List<ConnectedUserDto> users) {
+        return users.stream().map(ConnectedUserDto::getUsername).toList();
+    }
+}
@@ -1,19 +1,29 @@
 package com.example.demo.service.impl;
 
-import com.example.demo.exception.RoomConnectionException;
 import com.example.demo.exception.RoomNotFoundException;
 import com.example.demo.persistence.dto.ConnectedUserDto;
 import com.example.demo.persistence.dto.ConnectionRequestDto;
+import com.example.demo.persistence.dto.DisconnectionRequestDto;
 import com.example.demo.persistence.dto.RoomCreateDto;
 import com.example.demo.persistence.dto.RoomInfoDto;
+import com.example.demo.persistence.dto.RoomOccupancyDto;
 import com.example.demo.persistence.model.Room;
 import com.example.demo.persistence.model.User;
 import com.example.demo.persistence.repository.RoomRepository;
 import com.example.demo.persistence.repository.UserRepository;
+import com.example.demo.service.ConnectionOutcome;
+import com.example.demo.service.DisconnectionOutcome;
+import com.example.demo.service.cluster.ClusterPresence;
+import com.example.demo.service.directory.PopularRooms;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.presence.PresenceJournal;
+import com.example.demo.service.presence.RoomPresence;
+import com.example.demo.service.presence.RoomWaitlist;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
@@ -24,10 +34,17 @@ import org.springframework.data.domain.Pageable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,6 +56,18 @@ class RoomServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private ModelMapper modelMapper;
+    @Spy
+    private PresenceJournal presenceJournal = new PresenceJournal(false, null, 0, 0);
+    @Spy
+    private RoomWaitlist roomWaitlist = new RoomWaitlist(60_000, 1);
+    @Spy
+    private RoomEventBus roomEventBus = spy(new RoomEventBus(1024));
+    @Spy
+    private RoomPresence roomPresence = new RoomPresence(roomWaitlist, presenceJournal, roomEventBus);
+    @Mock
+    private ClusterPresence clusterPresence;
+    @Spy
+    private PopularRooms popularRooms = new PopularRooms(roomEventBus, roomPresence);
     @InjectMocks
     private RoomServiceImpl roomService;
 
@@ -73,6 +102,50 @@ class RoomServiceImplTest {
         assertEquals(1L, result.longValue());
     }
 
+    @Test
+    void connectShouldShareOneRoomLookupBetweenConcurrentJoins() throws Exception {
+        // Given
+        int clients = 32;
+        Long roomId = 1L;
+        Room room = Room.builder().id(roomId).name("Popular Room").numberOfUsers(clients).build();
+        AtomicInteger lookups = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        when(roomRepository.findById(roomId)).thenAnswer(invocation -> {
+            lookups.incrementAndGet();
+            release.await();
+            return Optional.of(room);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CyclicBarrier start = new CyclicBarrier(clients);
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        AtomicInteger arrived = new AtomicInteger();
+        List<Future<ConnectionOutcome>> outcomes = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < clients; i++) {
+            ConnectionRequestDto request = new ConnectionRequestDto("user" + i, null);
+            outcomes.add(executor.submit(() -> {
+                threads.add(Thread.currentThread());
+                start.await();
+                arrived.incrementAndGet();
+                return roomService.connect(roomId, request);
+            }));
+        }
+        while (arrived.get() < clients
+                || !threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        for (Future<ConnectionOutcome> outcome : outcomes) {
+            assertEquals(ConnectionOutcome.CONNECTED, outcome.get());
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(1, lookups.get());
+        assertEquals(clients, roomPresence.members(roomId).size());
+    }
+
     @Test
     public void getRoomIdByNameShouldThrowException() {
         // Given
@@ -85,6 +158,83 @@ class RoomServiceImplTest {
         });
     }
 
+    @Test
+    public void getOccupanciesShouldReturnKnownRoomsInRequestOrder() {
+        // Given
+        Room room = Room.builder().id(2L).name("room").numberOfUsers(5).build();
+        roomPresence.connect(room, ConnectedUserDto.builder().username("guest").build());
+        when(roomRepository.findCapacitiesByIdIn(any())).thenReturn(List.of(capacity(1L, 10), capacity(2L, 5)));
+
+        // When
+        List<RoomOccupancyDto> occupancies = roomService.getOccupancies(List.of(2L, 3L, 1L, 2L));
+
+        // Then
+        assertEquals(List.of(2L, 1L), occupancies.stream().map(RoomOccupancyDto::getId).toList());
+        assertEquals(5, occupancies.get(0).getCapacity());
+        assertEquals(1, occupancies.get(0).getOccupancy());
+        assertEquals(10, occupancies.get(1).getCapacity());
+        assertEquals(0, occupancies.get(1).getOccupancy());
+    }
+
+    @Test
+    void restoreConnectionsShouldRankRestoredRooms() {
+        // Given
+        Room room = Room.builder().id(1L).name("restored").numberOfUsers(5).build();
+        doReturn(Map.of(1L, List.of(ConnectedUserDto.builder().username("first").build())))
+                .when(presenceJournal).recover();
+        when(roomRepository.findAllById(Set.of(1L))).thenReturn(List.of(room));
+
+        // When
+        roomService.restoreConnections();
+
+        // Then
+        assertEquals(1, roomPresence.occupancy(1L));
+        assertEquals(List.of(1L), popularRooms.top(10));
+    }
+
+    @Test
+    public void getPopularShouldReturnBusiestRoomsFirst() throws InterruptedException {
+        // Given
+        roomEventBus.subscribe(popularRooms);
+        Room quiet = Room.builder().id(1L).name("quiet").numberOfUsers(5).build();
+        Room busy = Room.builder().id(2L).name("busy").numberOfUsers(5).build();
+        roomPresence.connect(quiet, ConnectedUserDto.builder().username("first").build());
+        for (String username : List.of("first", "second", "third")) {
+            roomPresence.connect(busy, ConnectedUserDto.builder().username(username).build());
+        }
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!popularRooms.top(10).equals(List.of(2L, 1L)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        when(roomRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(quiet, busy));
+        when(modelMapper.map(any(Room.class), eq(RoomInfoDto.class))).thenAnswer(invocation -> {
+            Room room = invocation.getArgument(0);
+            return RoomInfoDto.builder().id(room.getId()).name(room.getName()).build();
+        });
+
+        // When
+        List<RoomInfoDto> popular = roomService.getPopular(10);
+
+        // Then
+        assertEquals(List.of("busy", "quiet"), popular.stream().map(RoomInfoDto::getName).toList());
+        assertEquals(3, popular.get(0).getConnectedUserCount());
+        assertEquals(1, popular.get(1).getConnectedUserCount());
+    }
+
+    private static RoomRepository.RoomCapacity capacity(Long id, int capacity) {
+        return new RoomRepository.RoomCapacity() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public int getCapacity() {
+                return capacity;
+            }
+        };
+    }
+
     @Test
     public void getAllShouldReturnPage() {
         // Given
@@ -100,6 +250,26 @@ class RoomServiceImplTest {
         assertEquals(page.getTotalElements(), result.getTotalElements());
     }
 
+    @Test
+    void getAllShouldCarryMemberCountAndPreviewOnly() {
+        // Given
+        Pageable pageable = PageRequest.of(0, 10);
+        Room room = Room.builder().id(1L).name("Webinar").numberOfUsers(100).build();
+        for (int i = 0; i < 20; i++) {
+            roomPresence.connect(room, new ConnectedUserDto("user" + i, null));
+        }
+        when(roomRepository.findAll(pageable)).thenReturn(new PageImpl<>(List.of(room), pageable, 1));
+        when(modelMapper.map(room, RoomInfoDto.class)).thenReturn(new RoomInfoDto());
+
+        // When
+        RoomInfoDto result = roomService.getAll(pageable).getContent().get(0);
+
+        // Then
+        assertEquals(20, result.getConnectedUserCount());
+        assertEquals(RoomPresence.PREVIEW_SIZE, result.getConnectedUsers().size());
+        assertEquals("user0", result.getConnectedUsers().get(0).getUsername());
+    }
+
     @Test
     public void getAllRoomsByUserIdShouldReturnPage() {
         // Given
@@ -142,13 +312,14 @@ class RoomServiceImplTest {
                 .thenReturn(Optional.of(user));
 
         // When
-        roomService.connect(roomId, connectionRequestDto);
+        ConnectionOutcome outcome = roomService.connect(roomId, connectionRequestDto);
 
         // Then
+        assertEquals(ConnectionOutcome.CONNECTED, outcome);
         verify(roomRepository).findById(roomId);
         verify(userRepository).findByUsername(connectionRequestDto.getUsername());
 
-        List<ConnectedUserDto> actualConnectedUsers = roomService.connections.get(roomId);
+        List<ConnectedUserDto> actualConnectedUsers = roomPresence.members(roomId);
         assertEquals(1, actualConnectedUsers.size());
         ConnectedUserDto actualConnectedUser = actualConnectedUsers.get(0);
         assertEquals(connectionRequestDto.getUsername(), actualConnectedUser.getUsername());
@@ -156,7 +327,7 @@ class RoomServiceImplTest {
     }
 
     @Test
-    void connectShouldThrowRoomNotFoundException() {
+    void connectShouldReturnRoomNotFound() {
         // Given
         Long roomId = 1L;
         ConnectionRequestDto connectionRequestDto = new ConnectionRequestDto();
@@ -165,11 +336,11 @@ class RoomServiceImplTest {
         when(roomRepository.findById(roomId)).thenReturn(Optional.empty());
 
         // When and Then
-        assertThrows(RoomNotFoundException.class, () -> roomService.connect(roomId, connectionRequestDto));
+        assertEquals(ConnectionOutcome.ROOM_NOT_FOUND, roomService.connect(roomId, connectionRequestDto));
     }
 
     @Test
-    void connectShouldThrowRoomConnectionExceptionIfRoomIsFull() {
+    void connectShouldReturnRoomFullIfRoomIsFull() {
         // Given
         Long roomId = 1L;
         ConnectionRequestDto connectionRequestDto1 = new ConnectionRequestDto();
@@ -191,11 +362,12 @@ class RoomServiceImplTest {
 
         // When and Then
         roomService.connect(roomId, connectionRequestDto1);
-        assertThrows(RoomConnectionException.class, () -> roomService.connect(roomId, connectionRequestDto2));
+        assertEquals(ConnectionOutcome.ROOM_FULL, roomService.connect(roomId, connectionRequestDto2));
+        assertEquals(1, roomPresence.members(roomId).size());
     }
 
     @Test
-    void connectShouldThrowRoomConnectionExceptionIfWrongPassword() {
+    void connectShouldReturnWrongPasswordIfWrongPassword() {
         // Given
         Long roomId = 1L;
         ConnectionRequestDto connectionRequestDto = new ConnectionRequestDto();
@@ -210,6 +382,155 @@ class RoomServiceImplTest {
         when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
 
         // When and Then
-        assertThrows(RoomConnectionException.class, () -> roomService.connect(roomId, connectionRequestDto));
+        assertEquals(ConnectionOutcome.WRONG_PASSWORD, roomService.connect(roomId, connectionRequestDto));
+        assertNull(roomPresence.members(roomId));
+    }
+
+    @Test
+    void connectShouldReturnUsernameRequiredIfUsernameIsMissing() {
+        // Given
+        Long roomId = 1L;
+        Room room = Room.builder().id(roomId).name("Test Room").numberOfUsers(2).build();
+        when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
+
+        // When and Then
+        assertEquals(ConnectionOutcome.USERNAME_REQUIRED,
+                roomService.connect(roomId, new ConnectionRequestDto(null, null)));
+    }
+
+    @Test
+    void connectOrWaitShouldParkRequestWhenRoomIsFull() {
+        // Given
+        Long roomId = 1L;
+        Room room = Room.builder()
+                .id(roomId)
+                .name("Test Room")
+                .numberOfUsers(1)
+                .build();
+        when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
+        roomService.connect(roomId, new ConnectionRequestDto("user1", null));
+
+        // When
+        CompletableFuture<ConnectionOutcome> admission =
+                roomService.connectOrWait(roomId, new ConnectionRequestDto("user2", null));
+
+        // Then
+        assertFalse(admission.isDone());
+        assertEquals(1, roomWaitlist.size(roomId));
+        assertEquals(1, roomPresence.members(roomId).size());
+    }
+
+    @Test
+    void connectOrWaitShouldReturnWaitlistFullIfWaitlistIsFull() {
+        // Given
+        Long roomId = 1L;
+        Room room = Room.builder()
+                .id(roomId)
+                .name("Test Room")
+                .numberOfUsers(1)
+                .build();
+        when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
+        roomService.connect(roomId, new ConnectionRequestDto("user1", null));
+        roomService.connectOrWait(roomId, new ConnectionRequestDto("user2", null));
+
+        // When and Then
+        assertEquals(ConnectionOutcome.WAITLIST_FULL,
+                roomService.connectOrWait(roomId, new ConnectionRequestDto("user3", null)).join());
+    }
+
+    @Test
+    void disconnectShouldAdmitOldestWaitingRequest() {
+        // Given
+        Long roomId = 1L;
+        Room room = Room.builder()
+                .id(roomId)
+                .name("Test Room")
+                .numberOfUsers(1)
+                .build();
+        when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
+        roomService.connect(roomId, new ConnectionRequestDto("user1", null));
+        CompletableFuture<ConnectionOutcome> admission =
+                roomService.connectOrWait(roomId, new ConnectionRequestDto("user2", null));
+
+        // When
+        DisconnectionOutcome outcome = roomService.disconnect(new DisconnectionRequestDto("user1", room.getName()));
+
+        // Then
+        assertEquals(DisconnectionOutcome.DISCONNECTED, outcome);
+        assertTrue(admission.isDone());
+        assertEquals(ConnectionOutcome.CONNECTED, admission.join());
+        List<ConnectedUserDto> connectedUsers = roomPresence.members(roomId);
+        assertEquals(1, connectedUsers.size());
+        assertEquals("user2", connectedUsers.get(0).getUsername());
+        assertEquals(0, roomWaitlist.size(roomId));
+    }
+
+    @Test
+    void connectOrWaitShouldAdmitUserWaitingInTwoTabsOnce() {
+        // Given
+        Long roomId = 1L;
+        Room room = Room.builder()
+                .id(roomId)
+                .name("Test Room")
+                .numberOfUsers(1)
+                .build();
+        when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
+        roomService.connect(roomId, new ConnectionRequestDto("user1", null));
+        CompletableFuture<ConnectionOutcome> firstTab =
+                roomService.connectOrWait(roomId, new ConnectionRequestDto("user2", null));
+
+        // When
+        CompletableFuture<ConnectionOutcome> secondTab =
+                roomService.connectOrWait(roomId, new ConnectionRequestDto("user2", null));
+        roomService.disconnect(new DisconnectionRequestDto("user1", room.getName()));
+
+        // Then
+        assertEquals(ConnectionOutcome.ALREADY_WAITING, secondTab.join());
+        assertEquals(ConnectionOutcome.CONNECTED, firstTab.join());
+        assertEquals(List.of("user2"),
+                roomPresence.members(roomId).stream().map(ConnectedUserDto::getUsername).toList());
+        assertEquals(1, roomPresence.occupancy(roomId));
+        assertEquals(0, roomWaitlist.size(roomId));
+    }
+
+    @Test
+    void disconnectShouldReturnUserNotInRoomIfUserIsNotInRoom() {
+        // Given
+        Long roomId = 1L;
+        Room room = Room.builder()
+                .id(roomId)
+                .name("Test Room")
+                .numberOfUsers(2)
+                .build();
+        when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
+        when(roomRepository.findByName(room.getName())).thenReturn(Optional.of(room));
+        roomService.connect(roomId, new ConnectionRequestDto("user1", null));
+
+        // When and Then
+        assertEquals(DisconnectionOutcome.USER_NOT_IN_ROOM,
+                roomService.disconnect(new DisconnectionRequestDto("user2", room.getName())));
+        assertEquals(DisconnectionOutcome.ROOM_NOT_FOUND,
+                roomService.disconnect(new DisconnectionRequestDto("user1", "Missing Room")));
+    }
+
+    @Test
+    void disconnectFromAllRoomsShouldReleaseEverySlotOfUser() {
+        // Given
+        Room first = Room.builder().id(1L).name("First").numberOfUsers(2).build();
+        Room second = Room.builder().id(2L).name("Second").numberOfUsers(2).build();
+        when(roomRepository.findById(1L)).thenReturn(Optional.of(first));
+        when(roomRepository.findById(2L)).thenReturn(Optional.of(second));
+        roomService.connect(1L, new ConnectionRequestDto("user1", null));
+        roomService.connect(1L, new ConnectionRequestDto("user2", null));
+        roomService.connect(2L, new ConnectionRequestDto("user1", null));
+
+        // When
+        roomService.disconnectFromAllRooms("user1");
+
+        // Then
+        assertTrue(roomPresence.roomsOf("user1").isEmpty());
+        assertEquals(1, roomPresence.members(1L).size());
+        assertEquals("user2", roomPresence.members(1L).get(0).getUsername());
+        assertNull(roomPresence.members(2L));
     }
-}
\ No newline at end of file
+}
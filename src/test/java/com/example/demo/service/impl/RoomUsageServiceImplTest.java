@@ -0,0 +1,127 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.exception.RoomNotFoundException;
+import com.example.demo.persistence.dto.OccupancySeriesDto;
+import com.example.demo.persistence.dto.OwnerUsageStatsDto;
+import com.example.demo.persistence.dto.RoomUsageStatsDto;
+import com.example.demo.persistence.model.RoomUsageStats;
+import com.example.demo.persistence.repository.RoomRepository;
+import com.example.demo.persistence.repository.RoomUsageStatsRepository;
+import com.example.demo.service.usage.OccupancyHistory;
+import com.example.demo.service.usage.OccupancyResolution;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RoomUsageServiceImplTest {
+
+    @Mock
+    private RoomUsageStatsRepository roomUsageStatsRepository;
+    @Mock
+    private RoomRepository roomRepository;
+    @Mock
+    private OccupancyHistory occupancyHistory;
+    @InjectMocks
+    private RoomUsageServiceImpl roomUsageService;
+
+    @Test
+    void getRoomStatsShouldComputeAverageFromRollup() {
+        // Given
+        when(roomUsageStatsRepository.findById(1L)).thenReturn(Optional.of(RoomUsageStats.builder()
+                .roomId(1L)
+                .sessionCount(4)
+                .totalSessionSeconds(100)
+                .peakOccupancy(3)
+                .build()));
+
+        // When
+        RoomUsageStatsDto stats = roomUsageService.getRoomStats(1L);
+
+        // Then
+        assertEquals(4, stats.getSessionCount());
+        assertEquals(25, stats.getAverageSessionSeconds());
+        assertEquals(3, stats.getPeakOccupancy());
+    }
+
+    @Test
+    void getRoomStatsShouldReturnZerosForUnusedRoom() {
+        // Given
+        when(roomUsageStatsRepository.findById(1L)).thenReturn(Optional.empty());
+        when(roomRepository.existsById(1L)).thenReturn(true);
+
+        // When
+        RoomUsageStatsDto stats = roomUsageService.getRoomStats(1L);
+
+        // Then
+        assertEquals(0, stats.getSessionCount());
+        assertEquals(0, stats.getAverageSessionSeconds());
+    }
+
+    @Test
+    void getRoomStatsShouldThrowRoomNotFoundException() {
+        // Given
+        when(roomUsageStatsRepository.findById(1L)).thenReturn(Optional.empty());
+        when(roomRepository.existsById(1L)).thenReturn(false);
+
+        // When & Then
+        assertThrows(RoomNotFoundException.class, () -> roomUsageService.getRoomStats(1L));
+    }
+
+    @Test
+    void getOwnerStatsShouldCountRoomsWithoutSessionsAsNoShows() {
+        // Given
+        when(roomRepository.countByUserId(7L)).thenReturn(5L);
+        RoomUsageStatsRepository.OwnerUsage usage = mock(RoomUsageStatsRepository.OwnerUsage.class);
+        when(usage.getUsedRooms()).thenReturn(2L);
+        when(usage.getSessionCount()).thenReturn(10L);
+        when(usage.getTotalSessionSeconds()).thenReturn(600L);
+        when(usage.getPeakOccupancy()).thenReturn(4);
+        when(roomUsageStatsRepository.summarizeByOwnerId(7L)).thenReturn(usage);
+
+        // When
+        OwnerUsageStatsDto stats = roomUsageService.getOwnerStats(7L);
+
+        // Then
+        assertEquals(5, stats.getRooms());
+        assertEquals(3, stats.getNoShowRooms());
+        assertEquals(60, stats.getAverageSessionSeconds());
+        assertEquals(4, stats.getPeakOccupancy());
+    }
+
+    @Test
+    void getOccupancyShouldReturnZerosForRoomWithoutHistory() {
+        // Given
+        when(occupancyHistory.samples(eq(1L), eq(OccupancyResolution.HOURS), anyLong())).thenReturn(null);
+        when(roomRepository.existsById(1L)).thenReturn(true);
+
+        // When
+        OccupancySeriesDto series = roomUsageService.getOccupancy(1L, OccupancyResolution.HOURS);
+
+        // Then
+        assertEquals(3600, series.getIntervalSeconds());
+        assertArrayEquals(new int[24], series.getSamples());
+        assertEquals(0, series.getFrom().getMinute());
+    }
+
+    @Test
+    void getOccupancyShouldThrowRoomNotFoundException() {
+        // Given
+        when(occupancyHistory.samples(eq(1L), eq(OccupancyResolution.SECONDS), anyLong())).thenReturn(null);
+        when(roomRepository.existsById(1L)).thenReturn(false);
+
+        // When & Then
+        assertThrows(RoomNotFoundException.class,
+                () -> roomUsageService.getOccupancy(1L, OccupancyResolution.SECONDS));
+    }
+}
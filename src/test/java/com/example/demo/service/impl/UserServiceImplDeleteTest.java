@@ -0,0 +1,101 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.persistence.dto.ConnectionRequestDto;
+import com.example.demo.persistence.model.Room;
+import com.example.demo.persistence.model.User;
+import com.example.demo.persistence.model.enums.Role;
+import com.example.demo.persistence.repository.RoomRepository;
+import com.example.demo.persistence.repository.UserRepository;
+import com.example.demo.service.avatar.AvatarStore;
+import com.example.demo.service.cluster.ClusterPresence;
+import com.example.demo.service.cluster.RoomOwnership;
+import com.example.demo.service.directory.PopularRooms;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.presence.PresenceJournal;
+import com.example.demo.service.presence.RoomPresence;
+import com.example.demo.service.presence.RoomWaitlist;
+import com.example.demo.web.security.jwt.TokenRevocationList;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@Import({UserServiceImpl.class, RoomServiceImpl.class, RoomPresence.class, RoomWaitlist.class, PresenceJournal.class,
+        RoomEventBus.class, AvatarStore.class, TokenRevocationList.class, PopularRooms.class,
+        RoomOwnership.class, ClusterPresence.class})
+class UserServiceImplDeleteTest {
+    private static final int ROOMS = 2_000;
+
+    @Autowired
+    private UserServiceImpl userService;
+    @Autowired
+    private RoomServiceImpl roomService;
+    @Autowired
+    private RoomPresence roomPresence;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @MockBean
+    private ModelMapper modelMapper;
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void deleteByIdShouldUseConstantNumberOfStatementsAndPurgePresence() {
+        // Given
+        User owner = userRepository.save(User.builder()
+                .email("owner@example.com")
+                .username("owner")
+                .password("password")
+                .role(Role.USER)
+                .build());
+        IntStream.range(0, ROOMS).forEach(i -> roomRepository.save(Room.builder()
+                .name("room" + i)
+                .numberOfUsers(2)
+                .user(owner)
+                .build()));
+        Long roomId = roomRepository.findIdsByUserId(owner.getId()).get(0);
+        roomService.connect(roomId, new ConnectionRequestDto("guest", null));
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        assertTrue(userService.deleteById(owner.getId()));
+        entityManager.flush();
+        long statements = statistics.getPrepareStatementCount();
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        // Then
+        assertEquals(4, statements);
+        assertEquals(0, roomRepository.count());
+        assertEquals(0, userRepository.count());
+        assertNull(roomPresence.members(roomId));
+        assertTrue(roomPresence.roomsOf("guest").isEmpty());
+    }
+}
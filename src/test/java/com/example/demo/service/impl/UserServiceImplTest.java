@@ -7,6 +7,9 @@ import com.example.demo.persistence.dto.UserProfileReadDto;
 import com.example.demo.persistence.dto.UserProfileUpdateDto;
 import com.example.demo.persistence.model.User;
 import com.example.demo.persistence.repository.UserRepository;
+import com.example.demo.service.RoomService;
+import com.example.demo.service.avatar.AvatarStore;
+import com.example.demo.web.security.jwt.TokenRevocationList;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -15,10 +18,15 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +37,12 @@ class UserServiceImplTest {
     private PasswordEncoder encoder;
     @Mock
     private ModelMapper modelMapper;
+    @Mock
+    private RoomService roomService;
+    @Mock
+    private AvatarStore avatarStore;
+    @Mock
+    private TokenRevocationList tokenRevocationList;
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -71,6 +85,39 @@ class UserServiceImplTest {
         assertThrows(UserAlreadyExists.class, () -> userService.addUser(userCreateDto));
     }
 
+    @Test
+    public void testAddUserUsernameAlreadyExists() {
+        UserCreateDto userCreateDto = new UserCreateDto();
+        userCreateDto.setEmail("test@example.com");
+        userCreateDto.setUsername("testuser");
+        userCreateDto.setPassword("password");
+
+        when(userRepo.existsByUsername("testuser")).thenReturn(true);
+
+        assertThrows(UserAlreadyExists.class, () -> userService.addUser(userCreateDto));
+        verify(userRepo, never()).save(any(User.class));
+    }
+
+    @Test
+    public void testUpdateByIdUsernameAlreadyExists() {
+        UserProfileUpdateDto userDto = new UserProfileUpdateDto();
+        userDto.setUsername("taken");
+        userDto.setEmail("oldemail@example.com");
+        userDto.setPassword("password");
+        userDto.setConfirmPassword("password");
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("oldusername");
+        user.setEmail("oldemail@example.com");
+
+        when(userRepo.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepo.existsByUsername("taken")).thenReturn(true);
+
+        assertThrows(UserAlreadyExists.class, () -> userService.updateById(1L, userDto));
+        assertEquals("oldusername", user.getUsername());
+    }
+
     @Test
     public void testGetById() {
         User user = new User();
@@ -113,6 +160,7 @@ class UserServiceImplTest {
         user.setUsername("oldusername");
         user.setEmail("oldemail@example.com");
         user.setPassword(encoder.encode("oldpassword"));
+        user.setImageUrl("/api/v1/avatars/abc/64.png");
 
         when(userRepo.findById(1L)).thenReturn(Optional.of(user));
 
@@ -120,18 +168,40 @@ class UserServiceImplTest {
 
         assertEquals(userDto.getUsername(), user.getUsername());
         assertEquals(userDto.getEmail(), user.getEmail());
-        assertEquals(userDto.getImageUrl(), user.getImageUrl());
+        assertEquals("/api/v1/avatars/abc/64.png", user.getImageUrl());
         assertNotEquals(userDto.getPassword(), user.getPassword());
+        assertNotNull(user.getTokensValidAfter());
+        verify(tokenRevocationList).revokeIssuedBefore("oldemail@example.com", user.getTokensValidAfter().toEpochMilli());
+    }
+
+    @Test
+    public void testUpdateAvatar() {
+        User user = new User();
+        user.setId(1L);
+        byte[] image = {1, 2, 3};
+        String hash = "ab".repeat(32);
+
+        when(userRepo.findById(1L)).thenReturn(Optional.of(user));
+        when(avatarStore.store(image)).thenReturn(hash);
+        when(avatarStore.getSizes()).thenReturn(List.of(64, 256));
+
+        String imageUrl = userService.updateAvatar(1L, image);
+
+        assertEquals("/api/v1/avatars/" + hash + "/64.png", imageUrl);
+        assertEquals(imageUrl, user.getImageUrl());
     }
 
     @Test
     public void testDeleteById() {
         User user = new User();
         user.setId(1L);
+        user.setUsername("testuser");
 
         when(userRepo.findById(1L)).thenReturn(Optional.of(user));
 
         assertTrue(userService.deleteById(1L));
+        verify(roomService).disconnectFromAllRooms("testuser");
+        verify(tokenRevocationList).revokeIssuedBefore(eq(user.getEmail()), anyLong());
     }
 
     @Test
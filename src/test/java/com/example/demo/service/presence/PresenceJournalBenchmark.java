@@ -0,0 +1,51 @@
+package com.example.demo.service.presence;
+
+import com.example.demo.persistence.dto.ConnectedUserDto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Tag("benchmark")
+class PresenceJournalBenchmark {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void openShouldRecoverMillionMembershipsQuickly() throws Exception {
+        // Given
+        int rooms = 100_000;
+        int usersPerRoom = 10;
+        PresenceJournal journal = newJournal(16 << 20);
+        journal.open();
+        for (long roomId = 0; roomId < rooms; roomId++) {
+            for (int user = 0; user < usersPerRoom; user++) {
+                journal.recordConnect(roomId, new ConnectedUserDto("user" + user, null));
+            }
+        }
+        journal.stopWriter();
+
+        // When
+        long started = System.nanoTime();
+        PresenceJournal restarted = newJournal(16 << 20);
+        restarted.open();
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        // Then
+        Map<Long, List<ConnectedUserDto>> recovered = restarted.recover();
+        assertEquals(rooms, recovered.size());
+        assertEquals((long) rooms * usersPerRoom, recovered.values().stream().mapToLong(List::size).sum());
+        System.out.printf("Recovered %d memberships in %d ms%n", rooms * usersPerRoom, elapsedMillis);
+        restarted.close();
+    }
+
+    private PresenceJournal newJournal(int journalSize) {
+        return new PresenceJournal(true, directory, journalSize, Long.MAX_VALUE);
+    }
+}
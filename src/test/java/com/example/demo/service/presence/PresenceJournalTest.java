@@ -0,0 +1,102 @@
+package com.example.demo.service.presence;
+
+import com.example.demo.persistence.dto.ConnectedUserDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PresenceJournalTest {
+    private static final int JOURNAL_SIZE = 1 << 20;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void openShouldReplayJournalTailAfterCrash() throws Exception {
+        // Given
+        PresenceJournal journal = newJournal(JOURNAL_SIZE);
+        journal.open();
+        journal.recordConnect(1L, new ConnectedUserDto("user1", "image1"));
+        journal.recordConnect(1L, new ConnectedUserDto("user2", null));
+        journal.recordConnect(2L, new ConnectedUserDto("user3", null));
+        journal.recordDisconnect(1L, "user1");
+        journal.recordDisconnect(2L, "user3");
+        journal.stopWriter();
+
+        // When
+        PresenceJournal restarted = newJournal(JOURNAL_SIZE);
+        restarted.open();
+
+        // Then
+        Map<Long, List<ConnectedUserDto>> recovered = restarted.recover();
+        assertEquals(1, recovered.size());
+        List<ConnectedUserDto> users = recovered.get(1L);
+        assertEquals(1, users.size());
+        assertEquals("user2", users.get(0).getUsername());
+        assertNull(users.get(0).getImageUrl());
+        assertFalse(Files.exists(directory.resolve(PresenceJournal.SNAPSHOT_FILE)));
+        restarted.close();
+    }
+
+    @Test
+    void closeShouldCompactJournalIntoSnapshot() throws Exception {
+        // Given
+        PresenceJournal journal = newJournal(JOURNAL_SIZE);
+        journal.open();
+        journal.recordConnect(1L, new ConnectedUserDto("user1", "image1"));
+
+        // When
+        journal.close();
+        PresenceJournal restarted = newJournal(JOURNAL_SIZE);
+        restarted.open();
+        restarted.recordConnect(1L, new ConnectedUserDto("user2", null));
+        restarted.stopWriter();
+        PresenceJournal recoveredJournal = newJournal(JOURNAL_SIZE);
+        recoveredJournal.open();
+
+        // Then
+        assertTrue(Files.exists(directory.resolve(PresenceJournal.SNAPSHOT_FILE)));
+        List<ConnectedUserDto> users = recoveredJournal.recover().get(1L);
+        assertEquals(2, users.size());
+        assertEquals("user1", users.get(0).getUsername());
+        assertEquals("image1", users.get(0).getImageUrl());
+        assertEquals("user2", users.get(1).getUsername());
+        recoveredJournal.close();
+    }
+
+    @Test
+    void openShouldRecoverFromSnapshotAndJournalTailAfterJournalFilledUp() throws Exception {
+        // Given
+        int rooms = 1_000;
+        int usersPerRoom = 10;
+        PresenceJournal journal = newJournal(64 << 10);
+        journal.open();
+        for (long roomId = 0; roomId < rooms; roomId++) {
+            for (int user = 0; user < usersPerRoom; user++) {
+                journal.recordConnect(roomId, new ConnectedUserDto("user" + user, null));
+            }
+        }
+        journal.stopWriter();
+
+        // When
+        PresenceJournal restarted = newJournal(64 << 10);
+        restarted.open();
+
+        // Then
+        Map<Long, List<ConnectedUserDto>> recovered = restarted.recover();
+        assertTrue(Files.exists(directory.resolve(PresenceJournal.SNAPSHOT_FILE)));
+        assertEquals(rooms, recovered.size());
+        assertEquals((long) rooms * usersPerRoom, recovered.values().stream().mapToLong(List::size).sum());
+        restarted.close();
+    }
+
+    private PresenceJournal newJournal(int journalSize) {
+        return new PresenceJournal(true, directory, journalSize, Long.MAX_VALUE);
+    }
+}
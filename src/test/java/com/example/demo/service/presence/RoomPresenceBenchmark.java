@@ -0,0 +1,64 @@
+package com.example.demo.service.presence;
+
+import com.example.demo.persistence.dto.ConnectedUserDto;
+import com.example.demo.persistence.dto.RoomMembersDto;
+import com.example.demo.persistence.model.Room;
+import com.example.demo.service.ConnectionOutcome;
+import com.example.demo.service.event.RoomEventBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Tag("benchmark")
+class RoomPresenceBenchmark {
+    private static final int MEMBERS = 20_000;
+
+    private final RoomEventBus roomEventBus = new RoomEventBus(1024);
+    private final RoomPresence roomPresence = new RoomPresence(new RoomWaitlist(60_000, 10),
+            new PresenceJournal(false, null, 0, 0), roomEventBus);
+    private final Room room = Room.builder().id(1L).name("Webinar").numberOfUsers(MEMBERS).build();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        roomEventBus.shutdown();
+    }
+
+    @Test
+    void joinAndPageShouldStayCheapForVeryLargeRoom() {
+        // When
+        long started = System.nanoTime();
+        for (int i = 0; i < MEMBERS; i++) {
+            join("user" + i);
+        }
+        long joinNanos = System.nanoTime() - started;
+
+        started = System.nanoTime();
+        Set<String> visited = new HashSet<>();
+        RoomMembersDto page = new RoomMembersDto(0, true, 0, List.of());
+        int pages = 0;
+        while (page.isHasMore()) {
+            page = roomPresence.page(room.getId(), page.getCursor(), 500);
+            page.getMembers().forEach(user -> visited.add(user.getUsername()));
+            pages++;
+        }
+        long pageNanos = System.nanoTime() - started;
+
+        // Then
+        assertEquals(MEMBERS, visited.size());
+        assertEquals(MEMBERS / 500, pages);
+        assertEquals(RoomPresence.PREVIEW_SIZE, roomPresence.preview(room.getId()).size());
+        System.out.printf("%d members: %.2f us per join, %.2f ms to page through all in %d pages%n",
+                MEMBERS, joinNanos / 1e3 / MEMBERS, pageNanos / 1e6, pages);
+    }
+
+    private void join(String username) {
+        assertEquals(ConnectionOutcome.CONNECTED,
+                roomPresence.connect(room, ConnectedUserDto.builder().username(username).build()));
+    }
+}
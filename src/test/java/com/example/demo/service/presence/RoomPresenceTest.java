@@ -0,0 +1,132 @@
+package com.example.demo.service.presence;
+
+import com.example.demo.persistence.dto.ConnectedUserDto;
+import com.example.demo.persistence.dto.RoomMembersDto;
+import com.example.demo.persistence.model.Room;
+import com.example.demo.service.ConnectionOutcome;
+import com.example.demo.service.event.RoomEventBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomPresenceTest {
+    private static final int MEMBERS = 2_000;
+
+    private final RoomEventBus roomEventBus = new RoomEventBus(1024);
+    private final RoomPresence roomPresence = new RoomPresence(new RoomWaitlist(60_000, 10),
+            new PresenceJournal(false, null, 0, 0), roomEventBus);
+    private final Room room = Room.builder().id(1L).name("Webinar").numberOfUsers(MEMBERS).build();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        roomEventBus.shutdown();
+    }
+
+    @Test
+    void pageShouldVisitEveryRemainingMemberOnceWhileMembersJoinAndLeave() {
+        // Given
+        for (int i = 0; i < 100; i++) {
+            join("user" + i);
+        }
+
+        // When
+        List<String> visited = new ArrayList<>();
+        RoomMembersDto page = roomPresence.page(room.getId(), 0, 30);
+        page.getMembers().forEach(user -> visited.add(user.getUsername()));
+        roomPresence.disconnect("user10", room.getName());
+        roomPresence.disconnect("user50", room.getName());
+        join("late");
+        while (page.isHasMore()) {
+            page = roomPresence.page(room.getId(), page.getCursor(), 30);
+            page.getMembers().forEach(user -> visited.add(user.getUsername()));
+        }
+
+        // Then
+        assertEquals(100, visited.size());
+        assertEquals(100, new HashSet<>(visited).size());
+        assertTrue(visited.contains("user10"));
+        assertFalse(visited.contains("user50"));
+        assertEquals("late", visited.get(visited.size() - 1));
+        assertEquals(99, page.getTotal());
+    }
+
+    @Test
+    void releaseShouldNotAdmitWaitingUserWhoIsAlreadyMember() {
+        // Given
+        Room small = Room.builder().id(2L).name("Small").numberOfUsers(2).build();
+        roomPresence.connect(small, ConnectedUserDto.builder().username("alice").build());
+        roomPresence.connect(small, ConnectedUserDto.builder().username("bob").build());
+        CompletableFuture<ConnectionOutcome> waiting =
+                roomPresence.connectOrWait(small, ConnectedUserDto.builder().username("carol").build());
+        roomPresence.restore(small, List.of(ConnectedUserDto.builder().username("carol").build()));
+
+        // When
+        roomPresence.disconnect("alice", small.getName());
+        roomPresence.disconnect("bob", small.getName());
+
+        // Then
+        assertEquals(ConnectionOutcome.CONNECTED, waiting.join());
+        assertEquals(List.of("carol"), usernames(roomPresence.members(small.getId())));
+        assertEquals(1, roomPresence.occupancy(small.getId()));
+    }
+
+    @Test
+    void previewShouldFollowFirstMembersInJoinOrder() {
+        // Given
+        for (int i = 0; i < 8; i++) {
+            join("user" + i);
+        }
+
+        // When
+        List<String> before = usernames(roomPresence.preview(room.getId()));
+        roomPresence.disconnect("user2", room.getName());
+        roomPresence.disconnect("user7", room.getName());
+        List<String> after = usernames(roomPresence.preview(room.getId()));
+
+        // Then
+        assertEquals(List.of("user0", "user1", "user2", "user3", "user4"), before);
+        assertEquals(List.of("user0", "user1", "user3", "user4", "user5"), after);
+        assertEquals(6, roomPresence.occupancy(room.getId()));
+        assertEquals(List.of(), roomPresence.preview(2L));
+        assertEquals(0, roomPresence.occupancy(2L));
+    }
+
+    @Test
+    void pageShouldVisitEveryMemberOfLargeRoomInFullPages() {
+        // Given
+        for (int i = 0; i < MEMBERS; i++) {
+            join("user" + i);
+        }
+
+        // When
+        Set<String> visited = new HashSet<>();
+        RoomMembersDto page = new RoomMembersDto(0, true, 0, List.of());
+        int pages = 0;
+        while (page.isHasMore()) {
+            page = roomPresence.page(room.getId(), page.getCursor(), 500);
+            page.getMembers().forEach(user -> visited.add(user.getUsername()));
+            pages++;
+        }
+
+        // Then
+        assertEquals(MEMBERS, visited.size());
+        assertEquals(MEMBERS / 500, pages);
+        assertEquals(RoomPresence.PREVIEW_SIZE, roomPresence.preview(room.getId()).size());
+    }
+
+    private void join(String username) {
+        assertEquals(ConnectionOutcome.CONNECTED,
+                roomPresence.connect(room, ConnectedUserDto.builder().username(username).build()));
+    }
+
+    private static List<String> usernames(List<ConnectedUserDto> users) {
+        return users.stream().map(ConnectedUserDto::getUsername).toList();
+    }
+}
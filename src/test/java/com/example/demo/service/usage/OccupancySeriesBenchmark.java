@@ -0,0 +1,39 @@
+package com.example.demo.service.usage;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+class OccupancySeriesBenchmark {
+    private static final long START = 1_700_000_000L / 3600 * 3600;
+    private static final int ROOMS = 100_000;
+
+    @Test
+    void seriesFootprintShouldStayBoundedAtHundredThousandRooms() {
+        // Given
+        Runtime runtime = Runtime.getRuntime();
+        OccupancySeries[] rooms = new OccupancySeries[ROOMS];
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+
+        // When
+        for (int i = 0; i < ROOMS; i++) {
+            rooms[i] = new OccupancySeries();
+            for (int second = 0; second < 120; second += 7) {
+                rooms[i].record(START + second, second % 5);
+            }
+        }
+        System.gc();
+        long after = runtime.totalMemory() - runtime.freeMemory();
+
+        // Then
+        long bytesPerRoom = (after - before) / ROOMS;
+        System.out.printf("%d rooms: %d slots, ~%d bytes per room, ~%d MB total%n",
+                ROOMS, OccupancySeries.SLOTS, bytesPerRoom, (after - before) >> 20);
+        assertEquals(144, OccupancySeries.SLOTS);
+        assertTrue(bytesPerRoom < 2 * 1024, "bytes per room: " + bytesPerRoom);
+        assertNotNull(rooms[ROOMS - 1]);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.service.usage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OccupancySeriesTest {
+    private static final long START = 1_700_000_000L / 3600 * 3600;
+
+    @Test
+    void recordShouldKeepPeakPerBucketAndFillSkippedBucketsForward() {
+        // Given
+        OccupancySeries series = new OccupancySeries();
+
+        // When
+        series.record(START, 1);
+        series.record(START, 3);
+        series.record(START, 2);
+        series.record(START + 5, 1);
+
+        // Then
+        int[] seconds = series.read(OccupancyResolution.SECONDS, START + 6);
+        assertArrayEquals(new int[]{3, 2, 2, 2, 2, 2, 1}, Arrays.copyOfRange(seconds, 53, 60));
+        assertEquals(0, seconds[52]);
+        int[] minutes = series.read(OccupancyResolution.MINUTES, START + 6);
+        assertEquals(3, minutes[59]);
+    }
+
+    @Test
+    void readShouldDownsampleOlderActivityIntoCoarserBuckets() {
+        // Given
+        OccupancySeries series = new OccupancySeries();
+        series.record(START, 4);
+        series.record(START + 30, 0);
+        series.record(START + 7200 + 10, 2);
+
+        // When
+        int[] seconds = series.read(OccupancyResolution.SECONDS, START + 7200 + 10);
+        int[] minutes = series.read(OccupancyResolution.MINUTES, START + 7200 + 10);
+        int[] hours = series.read(OccupancyResolution.HOURS, START + 7200 + 10);
+
+        // Then
+        assertEquals(2, seconds[59]);
+        assertEquals(0, seconds[0]);
+        assertEquals(2, minutes[59]);
+        assertEquals(0, minutes[58]);
+        assertArrayEquals(new int[]{4, 0, 2}, Arrays.copyOfRange(hours, 21, 24));
+    }
+
+    @Test
+    void readShouldCarryCurrentOccupancyUpToNow() {
+        // Given
+        OccupancySeries series = new OccupancySeries();
+        series.record(START, 5);
+
+        // When
+        int[] minutes = series.read(OccupancyResolution.MINUTES, START + 600);
+
+        // Then
+        assertEquals(0, minutes[48]);
+        assertTrue(Arrays.stream(minutes, 49, 60).allMatch(value -> value == 5));
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.service.usage;
+
+import com.example.demo.persistence.model.RoomUsageStats;
+import com.example.demo.persistence.repository.RoomSessionRepository;
+import com.example.demo.persistence.repository.RoomUsageStatsRepository;
+import com.example.demo.service.event.RoomEventBus;
+import com.example.demo.service.event.RoomEventType;
+import com.example.demo.service.presence.RoomPresence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "rooms.sessions.batch-size=64"
+})
+@Import({RoomSessionRecorder.class, RoomEventBus.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RoomSessionRecorderTest {
+    private static final int USERS = 1_000;
+
+    @Autowired
+    private RoomEventBus roomEventBus;
+    @Autowired
+    private RoomSessionRecorder recorder;
+    @Autowired
+    private RoomSessionRepository roomSessionRepository;
+    @Autowired
+    private RoomUsageStatsRepository roomUsageStatsRepository;
+    @MockBean
+    private RoomPresence roomPresence;
+
+    @AfterEach
+    void tearDown() {
+        roomSessionRepository.deleteAllInBatch();
+        roomUsageStatsRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void recorderShouldPersistClosedSessionsAndRollUpStats() throws InterruptedException {
+        // Given
+        for (int i = 0; i < USERS; i++) {
+            roomEventBus.publish(RoomEventType.CONNECTED, 1L, 7L, "room", USERS, "user" + i, i + 1);
+        }
+
+        // When
+        for (int i = 0; i < USERS; i++) {
+            roomEventBus.publish(RoomEventType.DISCONNECTED, 1L, 7L, "room", USERS, "user" + i, USERS - i - 1);
+        }
+        awaitUntil(() -> roomSessionRepository.count() == USERS);
+
+        // Then
+        RoomUsageStats stats = roomUsageStatsRepository.findById(1L).orElseThrow();
+        assertEquals(USERS, stats.getSessionCount());
+        assertEquals(USERS, stats.getPeakOccupancy());
+        assertEquals(7L, stats.getOwnerId());
+        assertNotNull(stats.getLastJoinedAt());
+        assertNotNull(stats.getLastLeftAt());
+        assertEquals(0, roomEventBus.getDroppedCount());
+    }
+
+    @Test
+    void recorderShouldCloseOpenSessionsAndRemoveStatsWhenRoomIsDeleted() throws InterruptedException {
+        // Given
+        roomEventBus.publish(RoomEventType.CONNECTED, 2L, 7L, "room", 2, "first", 1);
+        roomEventBus.publish(RoomEventType.DISCONNECTED, 2L, 7L, "room", 2, "first", 0);
+        awaitUntil(() -> roomUsageStatsRepository.existsById(2L));
+        roomEventBus.publish(RoomEventType.CONNECTED, 2L, 7L, "room", 2, "first", 1);
+        roomEventBus.publish(RoomEventType.CONNECTED, 2L, 7L, "room", 2, "second", 2);
+
+        // When
+        roomEventBus.publish(RoomEventType.DELETED, 2L, 7L, "room", 2, null, 0);
+        awaitUntil(() -> roomSessionRepository.count() == 3 && !roomUsageStatsRepository.existsById(2L));
+
+        // Then
+        assertEquals(3, roomSessionRepository.count());
+        assertFalse(roomUsageStatsRepository.existsById(2L));
+    }
+
+    @Test
+    void recorderShouldKeepStatsOfOtherRoomsWhenRoomIsDeleted() throws InterruptedException {
+        // Given
+        roomEventBus.publish(RoomEventType.CONNECTED, 3L, 7L, "room", 2, "first", 1);
+        roomEventBus.publish(RoomEventType.CONNECTED, 4L, 7L, "other", 2, "first", 1);
+
+        // When
+        roomEventBus.publish(RoomEventType.DELETED, 3L, 7L, "room", 2, null, 0);
+        roomEventBus.publish(RoomEventType.DISCONNECTED, 4L, 7L, "other", 2, "first", 0);
+        awaitUntil(() -> roomUsageStatsRepository.existsById(4L));
+
+        // Then
+        assertEquals(1, roomUsageStatsRepository.findById(4L).orElseThrow().getSessionCount());
+        assertFalse(roomUsageStatsRepository.existsById(3L));
+        assertEquals(0, recorder.getDroppedCount());
+    }
+
+    @Test
+    void onDroppedShouldCloseSessionsOfUsersNoLongerInRoom() throws InterruptedException {
+        // Given
+        when(roomPresence.isMember(5L, "stays")).thenReturn(true);
+        roomEventBus.publish(RoomEventType.CONNECTED, 5L, 7L, "room", 2, "left", 1);
+        roomEventBus.publish(RoomEventType.CONNECTED, 5L, 7L, "room", 2, "stays", 2);
+        awaitUntil(() -> roomUsageStatsRepository.existsById(5L));
+
+        // When
+        recorder.onDropped(1);
+        awaitUntil(() -> roomSessionRepository.count() == 1);
+        roomEventBus.publish(RoomEventType.DISCONNECTED, 5L, 7L, "room", 2, "left", 1);
+        roomEventBus.publish(RoomEventType.DISCONNECTED, 5L, 7L, "room", 2, "stays", 0);
+        awaitUntil(() -> roomSessionRepository.findAll().stream()
+                .anyMatch(session -> session.getUsername().equals("stays")));
+
+        // Then
+        assertEquals(2, roomSessionRepository.count());
+        assertEquals(2, roomUsageStatsRepository.findById(5L).orElseThrow().getSessionCount());
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.demo.web.cluster;
+
+import com.example.demo.MultiuserWebRtcClientAppSpringApplication;
+import com.example.demo.service.RoomService;
+import com.example.demo.service.cluster.RoomOwnership;
+import com.example.demo.service.presence.RoomPresence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs several instances of the application in this JVM on local ports, sharing one in-memory database.
+ */
+class RoomOwnershipClusterTest {
+    private static final int NODES = 3;
+    private static final int ROOMS = 60;
+    private static final String SECRET = "cluster-secret";
+
+    private static final List<ConfigurableApplicationContext> instances = new ArrayList<>();
+    private static final List<String> urls = new ArrayList<>();
+    private static List<Long> roomIds;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @BeforeAll
+    static void startCluster() throws IOException {
+        List<Integer> ports = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                ports.add(socket.getLocalPort());
+            }
+        }
+        ports.forEach(port -> urls.add("http://localhost:" + port));
+        for (int port : ports) {
+            instances.add(new SpringApplicationBuilder(MultiuserWebRtcClientAppSpringApplication.class).run(
+                    "--server.port=" + port,
+                    "--spring.datasource.url=jdbc:h2:mem:cluster;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                    "--spring.jpa.show-sql=false",
+                    "--rate-limit.enabled=false",
+                    "--concurrency-limit.enabled=false",
+                    "--rooms.cluster.enabled=true",
+                    "--rooms.cluster.self=http://localhost:" + port,
+                    "--rooms.cluster.nodes=" + String.join(",", urls),
+                    "--rooms.cluster.secret=" + SECRET
+            ));
+        }
+        JdbcTemplate jdbcTemplate = instances.get(0).getBean(JdbcTemplate.class);
+        jdbcTemplate.update("insert into users (id, email, username, password, role, date_creation) "
+                + "values (1, 'owner@example.com', 'owner', 'password', 'USER', current_timestamp)");
+        jdbcTemplate.batchUpdate("insert into rooms (name, number_of_users, is_private, user_id, date_creation) "
+                        + "values (?, 10, false, 1, current_timestamp)",
+                IntStream.range(0, ROOMS).mapToObj(i -> new Object[]{"room" + i}).toList());
+        roomIds = jdbcTemplate.queryForList("select id from rooms order by id", Long.class);
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        instances.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (ConfigurableApplicationContext instance : instances) {
+            instance.getBean(RoomOwnership.class).setNodes(urls);
+            RoomPresence roomPresence = instance.getBean(RoomPresence.class);
+            roomPresence.roomIds().forEach(roomPresence::evict);
+        }
+    }
+
+    @Test
+    void requestsForRoomShouldBeRedirectedToItsOwnerAndRunThereOnly() throws Exception {
+        // When
+        int redirected = 0;
+        for (int i = 0; i < ROOMS; i++) {
+            Long roomId = roomIds.get(i);
+            String path = "/api/v1/rooms/connect/" + roomId;
+            HttpResponse<String> response = send(urls.get(i % NODES), "POST", path, "{\"username\":\"user" + i + "\"}");
+            if (response.statusCode() == 307) {
+                assertEquals(ownerOf(roomId) + path, response.headers().firstValue("Location").orElseThrow());
+                response = send(ownerOf(roomId), "POST", path, "{\"username\":\"user" + i + "\"}");
+                redirected++;
+            }
+            assertEquals(200, response.statusCode(), path);
+        }
+
+        // Then
+        for (int i = 0; i < ROOMS; i++) {
+            Long roomId = roomIds.get(i);
+            for (int node = 0; node < NODES; node++) {
+                int expected = urls.get(node).equals(ownerOf(roomId)) ? 1 : 0;
+                assertEquals(expected, presenceOf(node).occupancy(roomId), "room " + roomId + " on node " + node);
+            }
+        }
+        assertTrue(redirected > 0 && redirected < ROOMS);
+
+        Long roomId = roomIds.get(0);
+        int stranger = (urls.indexOf(ownerOf(roomId)) + 1) % NODES;
+        HttpResponse<String> members = send(urls.get(stranger), "GET", "/api/v1/rooms/" + roomId + "/members?limit=5",
+                null);
+        assertEquals(307, members.statusCode());
+        assertEquals(ownerOf(roomId) + "/api/v1/rooms/" + roomId + "/members?limit=5",
+                members.headers().firstValue("Location").orElseThrow());
+    }
+
+    @Test
+    void leavingNodeShouldOnlyHandOverItsOwnRooms() throws Exception {
+        // Given
+        Map<Long, String> owners = new HashMap<>();
+        for (int i = 0; i < ROOMS; i++) {
+            Long roomId = roomIds.get(i);
+            owners.put(roomId, ownerOf(roomId));
+            assertEquals(200, send(ownerOf(roomId), "POST", "/api/v1/rooms/connect/" + roomId,
+                    "{\"username\":\"user" + i + "\"}").statusCode());
+        }
+        String leaving = urls.get(NODES - 1);
+
+        // When
+        List<String> remaining = urls.subList(0, NODES - 1);
+        for (ConfigurableApplicationContext instance : instances) {
+            instance.getBean(RoomOwnership.class).setNodes(remaining);
+        }
+
+        // Then
+        int moved = 0;
+        for (Long roomId : roomIds) {
+            String owner = ownerOf(roomId);
+            assertTrue(remaining.contains(owner));
+            if (owners.get(roomId).equals(leaving)) {
+                moved++;
+            } else {
+                assertEquals(owners.get(roomId), owner);
+                assertEquals(1, presenceOf(urls.indexOf(owner)).occupancy(roomId));
+            }
+        }
+        assertEquals(Set.of(), presenceOf(NODES - 1).roomIds());
+        assertTrue(moved > 0);
+        Long handedOver = roomIds.stream()
+                .filter(roomId -> owners.get(roomId).equals(leaving))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(200, send(ownerOf(handedOver), "POST", "/api/v1/rooms/connect/" + handedOver,
+                "{\"username\":\"rejoined\"}").statusCode());
+        assertEquals(307, send(leaving, "POST", "/api/v1/rooms/connect/" + handedOver,
+                "{\"username\":\"late\"}").statusCode());
+    }
+
+    @Test
+    void disconnectFromAllRoomsShouldReleaseSlotsOnEveryNode() throws Exception {
+        // Given
+        for (Long roomId : roomIds) {
+            assertEquals(200, send(ownerOf(roomId), "POST", "/api/v1/rooms/connect/" + roomId,
+                    "{\"username\":\"roamer\"}").statusCode());
+        }
+
+        // When
+        instances.get(0).getBean(RoomService.class).disconnectFromAllRooms("roamer");
+
+        // Then
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (IntStream.range(0, NODES).anyMatch(node -> !presenceOf(node).roomsOf("roamer").isEmpty())
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        for (int node = 0; node < NODES; node++) {
+            assertEquals(Set.of(), presenceOf(node).roomsOf("roamer"), "node " + node);
+        }
+    }
+
+    @Test
+    void clusterRequestsShouldRequireSecret() throws Exception {
+        // Given
+        Long roomId = roomIds.get(0);
+        assertEquals(200, send(ownerOf(roomId), "POST", "/api/v1/rooms/connect/" + roomId,
+                "{\"username\":\"guest\"}").statusCode());
+
+        // When
+        HttpResponse<String> response = send(ownerOf(roomId), "DELETE", "/api/v1/cluster/members?username=guest",
+                null);
+
+        // Then
+        assertEquals(403, response.statusCode());
+        assertEquals(1, presenceOf(urls.indexOf(ownerOf(roomId))).occupancy(roomId));
+    }
+
+    private static String ownerOf(Long roomId) {
+        return instances.get(0).getBean(RoomOwnership.class).remoteOwner(roomId).orElse(urls.get(0));
+    }
+
+    private static RoomPresence presenceOf(int node) {
+        return instances.get(node).getBean(RoomPresence.class);
+    }
+
+    private HttpResponse<String> send(String url, String method, String path, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url + path))
+                .method(method, body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (body != null) {
+            request.header("Content-Type", "application/json");
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.web.config;
+
+import com.example.demo.persistence.dto.RoomInfoDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static com.example.demo.web.config.WebConfigTest.representativePage;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("benchmark")
+class WebConfigBenchmark {
+    private static final int ITERATIONS = 20_000;
+
+    private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+    private final Page<RoomInfoDto> page = representativePage();
+
+    @Test
+    void binaryFormatsShouldSerializeRepresentativePageQuickly() throws Exception {
+        // Given
+        byte[] json = jsonMapper.writeValueAsBytes(page);
+        byte[] smile = smileMapper.writeValueAsBytes(page);
+        byte[] cbor = cborMapper.writeValueAsBytes(page);
+        serialize(jsonMapper, ITERATIONS / 10);
+        serialize(smileMapper, ITERATIONS / 10);
+        serialize(cborMapper, ITERATIONS / 10);
+
+        // When
+        long jsonNanos = serialize(jsonMapper, ITERATIONS);
+        long smileNanos = serialize(smileMapper, ITERATIONS);
+        long cborNanos = serialize(cborMapper, ITERATIONS);
+
+        // Then
+        System.out.printf("page of %d rooms: json %d bytes %.1f us, smile %d bytes %.1f us, cbor %d bytes %.1f us%n",
+                page.getNumberOfElements(), json.length, jsonNanos / 1000.0 / ITERATIONS,
+                smile.length, smileNanos / 1000.0 / ITERATIONS, cbor.length, cborNanos / 1000.0 / ITERATIONS);
+        assertTrue(smile.length < json.length);
+        assertTrue(cbor.length < json.length);
+    }
+
+    private long serialize(ObjectMapper mapper, int iterations) throws Exception {
+        long started = System.nanoTime();
+        long bytes = 0;
+        for (int i = 0; i < iterations; i++) {
+            bytes += mapper.writeValueAsBytes(page).length;
+        }
+        assertTrue(bytes > 0);
+        return System.nanoTime() - started;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.demo.web.config;
+
+import com.example.demo.persistence.dto.ConnectedUserDto;
+import com.example.demo.persistence.dto.RoomInfoDto;
+import com.example.demo.service.RoomService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:webconfig;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+class WebConfigTest {
+    private static final int ROOMS = 20;
+    private static final int USERS_PER_ROOM = 8;
+
+    private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+    private final Page<RoomInfoDto> page = representativePage();
+
+    @Autowired
+    private WebApplicationContext context;
+    @Autowired
+    private RequestMappingHandlerAdapter handlerAdapter;
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+    @MockBean
+    private RoomService roomService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        when(roomService.getAll(any(Pageable.class))).thenReturn(page);
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    void configuredConvertersShouldBeTheOnesMvcSelects() {
+        // Given
+        List<HttpMessageConverter<?>> converters = handlerAdapter.getMessageConverters();
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+
+        // When
+        HttpMessageConverter<?> selectedSmile = firstWriter(converters, smile);
+        HttpMessageConverter<?> selectedCbor = firstWriter(converters, MediaType.APPLICATION_CBOR);
+
+        // Then
+        assertSame(smileConverter, selectedSmile);
+        assertSame(cborConverter, selectedCbor);
+        assertFalse(smileConverter.getObjectMapper().isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+        assertFalse(cborConverter.getObjectMapper().isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+        assertTrue(converters.indexOf(firstWriter(converters, MediaType.APPLICATION_JSON))
+                < converters.indexOf(selectedSmile));
+    }
+
+    @Test
+    void getAllShouldDefaultToJson() throws Exception {
+        mockMvc.perform(get("/api/v1/rooms"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/v1/rooms").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void getAllShouldReturnSameDocumentInBinaryFormatWhenAccepted() throws Exception {
+        // Given
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+
+        // When
+        MvcResult json = mockMvc.perform(get("/api/v1/rooms").accept(MediaType.APPLICATION_JSON)).andReturn();
+        MvcResult smileResult = mockMvc.perform(get("/api/v1/rooms").accept(smile)).andReturn();
+        MvcResult cborResult = mockMvc.perform(get("/api/v1/rooms").accept(MediaType.APPLICATION_CBOR)).andReturn();
+
+        // Then
+        assertEquals(smile.toString(), smileResult.getResponse().getContentType());
+        assertEquals(MediaType.APPLICATION_CBOR_VALUE, cborResult.getResponse().getContentType());
+        JsonNode fromJson = jsonMapper.readTree(json.getResponse().getContentAsByteArray());
+        assertEquals(fromJson, smileMapper.readTree(smileResult.getResponse().getContentAsByteArray()));
+        assertEquals(fromJson, cborMapper.readTree(cborResult.getResponse().getContentAsByteArray()));
+    }
+
+    @Test
+    void binaryFormatsShouldBeSmallerThanJsonForRepresentativePage() throws Exception {
+        // When
+        byte[] json = jsonMapper.writeValueAsBytes(page);
+        byte[] smile = smileMapper.writeValueAsBytes(page);
+        byte[] cbor = cborMapper.writeValueAsBytes(page);
+
+        // Then
+        assertTrue(smile.length < json.length);
+        assertTrue(cbor.length < json.length);
+    }
+
+    private static HttpMessageConverter<?> firstWriter(List<HttpMessageConverter<?>> converters, MediaType mediaType) {
+        return converters.stream()
+                .filter(converter -> converter.canWrite(PageImpl.class, mediaType))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    static Page<RoomInfoDto> representativePage() {
+        List<RoomInfoDto> rooms = IntStream.range(0, ROOMS)
+                .mapToObj(room -> RoomInfoDto.builder()
+                        .id((long) room)
+                        .name("Room " + room)
+                        .maxUsers(USERS_PER_ROOM * 2)
+                        .dateCreation(LocalDateTime.of(2022, 10, 1, 12, 0).plusMinutes(room))
+                        .connectedUsers(IntStream.range(0, USERS_PER_ROOM)
+                                .mapToObj(user -> new ConnectedUserDto("user" + room + "_" + user,
+                                        "https://cdn.example.com/avatars/user" + room + "_" + user + ".png"))
+                                .toList())
+                        .build())
+                .toList();
+        return new PageImpl<>(rooms, PageRequest.of(0, ROOMS), 1_000);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo.web.controller;
+
+import com.example.demo.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:avatars-benchmark;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "rate-limit.enabled=false",
+        "concurrency-limit.enabled=false",
+        "avatars.dir=${java.io.tmpdir}/room-connect-avatars-benchmark"
+})
+@Tag("benchmark")
+class AvatarControllerBenchmark {
+    private static final int MEMBERS = 50;
+    private static final int JOINS = 40;
+    private static final int CONCURRENCY = 100;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserService userService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final List<String> imageUrls = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jdbcTemplate.update("delete from rooms");
+        jdbcTemplate.update("delete from users");
+        for (int i = 0; i < MEMBERS; i++) {
+            jdbcTemplate.update("insert into users (id, email, username, password, role, date_creation) "
+                    + "values (?, ?, ?, 'password', 'USER', current_timestamp)", i + 1, "user" + i + "@example.com",
+                    "user" + i);
+            imageUrls.add(userService.updateAvatar(i + 1L, png(new Color(i * 5, 100, 200))));
+        }
+    }
+
+    @Test
+    void joiningUsersShouldFetchEveryMemberAvatarConcurrently() throws Exception {
+        // Given
+        fetchAll(JOINS / 4);
+
+        // When
+        long started = System.nanoTime();
+        long bytes = fetchAll(JOINS);
+        long nanos = System.nanoTime() - started;
+
+        // Then
+        int requests = JOINS * MEMBERS;
+        System.out.printf("%d joins fetching %d avatars each at concurrency %d: %.0f req/s, %.1f KB per avatar%n",
+                JOINS, MEMBERS, CONCURRENCY, requests / (nanos / 1e9), bytes / 1024.0 / requests);
+        assertTrue(bytes > 0);
+    }
+
+    private long fetchAll(int joins) throws Exception {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        AtomicInteger failures = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+        List<CompletableFuture<?>> responses = new ArrayList<>();
+        for (int join = 0; join < joins; join++) {
+            for (String imageUrl : imageUrls) {
+                inFlight.acquire();
+                responses.add(httpClient.sendAsync(request(imageUrl, null), HttpResponse.BodyHandlers.ofByteArray())
+                        .whenComplete((response, e) -> {
+                            if (e != null || response.statusCode() != 200) {
+                                failures.incrementAndGet();
+                            } else {
+                                bytes.addAndGet(response.body().length);
+                            }
+                            inFlight.release();
+                        }));
+            }
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+        assertEquals(0, failures.get());
+        return bytes.get();
+    }
+
+    private HttpRequest request(String path, String ifNoneMatch) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET();
+        if (ifNoneMatch != null) {
+            builder.header("If-None-Match", ifNoneMatch);
+        }
+        return builder.build();
+    }
+
+    private static byte[] png(Color color) throws IOException {
+        BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, color, 320, 240, Color.WHITE));
+        graphics.fillRect(0, 0, 320, 240);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
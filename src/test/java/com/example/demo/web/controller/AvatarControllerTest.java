@@ -0,0 +1,156 @@
+package com.example.demo.web.controller;
+
+import com.example.demo.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:avatars;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "rate-limit.enabled=false",
+        "concurrency-limit.enabled=false",
+        "avatars.dir=${java.io.tmpdir}/room-connect-avatars-test"
+})
+class AvatarControllerTest {
+    private static final int MEMBERS = 20;
+    private static final int CONCURRENCY = 100;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserService userService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final List<String> imageUrls = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jdbcTemplate.update("delete from rooms");
+        jdbcTemplate.update("delete from users");
+        for (int i = 0; i < MEMBERS; i++) {
+            jdbcTemplate.update("insert into users (id, email, username, password, role, date_creation) "
+                    + "values (?, ?, ?, 'password', 'USER', current_timestamp)", i + 1, "user" + i + "@example.com",
+                    "user" + i);
+            imageUrls.add(userService.updateAvatar(i + 1L, png(new Color(i * 5, 100, 200))));
+        }
+    }
+
+    @Test
+    void getShouldServeImmutableThumbnailWithStrongEtag() throws Exception {
+        // When
+        HttpResponse<byte[]> response = get(imageUrls.get(0), null);
+
+        // Then
+        assertEquals(200, response.statusCode());
+        assertEquals("image/png", response.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals("public, max-age=31536000, immutable",
+                response.headers().firstValue("Cache-Control").orElseThrow());
+        assertEquals(String.valueOf(response.body().length),
+                response.headers().firstValue("Content-Length").orElseThrow());
+        assertEquals(64, ImageIO.read(new ByteArrayInputStream(response.body())).getWidth());
+        String etag = response.headers().firstValue("ETag").orElseThrow();
+        assertTrue(imageUrls.get(0).contains(etag.substring(1, 65)));
+    }
+
+    @Test
+    void getShouldAnswerNotModifiedToMatchingEtagAndNotFoundToUnknownHash() throws Exception {
+        // Given
+        String etag = get(imageUrls.get(0), null).headers().firstValue("ETag").orElseThrow();
+
+        // When
+        HttpResponse<byte[]> cached = get(imageUrls.get(0), etag);
+        HttpResponse<byte[]> missing = get("/api/v1/avatars/" + "0".repeat(64) + "/64.png", null);
+        HttpResponse<byte[]> wrongSize = get(imageUrls.get(0).replace("/64.png", "/65.png"), null);
+
+        // Then
+        assertEquals(304, cached.statusCode());
+        assertEquals(0, cached.body().length);
+        assertEquals(404, missing.statusCode());
+        assertEquals(404, wrongSize.statusCode());
+    }
+
+    @Test
+    void joiningUserShouldFetchEveryMemberAvatarConcurrently() throws Exception {
+        // When
+        long bytes = fetchAll(1);
+
+        // Then
+        assertTrue(bytes > 0);
+    }
+
+    private long fetchAll(int joins) throws Exception {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        AtomicInteger failures = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+        List<CompletableFuture<?>> responses = new ArrayList<>();
+        for (int join = 0; join < joins; join++) {
+            for (String imageUrl : imageUrls) {
+                inFlight.acquire();
+                responses.add(httpClient.sendAsync(request(imageUrl, null), HttpResponse.BodyHandlers.ofByteArray())
+                        .whenComplete((response, e) -> {
+                            if (e != null || response.statusCode() != 200) {
+                                failures.incrementAndGet();
+                            } else {
+                                bytes.addAndGet(response.body().length);
+                            }
+                            inFlight.release();
+                        }));
+            }
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+        assertEquals(0, failures.get());
+        return bytes.get();
+    }
+
+    private HttpResponse<byte[]> get(String path, String ifNoneMatch) throws Exception {
+        return httpClient.send(request(path, ifNoneMatch), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpRequest request(String path, String ifNoneMatch) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET();
+        if (ifNoneMatch != null) {
+            builder.header("If-None-Match", ifNoneMatch);
+        }
+        return builder.build();
+    }
+
+    private static byte[] png(Color color) throws IOException {
+        BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, color, 320, 240, Color.WHITE));
+        graphics.fillRect(0, 0, 320, 240);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.web.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:directory-benchmark;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "server.tomcat.threads.max=16",
+        "rate-limit.enabled=false",
+        "concurrency-limit.enabled=false",
+        "rooms.reactive.enabled=true",
+        "rooms.reactive.url=r2dbc:h2:mem:///directory-benchmark?options=DB_CLOSE_DELAY=-1",
+        "rooms.reactive.pool-size=4"
+})
+@Tag("benchmark")
+class ReactiveRoomControllerBenchmark {
+    private static final int ROOMS = 200;
+    private static final int REQUESTS = 2_000;
+    private static final int CONCURRENCY = 200;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from rooms");
+        jdbcTemplate.update("delete from users");
+        jdbcTemplate.update("insert into users (id, email, username, password, role, date_creation) "
+                + "values (1, 'owner@example.com', 'owner', 'password', 'USER', current_timestamp)");
+        jdbcTemplate.batchUpdate("insert into rooms (name, number_of_users, is_private, user_id, date_creation) "
+                        + "values (?, 10, false, 1, current_timestamp)",
+                IntStream.range(0, ROOMS).mapToObj(i -> new Object[]{"room" + i}).toList());
+    }
+
+    @Test
+    void reactiveListingShouldKeepUpWithServletListingUnderHighConcurrency() throws Exception {
+        // Given
+        benchmark("/api/v1/rooms?size=20", REQUESTS / 10);
+        benchmark("/api/v1/reactive/rooms?size=20", REQUESTS / 10);
+
+        // When
+        double servlet = benchmark("/api/v1/rooms?size=20", REQUESTS);
+        double reactive = benchmark("/api/v1/reactive/rooms?size=20", REQUESTS);
+
+        // Then
+        System.out.printf("%d requests at concurrency %d, 16 Tomcat threads: servlet %.0f req/s, reactive %.0f req/s%n",
+                REQUESTS, CONCURRENCY, servlet, reactive);
+        assertTrue(servlet > 0 && reactive > 0);
+    }
+
+    private double benchmark(String path, int requests) throws Exception {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        AtomicInteger failures = new AtomicInteger();
+        List<CompletableFuture<?>> responses = new ArrayList<>(requests);
+        HttpRequest request = request(path, MediaType.APPLICATION_JSON_VALUE);
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        if (e != null || response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+        long nanos = System.nanoTime() - started;
+        assertEquals(0, failures.get());
+        return requests / (nanos / 1e9);
+    }
+
+    private HttpRequest request(String path, String accept) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept)
+                .GET()
+                .build();
+    }
+}
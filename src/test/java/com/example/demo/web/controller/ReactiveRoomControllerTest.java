@@ -0,0 +1,113 @@
+package com.example.demo.web.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:directory;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "server.tomcat.threads.max=16",
+        "rate-limit.enabled=false",
+        "concurrency-limit.enabled=false",
+        "rooms.reactive.enabled=true",
+        "rooms.reactive.url=r2dbc:h2:mem:///directory?options=DB_CLOSE_DELAY=-1",
+        "rooms.reactive.pool-size=4"
+})
+class ReactiveRoomControllerTest {
+    private static final int ROOMS = 50;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from rooms");
+        jdbcTemplate.update("delete from users");
+        jdbcTemplate.update("insert into users (id, email, username, password, role, date_creation) "
+                + "values (1, 'owner@example.com', 'owner', 'password', 'USER', current_timestamp)");
+        jdbcTemplate.batchUpdate("insert into rooms (name, number_of_users, is_private, user_id, date_creation) "
+                        + "values (?, 10, false, 1, current_timestamp)",
+                IntStream.range(0, ROOMS).mapToObj(i -> new Object[]{"room" + i}).toList());
+    }
+
+    @Test
+    void getAllShouldReturnSameRoomsAsServletEndpoint() throws Exception {
+        // When
+        JsonNode servlet = objectMapper.readTree(get("/api/v1/rooms?size=20&sort=name", MediaType.APPLICATION_JSON_VALUE)
+                .body()).get("content");
+        JsonNode reactive = objectMapper.readTree(get("/api/v1/reactive/rooms?size=20&sort=name",
+                MediaType.APPLICATION_JSON_VALUE).body());
+
+        // Then
+        assertEquals(20, reactive.size());
+        for (int i = 0; i < reactive.size(); i++) {
+            assertEquals(servlet.get(i).get("id"), reactive.get(i).get("id"));
+            assertEquals(servlet.get(i).get("name"), reactive.get(i).get("name"));
+        }
+    }
+
+    @Test
+    void getAllShouldStreamNewlineDelimitedJson() throws Exception {
+        // When
+        HttpResponse<String> response = get("/api/v1/reactive/rooms?page=2&size=15", MediaType.APPLICATION_NDJSON_VALUE);
+
+        // Then
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow()
+                .startsWith(MediaType.APPLICATION_NDJSON_VALUE));
+        List<String> lines = response.body().lines().toList();
+        assertEquals(15, lines.size());
+        assertEquals("room30", objectMapper.readTree(lines.get(0)).get("name").asText());
+    }
+
+    @Test
+    void getOneShouldReturnRoomIdOrNotFound() throws Exception {
+        // Given
+        Long id = jdbcTemplate.queryForObject("select id from rooms where name = 'room7'", Long.class);
+
+        // When
+        HttpResponse<String> found = get("/api/v1/reactive/rooms/connect?name=room7", MediaType.APPLICATION_JSON_VALUE);
+        HttpResponse<String> missing = get("/api/v1/reactive/rooms/connect?name=nope", MediaType.APPLICATION_JSON_VALUE);
+
+        // Then
+        assertEquals(String.valueOf(id), found.body());
+        assertEquals(404, missing.statusCode());
+    }
+
+    private HttpResponse<String> get(String path, String accept) throws Exception {
+        return httpClient.send(request(path, accept), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest request(String path, String accept) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept)
+                .GET()
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.web.controller;
+
+import com.example.demo.persistence.dto.ChatMessageDto;
+import com.example.demo.persistence.dto.ChatMessageRequestDto;
+import com.example.demo.persistence.model.User;
+import com.example.demo.persistence.model.enums.Role;
+import com.example.demo.service.chat.RoomChat;
+import com.example.demo.web.security.UserDetailsImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoomChatControllerTest {
+
+    @Mock
+    private RoomChat roomChat;
+
+    @InjectMocks
+    private RoomChatController roomChatController;
+
+    private final UserDetailsImpl alice = new UserDetailsImpl(User.builder()
+            .id(1L)
+            .email("alice@example.com")
+            .username("alice")
+            .role(Role.USER)
+            .build());
+
+    @Test
+    void send_shouldSendUnderNameOfCurrentUser() {
+        // Given
+        ReflectionTestUtils.setField(roomChatController, "maxLength", 2000);
+        ChatMessageDto message = new ChatMessageDto(1L, "alice", "hi", 0L);
+        when(roomChat.send(7L, "alice", "hi")).thenReturn(message);
+
+        // When
+        ResponseEntity<ChatMessageDto> response = roomChatController.send(7L, new ChatMessageRequestDto("hi"), alice);
+
+        // Then
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(message, response.getBody());
+    }
+
+    @Test
+    void send_shouldReturnHttpStatusUnauthorized_whenNotLoggedIn() {
+        // When
+        ResponseEntity<ChatMessageDto> response = roomChatController.send(7L, new ChatMessageRequestDto("hi"), null);
+
+        // Then
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verifyNoInteractions(roomChat);
+    }
+
+    @Test
+    void getHistory_shouldReturnHttpStatusForbidden_whenUserIsNotInRoom() {
+        // Given
+        when(roomChat.history(7L, "alice", 0)).thenReturn(null);
+
+        // When
+        ResponseEntity<List<ChatMessageDto>> response = roomChatController.getHistory(7L, 0, alice);
+
+        // Then
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    }
+
+    @Test
+    void getHistory_shouldReturnHttpStatusOKAndMessages_whenUserIsInRoom() {
+        // Given
+        List<ChatMessageDto> history = List.of(new ChatMessageDto(1L, "bob", "hi", 0L));
+        when(roomChat.history(7L, "alice", 0)).thenReturn(history);
+
+        // When
+        ResponseEntity<List<ChatMessageDto>> response = roomChatController.getHistory(7L, 0, alice);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(history, response.getBody());
+    }
+
+    @Test
+    void stream_shouldReturnHttpStatusForbidden_whenUserIsNotInRoom() {
+        // Given
+        when(roomChat.subscribe(eq(7L), eq("alice"), anyLong(), any())).thenReturn(false);
+
+        // When
+        ResponseEntity<SseEmitter> response = roomChatController.stream(7L, 0, alice);
+
+        // Then
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.web.controller;
+
+import com.example.demo.exception.RoomConnectionException;
+import com.example.demo.persistence.dto.ConnectionRequestDto;
+import com.example.demo.service.ConnectionOutcome;
+import com.example.demo.service.RoomService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.example.demo.web.controller.RoomConnectRejectionTest.mockMvc;
+import static com.example.demo.web.controller.RoomConnectRejectionTest.reject;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Tag("benchmark")
+class RoomConnectRejectionBenchmark {
+    private static final int WARMUP = 5_000;
+    private static final int REJECTIONS = 10_000;
+
+    @Test
+    void connectShouldRejectFullRoomFasterWithOutcomeThanWithException() throws Exception {
+        // Given
+        RoomService outcomes = mock(RoomService.class);
+        when(outcomes.connect(anyLong(), any(ConnectionRequestDto.class))).thenReturn(ConnectionOutcome.ROOM_FULL);
+        RoomService exceptions = mock(RoomService.class);
+        when(exceptions.connect(anyLong(), any(ConnectionRequestDto.class))).thenAnswer(invocation -> {
+            throw new RoomConnectionException("Connection failed! Room is full!");
+        });
+        MockMvc outcomeMvc = mockMvc(outcomes);
+        MockMvc exceptionMvc = mockMvc(exceptions);
+        for (int i = 0; i < WARMUP; i++) {
+            reject(outcomeMvc);
+            reject(exceptionMvc);
+        }
+
+        // When
+        double exceptionRate = rejectionsPerSecond(exceptionMvc);
+        double outcomeRate = rejectionsPerSecond(outcomeMvc);
+
+        // Then
+        System.out.printf("full room rejections: %.0f/s with exceptions, %.0f/s with outcomes%n",
+                exceptionRate, outcomeRate);
+    }
+
+    private static double rejectionsPerSecond(MockMvc mockMvc) throws Exception {
+        long started = System.nanoTime();
+        for (int i = 0; i < REJECTIONS; i++) {
+            reject(mockMvc);
+        }
+        return REJECTIONS * 1e9 / (System.nanoTime() - started);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.web.controller;
+
+import com.example.demo.exception.RoomConnectionException;
+import com.example.demo.persistence.dto.ConnectionRequestDto;
+import com.example.demo.service.ConnectionOutcome;
+import com.example.demo.service.RoomService;
+import com.example.demo.service.RoomUsageService;
+import com.example.demo.service.cluster.RoomOwnership;
+import com.example.demo.service.directory.RoomChangeLog;
+import com.example.demo.web.controller.handler.RoomExceptionHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+class RoomConnectRejectionTest {
+    private static final String BODY = "{\"username\":\"user\"}";
+
+    @Test
+    void connectShouldRejectFullRoomWithSameResponseAsExceptionPath() throws Exception {
+        // Given
+        RoomService outcomes = mock(RoomService.class);
+        when(outcomes.connect(anyLong(), any(ConnectionRequestDto.class))).thenReturn(ConnectionOutcome.ROOM_FULL);
+        RoomService exceptions = mock(RoomService.class);
+        when(exceptions.connect(anyLong(), any(ConnectionRequestDto.class))).thenAnswer(invocation -> {
+            throw new RoomConnectionException("Connection failed! Room is full!");
+        });
+        MockMvc outcomeMvc = mockMvc(outcomes);
+        MockMvc exceptionMvc = mockMvc(exceptions);
+
+        // When
+        MvcResult outcomeResult = reject(outcomeMvc);
+        MvcResult exceptionResult = reject(exceptionMvc);
+
+        // Then
+        assertEquals(400, outcomeResult.getResponse().getStatus());
+        assertEquals(exceptionResult.getResponse().getStatus(), outcomeResult.getResponse().getStatus());
+        assertEquals(exceptionResult.getResponse().getContentAsString(),
+                outcomeResult.getResponse().getContentAsString());
+    }
+
+    static MockMvc mockMvc(RoomService roomService) {
+        return MockMvcBuilders
+                .standaloneSetup(new RoomController(roomService, mock(RoomUsageService.class),
+                        mock(RoomChangeLog.class), mock(RoomOwnership.class)))
+                .setControllerAdvice(new RoomExceptionHandler())
+                .build();
+    }
+
+    static MvcResult reject(MockMvc mockMvc) throws Exception {
+        return mockMvc.perform(post("/api/v1/rooms/connect/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andReturn();
+    }
+}
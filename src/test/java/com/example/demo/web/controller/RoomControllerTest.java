@@ -1,11 +1,23 @@
 package com.example.demo.web.controller;
 
 import com.example.demo.persistence.dto.ConnectionRequestDto;
+import com.example.demo.persistence.dto.DisconnectionRequestDto;
 import com.example.demo.persistence.dto.RoomCreateDto;
+import com.example.demo.persistence.dto.RoomChangesDto;
 import com.example.demo.persistence.dto.RoomInfoDto;
+import com.example.demo.persistence.dto.RoomMembersDto;
+import com.example.demo.persistence.dto.RoomOccupancyDto;
+import com.example.demo.persistence.dto.OccupancySeriesDto;
+import com.example.demo.persistence.dto.RoomUsageStatsDto;
 import com.example.demo.persistence.model.User;
 import com.example.demo.persistence.model.enums.Role;
+import com.example.demo.service.ConnectionOutcome;
+import com.example.demo.service.DisconnectionOutcome;
 import com.example.demo.service.RoomService;
+import com.example.demo.service.RoomUsageService;
+import com.example.demo.service.cluster.RoomOwnership;
+import com.example.demo.service.directory.RoomChangeLog;
+import com.example.demo.service.usage.OccupancyResolution;
 import com.example.demo.web.security.UserDetailsImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,8 +30,11 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -30,6 +45,15 @@ class RoomControllerTest {
     @Mock
     private RoomService roomService;
 
+    @Mock
+    private RoomUsageService roomUsageService;
+
+    @Mock
+    private RoomChangeLog roomChangeLog;
+
+    @Mock
+    private RoomOwnership roomOwnership;
+
     @InjectMocks
     private RoomController roomController;
 
@@ -65,6 +89,58 @@ class RoomControllerTest {
         verify(roomService).getAll(pageable);
     }
 
+    @Test
+    void getMembers_shouldCapPageSize() {
+        // Given
+        ReflectionTestUtils.setField(roomController, "maxMembersPageSize", 50);
+        RoomMembersDto page = new RoomMembersDto(50, true, 120, List.of());
+        when(roomService.getMembers(1L, 0, 50)).thenReturn(page);
+        when(roomService.getMembers(1L, 50, 1)).thenReturn(page);
+
+        // When
+        ResponseEntity<RoomMembersDto> capped = roomController.getMembers(1L, 0, 1_000);
+        ResponseEntity<RoomMembersDto> raised = roomController.getMembers(1L, 50, 0);
+
+        // Then
+        assertEquals(HttpStatus.OK, capped.getStatusCode());
+        assertEquals(page, capped.getBody());
+        assertEquals(page, raised.getBody());
+        verify(roomService).getMembers(1L, 0, 50);
+        verify(roomService).getMembers(1L, 50, 1);
+    }
+
+    @Test
+    void getOccupancies_shouldReturnOccupancies_andRejectTooManyIds() {
+        // Given
+        ReflectionTestUtils.setField(roomController, "maxOccupancyIds", 2);
+        List<RoomOccupancyDto> occupancies = List.of(new RoomOccupancyDto(1L, 10, 3));
+        when(roomService.getOccupancies(List.of(1L, 2L))).thenReturn(occupancies);
+
+        // When
+        ResponseEntity<List<RoomOccupancyDto>> response = roomController.getOccupancies(List.of(1L, 2L));
+        ResponseEntity<List<RoomOccupancyDto>> tooMany = roomController.getOccupancies(List.of(1L, 2L, 3L));
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(occupancies, response.getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, tooMany.getStatusCode());
+        verify(roomService).getOccupancies(List.of(1L, 2L));
+    }
+
+    @Test
+    void getChanges_shouldReturnChangesSinceCursor() {
+        // Given
+        RoomChangesDto changes = new RoomChangesDto(5L, false, false, List.of());
+        when(roomChangeLog.changesSince(4L)).thenReturn(changes);
+
+        // When
+        ResponseEntity<RoomChangesDto> response = roomController.getChanges(4L);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(changes, response.getBody());
+    }
+
     @Test
     void getAllUserRooms_shouldReturnPageOfRoomInfoDto() {
         // Given
@@ -121,13 +197,107 @@ class RoomControllerTest {
         // Given
         Long roomId = 1L;
         ConnectionRequestDto connectionRequestDto = new ConnectionRequestDto();
-        doNothing().when(roomService).connect(roomId, connectionRequestDto);
+        when(roomService.connect(roomId, connectionRequestDto)).thenReturn(ConnectionOutcome.CONNECTED);
 
         // When
-        ResponseEntity<HttpStatus> response = roomController.connect(roomId, connectionRequestDto);
+        ResponseEntity<String> response = roomController.connect(roomId, connectionRequestDto);
 
         // Then
         assertEquals(HttpStatus.OK, response.getStatusCode());
         verify(roomService).connect(roomId, connectionRequestDto);
     }
-}
\ No newline at end of file
+
+    @Test
+    void connect_shouldReturnBadRequestWithMessage_whenRoomIsFull() {
+        // Given
+        Long roomId = 1L;
+        ConnectionRequestDto connectionRequestDto = new ConnectionRequestDto("user", null);
+        when(roomService.connect(roomId, connectionRequestDto)).thenReturn(ConnectionOutcome.ROOM_FULL);
+
+        // When
+        ResponseEntity<String> response = roomController.connect(roomId, connectionRequestDto);
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Connection failed! Room is full!", response.getBody());
+    }
+
+    @Test
+    void disconnect_shouldReturnNotFound_whenUserIsNotInRoom() {
+        // Given
+        DisconnectionRequestDto disconnectionRequestDto = new DisconnectionRequestDto("user", "room");
+        when(roomService.disconnect(disconnectionRequestDto)).thenReturn(DisconnectionOutcome.USER_NOT_IN_ROOM);
+
+        // When
+        ResponseEntity<String> response = roomController.disconnect(disconnectionRequestDto);
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("Can not find user in room room by username: user", response.getBody());
+    }
+
+    @Test
+    void disconnect_shouldRedirectToOwner_whenRoomIsOwnedByAnotherNode() {
+        // Given
+        DisconnectionRequestDto disconnectionRequestDto = new DisconnectionRequestDto("user", "room");
+        when(roomOwnership.isEnabled()).thenReturn(true);
+        when(roomService.getRoomIdByName("room")).thenReturn(7L);
+        when(roomOwnership.remoteOwner(7L)).thenReturn(Optional.of("http://node-b:8080"));
+
+        // When
+        ResponseEntity<String> response = roomController.disconnect(disconnectionRequestDto);
+
+        // Then
+        assertEquals(HttpStatus.TEMPORARY_REDIRECT, response.getStatusCode());
+        assertEquals(URI.create("http://node-b:8080/api/v1/rooms/disconnect"), response.getHeaders().getLocation());
+        verify(roomService, never()).disconnect(any());
+    }
+
+    @Test
+    void getRoomStats_shouldReturnHttpStatusOKAndStats_whenUserOwnsRoom() {
+        // Given
+        Long roomId = 1L;
+        UserDetailsImpl currentUser = new UserDetailsImpl(User.builder().id(7L).role(Role.USER).build());
+        RoomUsageStatsDto stats = RoomUsageStatsDto.builder().roomId(roomId).sessionCount(3).build();
+        when(roomService.isOwner(roomId, 7L)).thenReturn(true);
+        when(roomUsageService.getRoomStats(roomId)).thenReturn(stats);
+
+        // When
+        ResponseEntity<RoomUsageStatsDto> response = roomController.getRoomStats(roomId, currentUser);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(stats, response.getBody());
+    }
+
+    @Test
+    void getRoomStats_shouldReturnHttpStatusForbidden_whenUserDoesNotOwnRoom() {
+        // Given
+        Long roomId = 1L;
+        UserDetailsImpl currentUser = new UserDetailsImpl(User.builder().id(8L).role(Role.USER).build());
+        when(roomService.isOwner(roomId, 8L)).thenReturn(false);
+
+        // When
+        ResponseEntity<RoomUsageStatsDto> response = roomController.getRoomStats(roomId, currentUser);
+
+        // Then
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        verify(roomUsageService, never()).getRoomStats(any());
+    }
+
+    @Test
+    void getOccupancy_shouldReturnHttpStatusForbidden_whenUserDoesNotOwnRoom() {
+        // Given
+        Long roomId = 1L;
+        UserDetailsImpl currentUser = new UserDetailsImpl(User.builder().id(8L).role(Role.USER).build());
+        when(roomService.isOwner(roomId, 8L)).thenReturn(false);
+
+        // When
+        ResponseEntity<OccupancySeriesDto> response =
+                roomController.getOccupancy(roomId, OccupancyResolution.MINUTES, currentUser);
+
+        // Then
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        verify(roomUsageService, never()).getOccupancy(any(), any());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.demo.web.controller;
+
+import com.example.demo.persistence.dto.ConnectionRequestDto;
+import com.example.demo.service.RoomService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:occupancy-benchmark;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "rate-limit.enabled=false",
+        "concurrency-limit.enabled=false"
+})
+@Tag("benchmark")
+class RoomOccupancyBenchmark {
+    private static final int ROOMS = 500;
+    private static final int BOOKMARKS = 50;
+    private static final int LOBBY_LOADS = 200;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private RoomService roomService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private List<Long> bookmarks;
+    private long firstRoomId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from rooms");
+        jdbcTemplate.update("delete from users");
+        jdbcTemplate.update("insert into users (id, email, username, password, role, date_creation) "
+                + "values (1, 'owner@example.com', 'owner', 'password', 'USER', current_timestamp)");
+        jdbcTemplate.batchUpdate("insert into rooms (name, number_of_users, is_private, user_id, date_creation) "
+                        + "values (?, 10, false, 1, current_timestamp)",
+                IntStream.range(0, ROOMS).mapToObj(i -> new Object[]{"room" + i}).toList());
+        firstRoomId = jdbcTemplate.queryForObject("select min(id) from rooms", Long.class);
+        bookmarks = jdbcTemplate.queryForList("select id from rooms order by id", Long.class).stream()
+                .filter(id -> id % (ROOMS / BOOKMARKS) == 0)
+                .toList();
+        for (int i = 0; i < bookmarks.size(); i++) {
+            for (int user = 0; user < i % 4; user++) {
+                roomService.connect(bookmarks.get(i), new ConnectionRequestDto("user" + i + "-" + user, null));
+            }
+        }
+    }
+
+    @Test
+    void bulkLookupShouldBeFasterThanOneCallPerRoom() throws Exception {
+        // Given
+        lobbyWithBulkCall(LOBBY_LOADS / 10);
+        lobbyWithCallPerRoom(LOBBY_LOADS / 10);
+
+        // When
+        long bulkStarted = System.nanoTime();
+        long bulkBytes = lobbyWithBulkCall(LOBBY_LOADS);
+        long bulkNanos = System.nanoTime() - bulkStarted;
+        long perRoomStarted = System.nanoTime();
+        long perRoomBytes = lobbyWithCallPerRoom(LOBBY_LOADS);
+        long perRoomNanos = System.nanoTime() - perRoomStarted;
+
+        // Then
+        System.out.printf("%d bookmarked rooms: bulk %.2f ms and %d bytes per lobby, "
+                        + "per room %.2f ms and %d bytes per lobby%n", BOOKMARKS,
+                bulkNanos / 1e6 / LOBBY_LOADS, bulkBytes / LOBBY_LOADS,
+                perRoomNanos / 1e6 / LOBBY_LOADS, perRoomBytes / LOBBY_LOADS);
+        assertTrue(bulkNanos < perRoomNanos);
+    }
+
+    private long lobbyWithBulkCall(int loads) throws Exception {
+        long bytes = 0;
+        for (int load = 0; load < loads; load++) {
+            bytes += get(occupancyPath()).body().length();
+        }
+        return bytes;
+    }
+
+    /**
+     * What the lobby did before: the room id by name, then a one-room listing page for its occupancy.
+     */
+    private long lobbyWithCallPerRoom(int loads) throws Exception {
+        long bytes = 0;
+        for (int load = 0; load < loads; load++) {
+            for (Long id : bookmarks) {
+                long index = id - firstRoomId;
+                bytes += get("/api/v1/rooms/connect?name=room" + index).body().length();
+                bytes += get("/api/v1/rooms?size=1&sort=id&page=" + index).body().length();
+            }
+        }
+        return bytes;
+    }
+
+    private String occupancyPath() {
+        return "/api/v1/rooms/occupancy?ids=" + bookmarks.stream().map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        HttpResponse<String> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), path);
+        return response;
+    }
+}
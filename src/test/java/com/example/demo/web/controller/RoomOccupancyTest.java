@@ -0,0 +1,94 @@
+package com.example.demo.web.controller;
+
+import com.example.demo.persistence.dto.ConnectionRequestDto;
+import com.example.demo.service.RoomService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:occupancy;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "rate-limit.enabled=false",
+        "concurrency-limit.enabled=false"
+})
+class RoomOccupancyTest {
+    private static final int ROOMS = 100;
+    private static final int BOOKMARKS = 10;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private RoomService roomService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Long> bookmarks;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from rooms");
+        jdbcTemplate.update("delete from users");
+        jdbcTemplate.update("insert into users (id, email, username, password, role, date_creation) "
+                + "values (1, 'owner@example.com', 'owner', 'password', 'USER', current_timestamp)");
+        jdbcTemplate.batchUpdate("insert into rooms (name, number_of_users, is_private, user_id, date_creation) "
+                        + "values (?, 10, false, 1, current_timestamp)",
+                IntStream.range(0, ROOMS).mapToObj(i -> new Object[]{"room" + i}).toList());
+        bookmarks = jdbcTemplate.queryForList("select id from rooms order by id", Long.class).stream()
+                .filter(id -> id % (ROOMS / BOOKMARKS) == 0)
+                .toList();
+        for (int i = 0; i < bookmarks.size(); i++) {
+            for (int user = 0; user < i % 4; user++) {
+                roomService.connect(bookmarks.get(i), new ConnectionRequestDto("user" + i + "-" + user, null));
+            }
+        }
+    }
+
+    @Test
+    void getOccupanciesShouldReturnCapacityAndOccupancyOfEveryBookmarkedRoom() throws Exception {
+        // When
+        JsonNode occupancies = objectMapper.readTree(get(occupancyPath()).body());
+
+        // Then
+        assertEquals(BOOKMARKS, occupancies.size());
+        for (int i = 0; i < BOOKMARKS; i++) {
+            assertEquals(bookmarks.get(i).longValue(), occupancies.get(i).get("id").asLong());
+            assertEquals(10, occupancies.get(i).get("capacity").asInt());
+            assertEquals(i % 4, occupancies.get(i).get("occupancy").asInt());
+        }
+    }
+
+    private String occupancyPath() {
+        return "/api/v1/rooms/occupancy?ids=" + bookmarks.stream().map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        HttpResponse<String> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), path);
+        return response;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.web.security.jwt;
+
+import com.example.demo.persistence.model.User;
+import com.example.demo.persistence.model.enums.Role;
+import com.example.demo.web.security.UserDetailsImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JwtTokenProviderTest {
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    private final TokenRevocationList tokenRevocationList = new TokenRevocationList(604800, 8, 1 << 10, 1000);
+    private JwtTokenProvider jwtTokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenProvider = new JwtTokenProvider(userDetailsService, tokenRevocationList);
+        ReflectionTestUtils.setField(jwtTokenProvider, "secretKey", "secretKey");
+        ReflectionTestUtils.setField(jwtTokenProvider, "validityInMilliseconds", 604800L);
+        jwtTokenProvider.init();
+    }
+
+    @Test
+    void validateTokenShouldRejectRevokedTokenOnly() {
+        // Given
+        String revoked = jwtTokenProvider.createToken("user@example.com", "USER");
+        String other = jwtTokenProvider.createToken("user@example.com", "USER");
+
+        // When
+        jwtTokenProvider.revoke(revoked);
+
+        // Then
+        assertThrows(JwtAuthenticationException.class, () -> jwtTokenProvider.validateToken(revoked));
+        assertTrue(jwtTokenProvider.validateToken(other));
+    }
+
+    @Test
+    void validateTokenShouldRejectTokensIssuedBeforeUserCutoff() {
+        // Given
+        String token = jwtTokenProvider.createToken("user@example.com", "USER");
+
+        // When
+        tokenRevocationList.revokeIssuedBefore("user@example.com", System.currentTimeMillis() + 1);
+
+        // Then
+        assertThrows(JwtAuthenticationException.class, () -> jwtTokenProvider.validateToken(token));
+        assertTrue(jwtTokenProvider.validateToken(jwtTokenProvider.createToken("other@example.com", "USER")));
+    }
+
+    @Test
+    void validateTokenShouldAcceptTokenIssuedRightAfterUserCutoff() {
+        // Given
+        tokenRevocationList.revokeIssuedBefore("user@example.com", System.currentTimeMillis());
+
+        // When
+        String token = jwtTokenProvider.createToken("user@example.com", "USER");
+
+        // Then
+        assertTrue(jwtTokenProvider.validateToken(token));
+    }
+
+    @Test
+    void getAuthenticationShouldRejectTokensIssuedBeforeStoredPasswordChange() {
+        // Given
+        String token = jwtTokenProvider.createToken("user@example.com", "USER");
+        User user = User.builder()
+                .id(1L)
+                .email("user@example.com")
+                .username("user")
+                .role(Role.USER)
+                .tokensValidAfter(Instant.now().plusMillis(1))
+                .build();
+        when(userDetailsService.loadUserByUsername("user@example.com")).thenReturn(new UserDetailsImpl(user));
+
+        // When and Then
+        assertThrows(JwtAuthenticationException.class, () -> jwtTokenProvider.getAuthentication(token));
+    }
+
+    @Test
+    void getAuthenticationShouldAcceptTokensIssuedAfterStoredPasswordChange() {
+        // Given
+        User user = User.builder()
+                .id(1L)
+                .email("user@example.com")
+                .username("user")
+                .role(Role.USER)
+                .tokensValidAfter(Instant.now())
+                .build();
+        when(userDetailsService.loadUserByUsername("user@example.com")).thenReturn(new UserDetailsImpl(user));
+        String token = jwtTokenProvider.createToken("user@example.com", "USER");
+
+        // When
+        Authentication authentication = jwtTokenProvider.getAuthentication(token);
+
+        // Then
+        assertEquals("user@example.com", ((UserDetailsImpl) authentication.getPrincipal()).getUsername());
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.web.security.jwt;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Tag("benchmark")
+class TokenRevocationListBenchmark {
+    private static final long VALIDITY_SECONDS = 604800;
+    private static final int CHECKS = 5_000_000;
+
+    @Test
+    void isRevokedShouldTakeNanosecondsWithManyRevokedTokens() {
+        // Given
+        TokenRevocationList revocationList = new TokenRevocationList(VALIDITY_SECONDS, 8, 1 << 20, 1_000_000);
+        long now = System.currentTimeMillis();
+        long expiresAt = now + 3_600_000;
+        IntStream.range(0, 100_000).forEach(i -> revocationList.revoke(UUID.randomUUID(), "user" + i, expiresAt));
+        UUID[] valid = IntStream.range(0, 1024).mapToObj(i -> UUID.randomUUID()).toArray(UUID[]::new);
+        for (int i = 0; i < CHECKS; i++) {
+            revocationList.isRevoked(valid[i & 1023], "user", now, expiresAt);
+        }
+
+        // When
+        int revoked = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < CHECKS; i++) {
+            if (revocationList.isRevoked(valid[i & 1023], "user", now, expiresAt)) {
+                revoked++;
+            }
+        }
+        long nanos = System.nanoTime() - started;
+
+        // Then
+        assertEquals(0, revoked);
+        System.out.printf("%d revoked tokens: %.1f ns per check%n", revocationList.size(), (double) nanos / CHECKS);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.web.security.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationListTest {
+    private static final long VALIDITY_SECONDS = 604800;
+
+    @Test
+    void isRevokedShouldDenyOnlyRevokedTokenIds() {
+        // Given
+        TokenRevocationList revocationList = new TokenRevocationList(VALIDITY_SECONDS, 8, 1 << 16, 1000);
+        long now = System.currentTimeMillis();
+        long expiresAt = now + 60_000;
+        UUID revoked = UUID.randomUUID();
+        UUID valid = UUID.randomUUID();
+
+        // When
+        revocationList.revoke(revoked, "user@example.com", expiresAt);
+
+        // Then
+        assertTrue(revocationList.isRevoked(revoked, "user@example.com", now, expiresAt));
+        assertFalse(revocationList.isRevoked(valid, "user@example.com", now, expiresAt));
+        assertFalse(revocationList.isRevoked(null, "user@example.com", now, expiresAt));
+    }
+
+    @Test
+    void revokeShouldIgnoreExpiredTokensAndDropBucketsOnceTheirTokensExpired() throws InterruptedException {
+        // Given
+        TokenRevocationList revocationList = new TokenRevocationList(1, 4, 1 << 10, 1000);
+        long now = System.currentTimeMillis();
+
+        // When
+        revocationList.revoke(UUID.randomUUID(), "user@example.com", now - 1);
+        revocationList.revoke(UUID.randomUUID(), "user@example.com", now + 300);
+        int live = revocationList.size();
+        Thread.sleep(1_100);
+        revocationList.revoke(UUID.randomUUID(), "user@example.com", System.currentTimeMillis() + 900);
+
+        // Then
+        assertEquals(1, live);
+        assertEquals(1, revocationList.size());
+        assertEquals(1, revocationList.bucketCount());
+    }
+
+    @Test
+    void revokeIssuedBeforeShouldDenyEveryEarlierTokenOfTheSubject() {
+        // Given
+        TokenRevocationList revocationList = new TokenRevocationList(VALIDITY_SECONDS, 8, 1 << 10, 1000);
+        long now = System.currentTimeMillis();
+        long expiresAt = now + 60_000;
+
+        // When
+        revocationList.revokeIssuedBefore("user@example.com", now);
+
+        // Then
+        assertTrue(revocationList.isRevoked(UUID.randomUUID(), "user@example.com", now - 5_000, expiresAt));
+        assertTrue(revocationList.isRevoked(null, "user@example.com", now - 1, expiresAt));
+        assertFalse(revocationList.isRevoked(UUID.randomUUID(), "user@example.com", now, expiresAt));
+        assertFalse(revocationList.isRevoked(UUID.randomUUID(), "user@example.com", now + 1_000, expiresAt));
+        assertFalse(revocationList.isRevoked(UUID.randomUUID(), "other@example.com", now - 5_000, expiresAt));
+    }
+
+    @Test
+    void revokeShouldFallBackToSubjectCutoffWhenFull() {
+        // Given
+        TokenRevocationList revocationList = new TokenRevocationList(VALIDITY_SECONDS, 8, 1 << 10, 2);
+        long now = System.currentTimeMillis();
+        long expiresAt = now + 60_000;
+        revocationList.revoke(UUID.randomUUID(), "first@example.com", expiresAt);
+        revocationList.revoke(UUID.randomUUID(), "first@example.com", expiresAt);
+
+        // When
+        revocationList.revoke(UUID.randomUUID(), "second@example.com", expiresAt);
+
+        // Then
+        assertEquals(2, revocationList.size());
+        assertTrue(revocationList.isRevoked(UUID.randomUUID(), "second@example.com", now - 1_000, expiresAt));
+    }
+
+    @Test
+    void isRevokedShouldNotDenyValidTokensWithManyRevokedTokens() {
+        // Given
+        TokenRevocationList revocationList = new TokenRevocationList(VALIDITY_SECONDS, 8, 1 << 10, 100_000);
+        long now = System.currentTimeMillis();
+        long expiresAt = now + 3_600_000;
+        UUID[] revokedIds = IntStream.range(0, 10_000).mapToObj(i -> UUID.randomUUID()).toArray(UUID[]::new);
+        for (UUID id : revokedIds) {
+            revocationList.revoke(id, "user", expiresAt);
+        }
+
+        // When
+        long validDenied = IntStream.range(0, 10_000)
+                .filter(i -> revocationList.isRevoked(UUID.randomUUID(), "user", now, expiresAt))
+                .count();
+
+        // Then
+        assertEquals(0, validDenied);
+        assertTrue(revocationList.isRevoked(revokedIds[0], "user", now, expiresAt));
+        assertTrue(revocationList.isRevoked(revokedIds[revokedIds.length - 1], "user", now, expiresAt));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.web.security.ratelimit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.demo.web.security.ratelimit.ConcurrencyLimitFilterTest.doFilter;
+import static com.example.demo.web.security.ratelimit.ConcurrencyLimitFilterTest.filter;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("benchmark")
+class ConcurrencyLimitFilterBenchmark {
+    private static final int CLIENTS = 64;
+    private static final int WORKERS = 8;
+    private static final long WORK_MILLIS = 2;
+    private static final long DURATION_MILLIS = 3_000;
+
+    @Test
+    void admittedRequestsShouldKeepBoundedLatencyUnderOverload() throws Exception {
+        // When
+        Result unlimited = overload(filter(false, 50));
+        ConcurrencyLimitFilter limited = filter(true, 50);
+        Result admitted = overload(limited);
+
+        // Then
+        assertTrue(admitted.percentile(0.99) < unlimited.percentile(0.99) / 2);
+        assertTrue(admitted.shed > 0);
+        assertTrue(limited.getLimiter().getLimit() < 50);
+        System.out.printf("%d clients on %d workers: unlimited p50 %.1f ms p99 %.1f ms %.0f req/s, "
+                        + "limited p50 %.1f ms p99 %.1f ms %.0f req/s with %d shed, limit settled at %d%n",
+                CLIENTS, WORKERS, unlimited.percentile(0.5), unlimited.percentile(0.99), unlimited.throughput(),
+                admitted.percentile(0.5), admitted.percentile(0.99), admitted.throughput(), admitted.shed,
+                limited.getLimiter().getLimit());
+    }
+
+    /**
+     * Runs clients in a closed loop against a chain that behaves like a pool of {@code WORKERS} connections, so
+     * every request beyond that queues. Shed clients back off for one work period before they retry.
+     */
+    private static Result overload(ConcurrencyLimitFilter filter) throws Exception {
+        Semaphore connections = new Semaphore(WORKERS, true);
+        FilterChain chain = (request, response) -> {
+            connections.acquireUninterruptibly();
+            try {
+                Thread.sleep(WORK_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                connections.release();
+            }
+        };
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS);
+        long warmedUp = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS / 3);
+        AtomicLong shed = new AtomicLong();
+        List<Future<List<Long>>> latencies = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            latencies.add(clients.submit(() -> {
+                List<Long> own = new ArrayList<>();
+                while (System.nanoTime() < deadline) {
+                    long started = System.nanoTime();
+                    MockHttpServletResponse response = doFilter(filter, "GET", "/api/v1/rooms", chain);
+                    if (started < warmedUp) {
+                        continue;
+                    }
+                    if (response.getStatus() == HttpStatus.OK.value()) {
+                        own.add(System.nanoTime() - started);
+                    } else {
+                        shed.incrementAndGet();
+                        Thread.sleep(WORK_MILLIS);
+                    }
+                }
+                return own;
+            }));
+        }
+        List<Long> all = new ArrayList<>();
+        for (Future<List<Long>> own : latencies) {
+            all.addAll(own.get());
+        }
+        clients.shutdown();
+        return new Result(all.stream().mapToLong(Long::longValue).sorted().toArray(), shed.get(),
+                DURATION_MILLIS - DURATION_MILLIS / 3);
+    }
+
+    private record Result(long[] latencies, long shed, long millis) {
+        private double percentile(double percentile) {
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(percentile * latencies.length) - 1);
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+
+        private double throughput() {
+            return latencies.length * 1000.0 / millis;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.web.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+    @Test
+    void doFilterShouldShedLoginBeforeReadsWithRetryAfter() throws Exception {
+        // Given
+        ConcurrencyLimitFilter filter = filter(true, 4);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        for (int i = 0; i < 2; i++) {
+            executor.submit(() -> doFilter(filter, "GET", "/api/v1/rooms", (request, response) -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        while (filter.getLimiter().getInFlight() < 2) {
+            Thread.onSpinWait();
+        }
+
+        // When
+        MockHttpServletResponse login = doFilter(filter, "POST", "/api/v1/auth/login", new MockFilterChain());
+        MockHttpServletResponse slashed = doFilter(filter, "POST", "/api/v1/auth/login/", new MockFilterChain());
+        MockHttpServletResponse read = doFilter(filter, "GET", "/api/v1/rooms", new MockFilterChain());
+        release.countDown();
+        executor.shutdown();
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), login.getStatus());
+        assertEquals("1", login.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), slashed.getStatus());
+        assertEquals(HttpStatus.OK.value(), read.getStatus());
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, filter.getLimiter().getInFlight());
+    }
+
+    @Test
+    void doFilterShouldIgnoreNonApiRequestsAndReleaseOnFailure() {
+        // Given
+        ConcurrencyLimitFilter filter = filter(true, 1);
+
+        // When
+        assertThrows(IllegalStateException.class, () -> doFilter(filter, "GET", "/api/v1/rooms",
+                (request, response) -> {
+                    throw new IllegalStateException("boom");
+                }));
+        MockHttpServletResponse other = doFilter(filter, "GET", "/actuator/health", (request, response) -> {
+            assertEquals(0, filter.getLimiter().getInFlight());
+        });
+
+        // Then
+        assertEquals(HttpStatus.OK.value(), other.getStatus());
+        assertEquals(0, filter.getLimiter().getInFlight());
+    }
+
+    static ConcurrencyLimitFilter filter(boolean enabled, int initialLimit) {
+        return new ConcurrencyLimitFilter(enabled, initialLimit, Math.min(initialLimit, 4), 200, 2.0, 0.9,
+                20, 10, 1);
+    }
+
+    static MockHttpServletResponse doFilter(ConcurrencyLimitFilter filter, String method, String path,
+                                            FilterChain chain) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, chain);
+        } catch (Exception e) {
+            throw e instanceof RuntimeException runtime ? runtime : new IllegalStateException(e);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.demo.web.security.ratelimit;
+
+import com.example.demo.web.security.ratelimit.ConcurrencyLimiter.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long LOGIN = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void tryAcquireShouldLimitEachPriorityToItsShare() {
+        // Given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 100, 2.0, 0.5, 0, TimeUnit.MILLISECONDS, 1);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(Priority.LOW));
+        }
+
+        // When
+        boolean low = limiter.tryAcquire(Priority.LOW);
+        int normal = acquireAll(limiter, Priority.NORMAL);
+        int high = acquireAll(limiter, Priority.HIGH);
+
+        // Then
+        assertFalse(low);
+        assertEquals(4, normal);
+        assertEquals(1, high);
+        assertEquals(10, limiter.getInFlight());
+        assertEquals(3, limiter.getRejectedCount());
+    }
+
+    @Test
+    void releaseShouldCutLimitWhenLatencyRisesAboveBaseline() {
+        // Given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(40, 10, 100, 2.0, 0.5, 0, TimeUnit.MILLISECONDS, 1);
+        complete(limiter, FAST);
+        int before = limiter.getLimit();
+
+        // When
+        complete(limiter, SLOW);
+        int once = limiter.getLimit();
+        for (int i = 0; i < 10; i++) {
+            complete(limiter, SLOW);
+        }
+
+        // Then
+        assertEquals(20, once);
+        assertTrue(once < before);
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void releaseShouldGrowLimitOnlyWhenItIsUsed() {
+        // Given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(16, 1, 20, 2.0, 0.5, 0, TimeUnit.MILLISECONDS, 1);
+        complete(limiter, FAST);
+        int idle = limiter.getLimit();
+
+        // When
+        int acquired = acquireAll(limiter, Priority.HIGH);
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(Priority.HIGH, FAST);
+        }
+
+        // Then
+        assertEquals(16, idle);
+        assertEquals(20, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void releaseShouldCompareEachPriorityToItsOwnBaseline() {
+        // Given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(40, 10, 100, 2.0, 0.5, 0, TimeUnit.MILLISECONDS, 4);
+
+        // When
+        for (int window = 0; window < 10; window++) {
+            complete(limiter, Priority.HIGH, FAST);
+            complete(limiter, Priority.HIGH, FAST);
+            complete(limiter, Priority.LOW, LOGIN);
+            complete(limiter, Priority.LOW, LOGIN);
+        }
+        int mixed = limiter.getLimit();
+        complete(limiter, Priority.HIGH, SLOW);
+        complete(limiter, Priority.HIGH, SLOW);
+        complete(limiter, Priority.LOW, LOGIN);
+        complete(limiter, Priority.LOW, LOGIN);
+
+        // Then
+        assertEquals(40, mixed);
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void releaseWithoutLatencyShouldOnlyFreeSlot() {
+        // Given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10, 2.0, 0.5, 0, TimeUnit.MILLISECONDS, 1);
+        acquireAll(limiter, Priority.HIGH);
+
+        // When
+        limiter.release();
+
+        // Then
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(2, limiter.getLimit());
+        assertTrue(limiter.tryAcquire(Priority.HIGH));
+    }
+
+    @Test
+    void constructorShouldRejectInconsistentLimits() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConcurrencyLimiter(5, 10, 100, 2.0, 0.5, 100, TimeUnit.MILLISECONDS, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConcurrencyLimiter(10, 1, 100, 1.0, 0.5, 100, TimeUnit.MILLISECONDS, 1));
+    }
+
+    private static void complete(ConcurrencyLimiter limiter, long latencyNanos) {
+        complete(limiter, Priority.HIGH, latencyNanos);
+    }
+
+    private static void complete(ConcurrencyLimiter limiter, Priority priority, long latencyNanos) {
+        assertTrue(limiter.tryAcquire(priority));
+        limiter.release(priority, latencyNanos);
+    }
+
+    private static int acquireAll(ConcurrencyLimiter limiter, Priority priority) {
+        int acquired = 0;
+        while (limiter.tryAcquire(priority)) {
+            acquired++;
+        }
+        return acquired;
+    }
+}
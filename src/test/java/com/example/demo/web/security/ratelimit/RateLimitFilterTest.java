@@ -0,0 +1,82 @@
+package com.example.demo.web.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private final RateLimitFilter rateLimitFilter = new RateLimitFilter(true, 60_000, 2, 1, 5, 600_000);
+
+    @Test
+    void doFilterShouldRejectWithRetryAfterWhenLoginLimitIsExceeded() throws Exception {
+        // Given
+        doFilter("/api/v1/auth/login", "10.0.0.1");
+        doFilter("/api/v1/auth/login", "10.0.0.1");
+
+        // When
+        MockHttpServletResponse response = doFilter("/api/v1/auth/login", "10.0.0.1");
+
+        // Then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+        assertEquals("30", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(HttpStatus.OK.value(), doFilter("/api/v1/auth/login", "10.0.0.2").getStatus());
+    }
+
+    @Test
+    void doFilterShouldLimitEachRouteSeparately() throws Exception {
+        // Given
+        doFilter("/api/v1/users/register", "10.0.0.1");
+
+        // When
+        MockHttpServletResponse register = doFilter("/api/v1/users/register", "10.0.0.1");
+        MockHttpServletResponse connect = doFilter("/api/v1/rooms/connect/1", "10.0.0.1");
+
+        // Then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), register.getStatus());
+        assertEquals(HttpStatus.OK.value(), connect.getStatus());
+    }
+
+    @Test
+    void doFilterShouldMatchRoutesLikeMvc() throws Exception {
+        // Given
+        doFilter("/api/v1/auth/login", "10.0.0.1");
+        doFilter("/api/v1/auth/login/", "10.0.0.1");
+        doFilter("/api/v1/users/register/", "10.0.0.1");
+
+        // When
+        MockHttpServletResponse login = doFilter("/api/v1/auth/login;jsessionid=1", "10.0.0.1");
+        MockHttpServletResponse register = doFilter("/api/v1/users/register", "10.0.0.1");
+
+        // Then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), login.getStatus());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), register.getStatus());
+    }
+
+    @Test
+    void doFilterShouldIgnoreRoutesWithoutLimit() throws Exception {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            doFilter("/api/v1/rooms/connected", "10.0.0.1");
+        }
+
+        // When
+        MockHttpServletResponse response = doFilter("/api/v1/rooms/connected", "10.0.0.1");
+
+        // Then
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+    }
+
+    private MockHttpServletResponse doFilter(String path, String remoteAddress) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr(remoteAddress);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.web.security.ratelimit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("benchmark")
+class RateLimiterBenchmark {
+    private static final int THREADS = 4;
+    private static final int ACQUIRES_PER_THREAD = 1_000_000;
+    private static final int KEYS = 1_024;
+
+    @Test
+    void tryAcquireShouldCostWellUnderAMicrosecond() throws Exception {
+        // Given
+        RateLimiter rateLimiter = new RateLimiter(1_000, 1, TimeUnit.SECONDS, 60_000);
+        String[] keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "10.0." + (i >> 8) + "." + (i & 255);
+        }
+        long warmup = runAcquires(rateLimiter, keys, ACQUIRES_PER_THREAD / 10);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS + 1);
+        List<Future<Long>> futures = new ArrayList<>();
+
+        // When
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return runAcquires(rateLimiter, keys, ACQUIRES_PER_THREAD);
+            }));
+        }
+        start.await();
+        long started = System.nanoTime();
+        long waited = warmup;
+        for (Future<Long> future : futures) {
+            waited += future.get();
+        }
+        long nanos = System.nanoTime() - started;
+        executor.shutdown();
+
+        // Then
+        double nanosPerAcquire = (double) nanos * Math.min(THREADS, Runtime.getRuntime().availableProcessors())
+                / THREADS / ACQUIRES_PER_THREAD;
+        System.out.printf("%d threads, %d keys: %.1f CPU ns per tryAcquire%n", THREADS, KEYS, nanosPerAcquire);
+        assertTrue(waited > 0);
+        assertTrue(nanosPerAcquire < 1_000, "ns per tryAcquire: " + nanosPerAcquire);
+    }
+
+    private static long runAcquires(RateLimiter rateLimiter, String[] keys, int acquires) {
+        long waited = 0;
+        for (int i = 0; i < acquires; i++) {
+            waited += rateLimiter.tryAcquire(keys[i & (KEYS - 1)]);
+        }
+        return waited;
+    }
+}
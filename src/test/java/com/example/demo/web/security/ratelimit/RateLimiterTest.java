@@ -0,0 +1,88 @@
+package com.example.demo.web.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+    private static final int THREADS = 4;
+
+    @Test
+    void tryAcquireShouldAllowBurstThenReportWait() {
+        // Given
+        RateLimiter rateLimiter = new RateLimiter(3, 1, TimeUnit.MINUTES, 60_000);
+
+        // When
+        long first = rateLimiter.tryAcquire("client");
+        long second = rateLimiter.tryAcquire("client");
+        long third = rateLimiter.tryAcquire("client");
+        long fourth = rateLimiter.tryAcquire("client");
+
+        // Then
+        assertEquals(0, first + second + third);
+        assertTrue(fourth > TimeUnit.SECONDS.toNanos(15) && fourth <= TimeUnit.SECONDS.toNanos(20));
+        assertEquals(0, rateLimiter.tryAcquire("other"));
+    }
+
+    @Test
+    void tryAcquireShouldRefillOverTime() throws InterruptedException {
+        // Given
+        RateLimiter rateLimiter = new RateLimiter(1, 50, TimeUnit.MILLISECONDS, 60_000);
+        assertEquals(0, rateLimiter.tryAcquire("client"));
+        assertTrue(rateLimiter.tryAcquire("client") > 0);
+
+        // When
+        Thread.sleep(60);
+
+        // Then
+        assertEquals(0, rateLimiter.tryAcquire("client"));
+    }
+
+    @Test
+    void tryAcquireShouldEvictIdleBuckets() throws InterruptedException {
+        // Given
+        RateLimiter rateLimiter = new RateLimiter(10, 10, TimeUnit.MILLISECONDS, 20);
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.tryAcquire("client" + i);
+        }
+
+        // When
+        Thread.sleep(40);
+        rateLimiter.tryAcquire("active");
+
+        // Then
+        assertEquals(1, rateLimiter.size());
+    }
+
+    @Test
+    void tryAcquireShouldNeverGrantMoreThanTheBurstUnderContention() throws Exception {
+        // Given
+        RateLimiter rateLimiter = new RateLimiter(100, 1, TimeUnit.HOURS, 60_000);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger granted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    if (rateLimiter.tryAcquire("shared") == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(100, granted.get());
+    }
+}